@@ -0,0 +1,159 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.formatter.CodeFormatter;
+import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.TextEdit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.below.bgen.builder.generator.BuilderModel.InstantiationKind;
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+
+/**
+ * Compares the two ways to format a nested builder in a large compilation
+ * unit, with {@link BuilderOption#PREFORMAT} and without: formatting the
+ * rendered source of the builder on its own, before it is inserted, or
+ * formatting the range of the builder after it has been inserted, which
+ * parses the whole compilation unit.
+ *
+ * <p>
+ * The compilation unit holds 5 lines per setter of the source type, and the
+ * builder one setter per property. Only the formatter is measured: the
+ * reconciling and saving of the compilation unit, which the plugin adds to
+ * formatting after the insertion, need a workspace.
+ * </p>
+ *
+ * <p>
+ * The benchmarks are not part of the plugin build. Compile the
+ * <code>bench</code> folder together with <code>src</code> against
+ * <code>jmh-core</code> and <code>org.eclipse.jdt.core</code>, with
+ * <code>jmh-generator-annprocess</code> as annotation processor, and run
+ * {@link #main(String[])} or the JMH runner directly.
+ * </p>
+ *
+ * @author martin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingBenchmark {
+
+	@Param({ "100", "1000" })
+	private int setters;
+
+	private Map<String, String> formatterOptions;
+
+	private String builderSource;
+
+	private String compilationUnit;
+
+	private int builderOffset;
+
+	@Setup
+	public void createSources() {
+
+		formatterOptions = DefaultCodeFormatterConstants.getEclipseDefaultSettings();
+
+		PropertyList properties = new PropertyList();
+
+		for (int i = 0; i < setters; i++) {
+			properties.add(new Property.SetterProperty("String", "value" + i, null));
+		}
+
+		BuilderModel model = new BuilderModel("Large", "LargeBuilder", true,
+				InstantiationKind.CONSTRUCTOR, null, null, properties,
+				new ArrayList<Property>(), Collections.<String> emptySet(),
+				Collections.<String> emptySet(), Collections.<String> emptyList());
+
+		builderSource = new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS)).render(model);
+
+		StringBuilder unit = new StringBuilder("public class Large {\n");
+
+		for (int i = 0; i < setters; i++) {
+			unit.append("	private String value" + i + ";\n");
+			unit.append("	public void setValue" + i + "(String value" + i + ") {\n");
+			unit.append("		this.value" + i + " = value" + i + ";\n");
+			unit.append("	}\n");
+			unit.append("\n");
+		}
+
+		builderOffset = unit.length();
+
+		compilationUnit = unit.append(builderSource).append("}\n").toString();
+	}
+
+	/**
+	 * Formats the rendered builder before it is inserted, as with
+	 * {@link BuilderOption#PREFORMAT}.
+	 */
+	@Benchmark
+	public String preformatted() {
+		return format(CodeFormatter.K_CLASS_BODY_DECLARATIONS, builderSource,
+				0, builderSource.length(), 1);
+	}
+
+	/**
+	 * Formats the range of the builder in the compilation unit it has been
+	 * inserted into.
+	 */
+	@Benchmark
+	public String formatAfterInsert() {
+		return format(CodeFormatter.K_COMPILATION_UNIT, compilationUnit,
+				builderOffset, builderSource.length(), 0);
+	}
+
+	private String format(int kind, String source, int offset, int length,
+			int indentationLevel) {
+
+		TextEdit edit = ToolFactory.createCodeFormatter(formatterOptions)
+				.format(kind, source, offset, length, indentationLevel, null);
+
+		if (edit == null) {
+			throw new IllegalStateException("the source could not be formatted");
+		}
+
+		IDocument document = new Document(source);
+
+		try {
+			edit.apply(document);
+		}
+		catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return document.get();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(FormattingBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,41 @@
+package de.below.bgen.builder.generator;
+
+import de.below.bgen.apt.GenerateBuilder;
+
+/**
+ * The target of {@link ScalarReplacementBenchmark}, with a constructor
+ * argument, a setter property and a mandatory property. Its builder is
+ * generated by the {@link de.below.bgen.apt.BuilderProcessor} when the
+ * benchmarks are compiled.
+ *
+ * @author martin
+ */
+@GenerateBuilder(jitFriendly = true, mandatoryProperties = "name")
+public class Sample {
+
+	private final String name;
+	private final long value;
+	private String unit;
+
+	public Sample(String name, long value) {
+		this.name = name;
+		this.value = value;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getValue() {
+		return value;
+	}
+
+	public String getUnit() {
+		return unit;
+	}
+
+	public void setUnit(String unit) {
+		this.unit = unit;
+	}
+
+}
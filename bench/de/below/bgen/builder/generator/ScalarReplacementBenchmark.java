@@ -0,0 +1,135 @@
+package de.below.bgen.builder.generator;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Checks that the JIT compiler eliminates the allocation of a
+ * {@link BuilderOption#JIT_FRIENDLY JIT friendly} builder: building a
+ * {@link Sample} through <code>newBuilder()...build()</code> must not
+ * allocate more than creating it directly.
+ *
+ * <p>
+ * The builder of {@link Sample} is generated while the benchmarks are
+ * compiled, so the <code>bench</code> folder has to be compiled with both the
+ * {@link de.below.bgen.apt.BuilderProcessor} and the JMH annotation processor:
+ * </p>
+ *
+ * <pre>
+ * javac -processorpath ... -processor de.below.bgen.apt.BuilderProcessor,\
+ *     org.openjdk.jmh.generators.BenchmarkProcessor ...
+ * </pre>
+ *
+ * <p>
+ * {@link #main(String[])} runs both benchmarks with the GC profiler, compares
+ * their <code>gc.alloc.rate.norm</code> (bytes allocated per operation) and
+ * exits with 1 if the builder has not been scalar replaced.
+ * </p>
+ *
+ * @author martin
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalarReplacementBenchmark {
+
+	private static final String ALLOCATION_RATE = "gc.alloc.rate.norm";
+
+	/**
+	 * The bytes per operation the builder may allocate more than the direct
+	 * instantiation, to absorb measurement noise. A builder takes at least 16
+	 * bytes.
+	 */
+	private static final double TOLERANCE = 4;
+
+	private String name = "cpu";
+	private long value = 42;
+	private String unit = "percent";
+
+	/**
+	 * Creates the sample directly, the lower bound of the allocations.
+	 */
+	@Benchmark
+	public Sample constructor() {
+		Sample sample = new Sample(name, value);
+		sample.setUnit(unit);
+		return sample;
+	}
+
+	/**
+	 * Creates the sample with its generated builder.
+	 */
+	@Benchmark
+	public Sample builder() {
+		return SampleBuilder.newBuilder()
+				.setName(name)
+				.setValue(value)
+				.setUnit(unit)
+				.build();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		Collection<RunResult> results = new Runner(new OptionsBuilder()
+				.include(ScalarReplacementBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+
+		double direct = allocated(results, "constructor");
+		double built = allocated(results, "builder");
+
+		System.out.println(String.format(
+				"allocated per operation: constructor %.1f bytes, builder %.1f bytes",
+				direct, built));
+
+		if (built > direct + TOLERANCE) {
+			System.err.println("the builder has not been scalar replaced");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return The bytes allocated per operation by the given benchmark.
+	 */
+	private static double allocated(Collection<RunResult> results,
+			String benchmark) {
+
+		for (RunResult result : results) {
+
+			if (!result.getParams().getBenchmark().endsWith("." + benchmark)) {
+				continue;
+			}
+
+			for (Map.Entry<String, Result> secondary : result
+					.getAggregatedResult().getSecondaryResults().entrySet()) {
+
+				if (secondary.getKey().endsWith(ALLOCATION_RATE)) {
+					return secondary.getValue().getScore();
+				}
+			}
+		}
+
+		throw new IllegalStateException("no allocation rate for " + benchmark);
+	}
+
+}
@@ -0,0 +1,250 @@
+package de.below.codegen;
+
+import static de.below.bgen.builder.generator.Expressions.RETURN_THIS;
+import static de.below.bgen.builder.generator.Expressions.assignment;
+import static de.below.bgen.builder.generator.Expressions.declarationWithAssignment;
+import static de.below.bgen.builder.generator.Expressions.field;
+import static de.below.bgen.builder.generator.Expressions.instantiation;
+import static de.below.bgen.builder.generator.Expressions.methodCall;
+import static de.below.bgen.builder.generator.Expressions.object;
+import static de.below.bgen.builder.generator.Expressions.returnStatement;
+import static de.below.bgen.builder.generator.Expressions.self;
+import static de.below.bgen.builder.generator.Expressions.type;
+import static de.below.bgen.builder.generator.Expressions.variable;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.below.bgen.builder.generator.Expressions.ObjectVar;
+import de.below.bgen.builder.generator.Expressions.Type;
+import de.below.bgen.codegen.Expression;
+import de.below.bgen.codegen.Visibility;
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.ConstructorBuilder.ArgsStep;
+import de.below.codegen.ConstructorBuilder.InConstructorStep;
+
+/**
+ * Measures the throughput of rendering classes with the code generation
+ * library, for classes with 1 to 1000 members.
+ * 
+ * <p>
+ * The benchmarks are not part of the plugin build. Compile the
+ * <code>bench</code> folder together with <code>src</code> against
+ * <code>jmh-core</code>, with <code>jmh-generator-annprocess</code> as
+ * annotation processor, and run either {@link #main(String[])}, which
+ * enables the GC profiler, or the JMH runner directly:
+ * </p>
+ * 
+ * <pre>
+ * java -cp ... org.openjdk.jmh.Main ClassRenderingBenchmark -prof gc
+ * </pre>
+ * 
+ * <p>
+ * The interesting numbers are the score (rendered classes per second) and
+ * <code>gc.alloc.rate.norm</code> (bytes allocated per rendered class).
+ * </p>
+ * 
+ * @author martin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassRenderingBenchmark {
+
+	private static final Type BEAN = type("Bean");
+	private static final ObjectVar RESULT = object("result");
+
+	private static final MemberTemplate FLUENT_SETTER = MemberTemplate.compile(
+			"public BeanBuilder ${setter}(${type} ${name}) {\n"
+			+ "\tthis.${name} = ${name};\n"
+			+ "\treturn this;\n"
+			+ "}\n", "setter", "type", "name");
+
+	@Param({ "1", "10", "100", "1000" })
+	private int members;
+
+	private String[] names;
+	private String[] setterNames;
+
+	@Setup
+	public void createNames() {
+
+		names = new String[members];
+		setterNames = new String[members];
+
+		for (int i = 0; i < members; i++) {
+			names[i] = "property" + i;
+			setterNames[i] = "setProperty" + i;
+		}
+	}
+
+	/**
+	 * A class with one private field per member.
+	 */
+	@Benchmark
+	public String fields() {
+
+		InClassStep<JavaCodeWriter> builder = beginClass();
+
+		for (String name : names) {
+			builder = builder.beginField()
+					.type("String")
+					.name(name)
+					.visibility(Visibility.PRIVATE)
+					.buildField();
+		}
+
+		return builder.endClass().render();
+	}
+
+	/**
+	 * A class with one fluent setter per member.
+	 */
+	@Benchmark
+	public String setters() {
+
+		InClassStep<JavaCodeWriter> builder = beginClass();
+
+		for (String name : names) {
+			builder = builder.beginMethod()
+					.visibility(Visibility.PUBLIC)
+					.returnType("BeanBuilder")
+					.argument("String", name)
+					.name(name)
+					.addStatement(assignment(field(self(), name), variable(name)))
+					.addStatement(RETURN_THIS)
+					.endMethod();
+		}
+
+		return builder.endClass().render();
+	}
+
+	/**
+	 * {@link #setters()}, rendered from a precompiled template.
+	 */
+	@Benchmark
+	public String templateSetters() {
+
+		InClassStep<JavaCodeWriter> builder = beginClass();
+
+		for (String name : names) {
+			builder = builder.addMember(FLUENT_SETTER, name, "String", name);
+		}
+
+		return builder.endClass().render();
+	}
+
+	/**
+	 * A class with a single constructor that takes and assigns all members.
+	 */
+	@Benchmark
+	public String constructor() {
+
+		ArgsStep<InClassStep<JavaCodeWriter>> arguments = beginClass()
+				.beginConstructor()
+				.visibility(Visibility.PUBLIC)
+				.withArguments();
+
+		for (String name : names) {
+			arguments = arguments.argument("String", name);
+		}
+
+		InConstructorStep<InClassStep<JavaCodeWriter>> constructor = arguments.endArguments();
+
+		for (String name : names) {
+			constructor = constructor.addStatement(assignment(field(self(), name), variable(name)));
+		}
+
+		return constructor.endConstructor().endClass().render();
+	}
+
+	/**
+	 * A builder like class: fields, fluent setters and a build method that
+	 * calls all setters of the created instance.
+	 */
+	@Benchmark
+	public String builder() {
+		return renderBuilder(beginClass());
+	}
+
+	/**
+	 * {@link #builder()} rendered into the pooled writer of the thread, so
+	 * only the rendered output and the builder steps are allocated.
+	 */
+	@Benchmark
+	public String pooledBuilder() {
+		return renderBuilder(ClassBuilder.newClass(JavaCodeWriter.pooled())
+				.visibility(Visibility.PUBLIC)
+				.name("BeanBuilder"));
+	}
+
+	private String renderBuilder(InClassStep<JavaCodeWriter> builder) {
+
+		for (String name : names) {
+			builder = builder.beginField()
+					.type("String")
+					.name(name)
+					.visibility(Visibility.PRIVATE)
+					.buildField();
+		}
+
+		for (String name : names) {
+			builder = builder.beginMethod()
+					.visibility(Visibility.PUBLIC)
+					.returnType("BeanBuilder")
+					.argument("String", name)
+					.name(name)
+					.addStatement(assignment(field(self(), name), variable(name)))
+					.addStatement(RETURN_THIS)
+					.endMethod();
+		}
+
+		MethodBuilder.InMethodStep<InClassStep<JavaCodeWriter>> build = builder.beginMethod()
+				.visibility(Visibility.PUBLIC)
+				.returnType("Bean")
+				.name("build")
+				.addStatement(declarationWithAssignment(BEAN, RESULT, instantiation(BEAN)));
+
+		for (int i = 0; i < members; i++) {
+			build = build.addStatement(methodCall(RESULT, setterNames[i],
+					new Expression[] { field(self(), names[i]) }));
+		}
+
+		return build.addStatement(returnStatement(RESULT))
+				.endMethod()
+				.endClass()
+				.render();
+	}
+
+	private static InClassStep<JavaCodeWriter> beginClass() {
+		return ClassBuilder.newClass()
+				.visibility(Visibility.PUBLIC)
+				.name("BeanBuilder");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ClassRenderingBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+
+}
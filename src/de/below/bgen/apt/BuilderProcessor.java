@@ -0,0 +1,233 @@
+package de.below.bgen.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import de.below.bgen.builder.generator.BuilderModel;
+import de.below.bgen.builder.generator.BuilderModelFactory;
+import de.below.bgen.builder.generator.BuilderOption;
+import de.below.bgen.builder.generator.BuilderRenderer;
+import de.below.bgen.builder.generator.SourceTypeAnalyzer;
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+import de.below.codegen.CodeWriterException;
+
+/**
+ * Generates builders for all classes annotated with {@link GenerateBuilder}
+ * during compilation.
+ *
+ * <p>
+ * The builders are modeled and rendered with the same rules as the builders
+ * generated within the IDE: the first public constructor or static factory
+ * method is used for instantiation, and all public setters that do not
+ * correspond to one of its arguments become properties of the builder.
+ * </p>
+ *
+ * <p>
+ * Each builder is created with its annotated class as the only originating
+ * element, so incremental builds only regenerate the builders of changed
+ * classes.
+ * </p>
+ *
+ * @author martin
+ */
+@SupportedAnnotationTypes("de.below.bgen.apt.GenerateBuilder")
+public class BuilderProcessor extends AbstractProcessor {
+
+	private static final String BUILDER_SUFFIX = "Builder";
+
+	private final BuilderModelFactory modelFactory = new BuilderModelFactory();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+
+		ElementDescriptors descriptors = new ElementDescriptors(processingEnv
+				.getElementUtils());
+
+		for (Element element : roundEnv
+				.getElementsAnnotatedWith(GenerateBuilder.class)) {
+
+			if (isSupported(element)) {
+				generate((TypeElement) element, descriptors);
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isSupported(Element element) {
+
+		if (element.getKind() != ElementKind.CLASS
+				|| element.getModifiers().contains(Modifier.ABSTRACT)) {
+			error(element, "builders can only be generated for concrete classes");
+			return false;
+		}
+
+		TypeElement type = (TypeElement) element;
+
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL
+				&& !type.getModifiers().contains(Modifier.STATIC)) {
+			error(element, "builders can only be generated for top level or static nested classes");
+			return false;
+		}
+
+		if (!type.getTypeParameters().isEmpty()) {
+			error(element, "builders can not be generated for generic classes");
+			return false;
+		}
+
+		return true;
+	}
+
+	private void generate(TypeElement type, ElementDescriptors descriptors) {
+
+		GenerateBuilder settings = type.getAnnotation(GenerateBuilder.class);
+
+		String builderName = settings.name().length() == 0 ? type
+				.getSimpleName() + BUILDER_SUFFIX : settings.name();
+
+		try {
+			TypeDescriptor sourceType = descriptors.describe(type);
+
+			if (!SourceTypeAnalyzer.isInstantiable(sourceType)) {
+				error(type, "no public constructor or static factory method found");
+				return;
+			}
+
+			MethodDescriptor instantiationMethod = SourceTypeAnalyzer
+					.findDefaultInstantiationMethod(sourceType);
+
+			List<MethodDescriptor> setters = SourceTypeAnalyzer.findSetters(
+					sourceType, instantiationMethod);
+
+			BuilderModel model = modelFactory.create(sourceType,
+					instantiationMethod, setters,
+					Arrays.asList(settings.mandatoryProperties()), builderName, false);
+
+			EnumSet<BuilderOption> options = EnumSet.noneOf(BuilderOption.class);
+
+			if (settings.fluentSetters()) {
+				options.add(BuilderOption.FLUENT_SETTERS);
+			}
+
+			if (settings.assignedSettersOnly()) {
+				options.add(BuilderOption.ASSIGNED_SETTERS_ONLY);
+			}
+
+			if (settings.reusable()) {
+				options.add(BuilderOption.REUSABLE_BUILDERS);
+			}
+
+			if (settings.buildInto()) {
+				options.add(BuilderOption.BUILD_INTO);
+			}
+
+			if (settings.jitFriendly()) {
+				options.add(BuilderOption.JIT_FRIENDLY);
+			}
+
+			if (settings.copyOnWriteCollections()) {
+				options.add(BuilderOption.COPY_ON_WRITE_COLLECTIONS);
+			}
+
+			if (settings.collectionSetters()) {
+				options.add(BuilderOption.COLLECTION_SETTERS);
+			}
+
+			if (settings.adoptingSetters()) {
+				options.add(BuilderOption.ADOPTING_SETTERS);
+			}
+
+			if (settings.canonical()) {
+				options.add(BuilderOption.CANONICAL_INSTANCES);
+			}
+
+			if (settings.bindingMethods()) {
+				options.add(BuilderOption.BINDING_METHODS);
+			}
+
+			if (settings.propertyTable()) {
+				options.add(BuilderOption.PROPERTY_TABLE);
+			}
+
+			if (settings.instrumented()) {
+				options.add(BuilderOption.INSTRUMENTATION);
+			}
+
+			if (settings.latencyHistogram()) {
+				options.add(BuilderOption.LATENCY_HISTOGRAM);
+			}
+
+			if (settings.primitiveStorage()) {
+				options.add(BuilderOption.PRIMITIVE_STORAGE);
+			}
+
+			BuilderRenderer renderer = new BuilderRenderer(
+					SetterNamingStrategy.create(settings.setterPrefix()), options);
+
+			write(type, sourceType.getPackageName(), model, renderer);
+		}
+		catch (IOException e) {
+			error(type, "could not write " + builderName + ": " + e.getMessage());
+		}
+		catch (RuntimeException e) {
+			error(type, "could not generate " + builderName + ": " + e);
+		}
+	}
+
+	private void write(TypeElement type, String packageName,
+			BuilderModel model, BuilderRenderer renderer) throws IOException {
+
+		String builderName = model.getBuilderName();
+		String qualifiedName = packageName.length() == 0 ? builderName
+				: packageName + "." + builderName;
+
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(
+				qualifiedName, type);
+
+		Writer writer = file.openWriter();
+
+		try {
+			if (packageName.length() > 0) {
+				writer.write("package " + packageName + ";\n\n");
+			}
+
+			renderer.render(model, writer);
+		}
+		catch (CodeWriterException e) {
+			throw e.getCause();
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+				message, element);
+	}
+
+}
@@ -0,0 +1,161 @@
+package de.below.bgen.apt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+/**
+ * Creates descriptors from the elements of an annotation processing round, so
+ * the builders can be modeled the same way as from the java model.
+ *
+ * <p>
+ * Types are described by their canonical names, since the builders are
+ * generated as separate top-level classes.
+ * </p>
+ *
+ * @author martin
+ */
+class ElementDescriptors {
+
+	private final Elements elements;
+
+	ElementDescriptors(Elements elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * Describes a type and the methods and constructors it declares.
+	 */
+	TypeDescriptor describe(TypeElement type) {
+
+		String packageName = elements.getPackageOf(type).getQualifiedName()
+				.toString();
+
+		List<MethodDescriptor> methods = new ArrayList<MethodDescriptor>();
+		String typeName = getNameWithinPackage(type);
+
+		for (ExecutableElement method : ElementFilter.methodsIn(type
+				.getEnclosedElements())) {
+			methods.add(describe(method, typeName));
+		}
+
+		for (ExecutableElement constructor : ElementFilter
+				.constructorsIn(type.getEnclosedElements())) {
+			methods.add(describe(constructor, typeName));
+		}
+
+		return new TypeDescriptor(typeName, packageName, kindOf(type),
+				toFlags(type.getModifiers()), methods);
+	}
+
+	/**
+	 * @return The name of the type relative to its package, e.g.
+	 *         <code>Outer.Inner</code> for a member type.
+	 */
+	static String getNameWithinPackage(TypeElement type) {
+
+		StringBuilder result = new StringBuilder(type.getSimpleName());
+		Element enclosing = type.getEnclosingElement();
+
+		while (enclosing != null && !(enclosing instanceof PackageElement)) {
+			result.insert(0, '.').insert(0, enclosing.getSimpleName());
+			enclosing = enclosing.getEnclosingElement();
+		}
+
+		return result.toString();
+	}
+
+	private MethodDescriptor describe(ExecutableElement method,
+			String declaringTypeName) {
+
+		boolean constructor = method.getKind() == ElementKind.CONSTRUCTOR;
+		List<? extends VariableElement> parameters = method.getParameters();
+
+		String[] parameterNames = new String[parameters.size()];
+		String[] parameterTypes = new String[parameters.size()];
+
+		for (int i = 0; i < parameterNames.length; i++) {
+
+			VariableElement parameter = parameters.get(i);
+			parameterNames[i] = parameter.getSimpleName().toString();
+			parameterTypes[i] = parameter.asType().toString();
+		}
+
+		List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+		String[] exceptionTypes = new String[thrownTypes.size()];
+
+		for (int i = 0; i < exceptionTypes.length; i++) {
+			exceptionTypes[i] = thrownTypes.get(i).toString();
+		}
+
+		TypeMirror returnType = method.getReturnType();
+
+		return new MethodDescriptor(method.getSimpleName().toString(),
+				declaringTypeName, toFlags(method.getModifiers()),
+				constructor, constructor || returnType.getKind() == TypeKind.NONE ? null
+						: returnType.toString(), parameterNames,
+				parameterTypes, exceptionTypes);
+	}
+
+	private static TypeDescriptor.Kind kindOf(TypeElement type) {
+
+		switch (type.getKind()) {
+		case ANNOTATION_TYPE:
+			return TypeDescriptor.Kind.ANNOTATION;
+		case ENUM:
+			return TypeDescriptor.Kind.ENUM;
+		case INTERFACE:
+			return TypeDescriptor.Kind.INTERFACE;
+		default:
+			return TypeDescriptor.Kind.CLASS;
+		}
+	}
+
+	private static int toFlags(Set<Modifier> modifiers) {
+
+		int result = 0;
+
+		for (Modifier modifier : modifiers) {
+			switch (modifier) {
+			case PUBLIC:
+				result |= java.lang.reflect.Modifier.PUBLIC;
+				break;
+			case PROTECTED:
+				result |= java.lang.reflect.Modifier.PROTECTED;
+				break;
+			case PRIVATE:
+				result |= java.lang.reflect.Modifier.PRIVATE;
+				break;
+			case ABSTRACT:
+				result |= java.lang.reflect.Modifier.ABSTRACT;
+				break;
+			case STATIC:
+				result |= java.lang.reflect.Modifier.STATIC;
+				break;
+			case FINAL:
+				result |= java.lang.reflect.Modifier.FINAL;
+				break;
+			default:
+				break;
+			}
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,124 @@
+package de.below.bgen.apt;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which a builder should be generated during compilation by
+ * the {@link BuilderProcessor}. The builder is created as a top-level class
+ * in the package of the annotated class.
+ * 
+ * @author martin
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateBuilder {
+
+	/**
+	 * The name of the builder. Defaults to the name of the annotated class,
+	 * followed by "Builder".
+	 */
+	String name() default "";
+
+	/**
+	 * The prefix of the setter methods of the builder. If empty, the setters
+	 * are named like the properties.
+	 */
+	String setterPrefix() default "set";
+
+	/**
+	 * Whether the setters of the builder return the builder itself.
+	 */
+	boolean fluentSetters() default true;
+
+	/**
+	 * The properties that must be set before <code>build()</code> is
+	 * called, by name.
+	 */
+	String[] mandatoryProperties() default {};
+
+	/**
+	 * Whether <code>build()</code> only calls the setters of the properties
+	 * that have been set on the builder.
+	 */
+	boolean assignedSettersOnly() default false;
+
+	/**
+	 * Whether the builder gets <code>reset()</code> and a thread local
+	 * <code>local()</code> instance.
+	 */
+	boolean reusable() default false;
+
+	/**
+	 * Whether the builder gets <code>buildInto(existing)</code>, that
+	 * populates an existing instance. Ignored for classes that are created
+	 * with constructor arguments.
+	 */
+	boolean buildInto() default false;
+
+	/**
+	 * Whether the builder is final and keeps its methods small enough to be
+	 * inlined, so the JIT compiler can eliminate the builder allocation.
+	 */
+	boolean jitFriendly() default false;
+
+	/**
+	 * Whether list, set and map properties get adders, that copy a shared
+	 * collection only when it is changed for the first time.
+	 */
+	boolean copyOnWriteCollections() default false;
+
+	/**
+	 * Whether list, set, map and array properties get adders and capacity
+	 * hints, and are handed to the built object as unmodifiable views.
+	 */
+	boolean collectionSetters() default false;
+
+	/**
+	 * Whether collection and array properties get setters that take over the
+	 * given instance without copying it. Requires
+	 * {@link #collectionSetters()}.
+	 */
+	boolean adoptingSetters() default false;
+
+	/**
+	 * Whether the builder gets <code>buildCanonical()</code>, that returns
+	 * an existing instance for equal property values.
+	 */
+	boolean canonical() default false;
+
+	/**
+	 * Whether the builder gets methods that set properties by name or
+	 * ordinal, and that populate it from a map or a row of values.
+	 */
+	boolean bindingMethods() default false;
+
+	/**
+	 * Whether the builder gets a nested class that reads and writes the
+	 * properties by ordinal.
+	 */
+	boolean propertyTable() default false;
+
+	/**
+	 * Whether the builder counts its builds, copies and validation failures,
+	 * and exposes the counters as a platform MBean.
+	 */
+	boolean instrumented() default false;
+
+	/**
+	 * Whether the statistics of an {@link #instrumented()} builder contain a
+	 * histogram of the duration of <code>build()</code>.
+	 */
+	boolean latencyHistogram() default false;
+
+	/**
+	 * Whether properties of wrapper types are stored in primitive fields,
+	 * with setter overloads for the primitive types.
+	 */
+	boolean primitiveStorage() default false;
+
+}
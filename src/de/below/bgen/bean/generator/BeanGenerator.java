@@ -3,7 +3,9 @@ package de.below.bgen.bean.generator;
 import static de.below.bgen.builder.generator.Expressions.*;
 import static de.below.bgen.util.CodeGenUtils.*;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IMethod;
@@ -12,6 +14,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
 
 import de.below.bgen.builder.generator.Expressions;
+import de.below.bgen.builder.generator.PropertyTable;
 import de.below.bgen.builder.generator.components.TargetTypeCreationStrategy;
 import de.below.bgen.codegen.Visibility;
 import de.below.bgen.util.CodeGenUtils;
@@ -28,17 +31,34 @@ public class BeanGenerator {
 	private final IProgressMonitor pm;
 	private final String targetTypeName;
 	private final boolean mutable;
-	
+	private final boolean propertyTable;
+
 	public BeanGenerator(IType interfaceType, String targetTypeName,
 			IProgressMonitor pm,
 			TargetTypeCreationStrategy targetTypeGenerator,
 			boolean mutable
 			) {
+		this(interfaceType, targetTypeName, pm, targetTypeGenerator, mutable, false);
+	}
+
+	/**
+	 * @param propertyTable
+	 *            Whether the class gets a nested {@link PropertyTable} that
+	 *            reads, and for mutable classes writes, the properties by
+	 *            ordinal.
+	 */
+	public BeanGenerator(IType interfaceType, String targetTypeName,
+			IProgressMonitor pm,
+			TargetTypeCreationStrategy targetTypeGenerator,
+			boolean mutable,
+			boolean propertyTable
+			) {
 		this.targetTypeName = targetTypeName;
 		this.pm = pm;
 		this.targetTypeGenerator = targetTypeGenerator;
 		this.interfaceType = interfaceType;
 		this.mutable = mutable;
+		this.propertyTable = propertyTable;
 	}
 
 	public IType run() throws JavaModelException {
@@ -69,6 +89,10 @@ public class BeanGenerator {
 			}
 		}
 
+		if (propertyTable) {
+			createPropertyTable(targetType, methodAnalyzer.getGetters());
+		}
+
 		String sourceCode = targetType.endClass().render();
 		
 		IType type = targetTypeGenerator.createTargetType(pm, interfaceType, targetTypeName, sourceCode);
@@ -131,6 +155,30 @@ public class BeanGenerator {
 		
 	}
 
+	private void createPropertyTable(InClassStep<JavaCodeWriter> targetType, List<IMethod> getterMethods)
+	throws JavaModelException {
+		
+		Set<String> exceptions = new LinkedHashSet<String>();
+		
+		for (IMethod getter : getterMethods) {
+			for (String exceptionType : getter.getExceptionTypes()) {
+				exceptions.add(Signature.toString(exceptionType));
+			}
+		}
+		
+		PropertyTable table = new PropertyTable(interfaceType.getFullyQualifiedName('.'),
+				mutable ? targetTypeName : null, exceptions);
+		
+		for (IMethod getter : getterMethods) {
+			String propertyName = getPropertyNameFromAccessorMethod(getter.getElementName());
+			table.addProperty(propertyName, Signature.toString(getter.getReturnType()),
+					getter.getElementName(), mutable ? "set" + CodeGenUtils.capitalize(propertyName) : null);
+		}
+		
+		table.createClass(targetType);
+		
+	}
+
 	private void createFieldFor(InClassStep<JavaCodeWriter> targetType, IMethod getterMethod) 
 	throws JavaModelException {
 		
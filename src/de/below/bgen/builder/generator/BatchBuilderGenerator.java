@@ -0,0 +1,692 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import de.below.bgen.Activator;
+import de.below.bgen.builder.generator.descriptor.DescriptorCache;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+/**
+ * Headless generation of builders for all eligible types of a set of
+ * packages or java projects.
+ *
+ * <p>
+ * All builders of one project are generated inside a single
+ * {@link IWorkspaceRunnable}, so the workspace lock is acquired only once and
+ * only one resource delta (and auto-build) is fired per run, instead of one
+ * per generated builder.
+ * </p>
+ *
+ * @author martin
+ */
+@SuppressWarnings("deprecation")
+public class BatchBuilderGenerator {
+
+	/**
+	 * Decides whether a builder should be generated for a type.
+	 */
+	public static interface TypeFilter {
+		boolean accept(IType type) throws JavaModelException;
+	}
+
+	/**
+	 * Accepts every type.
+	 */
+	public static final TypeFilter ALL_TYPES = new TypeFilter() {
+
+		@Override
+		public boolean accept(IType type) {
+			return true;
+		}
+	};
+
+	private static final int RENDER_THREADS = Runtime.getRuntime()
+			.availableProcessors();
+
+	private String setterPrefix = "set";
+	private final EnumSet<BuilderOption> options = EnumSet.of(BuilderOption.FLUENT_SETTERS);
+	private String builderSuffix = "Builder";
+	private String targetPackageName;
+	private TypeFilter typeFilter = ALL_TYPES;
+
+	public static BatchBuilderGenerator newInstance() {
+		return new BatchBuilderGenerator();
+	}
+
+	private BatchBuilderGenerator() {
+
+	}
+
+	/**
+	 * Sets the prefix for the "setter" - methods of the builders.
+	 *
+	 * @see BuilderGeneratorFacade#withSetterPrefix(String)
+	 * @return {@link BatchBuilderGenerator this}
+	 */
+	public BatchBuilderGenerator withSetterPrefix(String prefix) {
+		this.setterPrefix = prefix;
+		return this;
+	}
+
+	public BatchBuilderGenerator withFluentSetters(boolean fluentSetters) {
+		return withOption(BuilderOption.FLUENT_SETTERS, fluentSetters);
+	}
+
+	/**
+	 * Enables or disables a generation option for all builders.
+	 *
+	 * @see BuilderGeneratorFacade#withOption(BuilderOption, boolean)
+	 * @return {@link BatchBuilderGenerator this}
+	 */
+	public BatchBuilderGenerator withOption(BuilderOption option, boolean enabled) {
+
+		if (enabled) {
+			options.add(option);
+		}
+		else {
+			options.remove(option);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Sets the suffix that is appended to the name of a type to get the name
+	 * of its builder. Types whose name ends with the suffix are skipped.
+	 *
+	 * @return {@link BatchBuilderGenerator this}
+	 */
+	public BatchBuilderGenerator withBuilderSuffix(String builderSuffix) {
+		this.builderSuffix = builderSuffix;
+		return this;
+	}
+
+	/**
+	 * Creates the builders as top-level classes in the given package (within
+	 * the source folder of the respective type). If not set, the builders are
+	 * nested in the types they are created for.
+	 *
+	 * @return {@link BatchBuilderGenerator this}
+	 */
+	public BatchBuilderGenerator withTargetPackageName(String targetPackageName) {
+		this.targetPackageName = targetPackageName;
+		return this;
+	}
+
+	/**
+	 * Restricts the generation to types accepted by the given filter.
+	 *
+	 * @return {@link BatchBuilderGenerator this}
+	 */
+	public BatchBuilderGenerator withTypeFilter(TypeFilter typeFilter) {
+		this.typeFilter = typeFilter == null ? ALL_TYPES : typeFilter;
+		return this;
+	}
+
+	/**
+	 * Generates builders for all eligible types in the source folders of the
+	 * given project.
+	 *
+	 * @param project
+	 *            The project to process.
+	 * @param pm
+	 *            The progress monitor, may be <code>null</code>.
+	 */
+	public BatchResult generateForProject(IJavaProject project,
+			IProgressMonitor pm) throws CoreException {
+		return generateForProject(project, null, pm);
+	}
+
+	/**
+	 * @param renderExecutor
+	 *            The executor that renders the builders, or <code>null</code>
+	 *            to render them with an executor of their own.
+	 */
+	private BatchResult generateForProject(IJavaProject project,
+			ExecutorService renderExecutor, IProgressMonitor pm)
+			throws CoreException {
+
+		List<IPackageFragment> packages = new ArrayList<IPackageFragment>();
+
+		for (IPackageFragment fragment : project.getPackageFragments()) {
+			if (fragment.getKind() == IPackageFragmentRoot.K_SOURCE) {
+				packages.add(fragment);
+			}
+		}
+
+		return generateForPackages(packages, renderExecutor, pm);
+	}
+
+	/**
+	 * Generates builders for all eligible types in the given packages.
+	 *
+	 * <p>
+	 * The generation runs in three phases: first, snapshots of all source
+	 * types are taken from the java model. Then, the builder sources are
+	 * rendered in parallel, one thread per available processor. Finally, the
+	 * builders are created serially within one workspace operation.
+	 * </p>
+	 *
+	 * @param packages
+	 *            The packages to process.
+	 * @param pm
+	 *            The progress monitor, may be <code>null</code>.
+	 */
+	public BatchResult generateForPackages(
+			Collection<IPackageFragment> packages, IProgressMonitor pm)
+			throws CoreException {
+		return generateForPackages(packages, null, pm);
+	}
+
+	private BatchResult generateForPackages(
+			Collection<IPackageFragment> packages,
+			ExecutorService renderExecutor, IProgressMonitor pm)
+			throws CoreException {
+
+		final IProgressMonitor monitor = pm == null ? new NullProgressMonitor()
+				: pm;
+
+		long start = System.nanoTime();
+
+		BatchResult result = new BatchResult();
+		DescriptorCache descriptors = new DescriptorCache();
+		List<IType> types = collectTypes(packages, descriptors, result);
+
+		generate(types, descriptors, result, schedulingRuleFor(packages),
+				renderExecutor, monitor);
+
+		result.setElapsedNanos(System.nanoTime() - start);
+		monitor.subTask(result.toString());
+
+		return result;
+	}
+
+	/**
+	 * Generates builders for the given types, as far as they are eligible.
+	 * 
+	 * @see #generateForPackages(Collection, IProgressMonitor)
+	 * @param types
+	 *            The types to process.
+	 * @param pm
+	 *            The progress monitor, may be <code>null</code>.
+	 */
+	public BatchResult generateForTypes(Collection<IType> types,
+			IProgressMonitor pm) throws CoreException {
+
+		IProgressMonitor monitor = pm == null ? new NullProgressMonitor() : pm;
+
+		long start = System.nanoTime();
+
+		BatchResult result = new BatchResult();
+		DescriptorCache descriptors = new DescriptorCache();
+		List<IType> eligibleTypes = new ArrayList<IType>();
+		ISchedulingRule rule = null;
+
+		for (IType type : types) {
+
+			if (type.exists() && isEligible(type, descriptors)) {
+				eligibleTypes.add(type);
+				rule = MultiRule.combine(rule, type.getJavaProject().getProject());
+			}
+			else {
+				result.skipped();
+			}
+		}
+
+		generate(eligibleTypes, descriptors, result, rule, null, monitor);
+
+		result.setElapsedNanos(System.nanoTime() - start);
+		monitor.subTask(result.toString());
+
+		return result;
+	}
+
+	/**
+	 * Runs the phases of the generation for the given, eligible types. Only
+	 * the last phase holds the given scheduling rule.
+	 */
+	private void generate(List<IType> types, DescriptorCache descriptors,
+			final BatchResult result, ISchedulingRule rule,
+			ExecutorService renderExecutor, IProgressMonitor monitor)
+			throws CoreException {
+
+		monitor.beginTask("Generating builders", types.size() * 3);
+
+		try {
+			final List<GenerationTask> tasks = snapshotAll(types, descriptors,
+					result, new SubProgressMonitor(monitor, types.size()));
+
+			renderAll(tasks, renderExecutor,
+					new SubProgressMonitor(monitor, types.size()));
+
+			JavaCore.run(new IWorkspaceRunnable() {
+
+				@Override
+				public void run(IProgressMonitor runMonitor) throws CoreException {
+					applyAll(tasks, result, runMonitor);
+				}
+
+			}, rule, new SubProgressMonitor(monitor, types.size()));
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Generates builders for all given projects. Each project is processed
+	 * by its own {@link Job}, so the projects are processed in parallel. The
+	 * jobs hold no scheduling rule while they analyze the types and render
+	 * the builders, and acquire the rule of their project only to create
+	 * them. The builders of all projects are rendered by one executor, with
+	 * one thread per available processor.
+	 *
+	 * <p>
+	 * <b>Note</b> that this method blocks until all projects have been
+	 * processed, so it must not be called from a thread that already owns a
+	 * scheduling rule on one of the projects.
+	 * </p>
+	 *
+	 * @param projects
+	 *            The projects to process.
+	 * @param pm
+	 *            The progress monitor, may be <code>null</code>. Cancelling it
+	 *            cancels all pending jobs.
+	 */
+	public BatchResult generateForProjects(Collection<IJavaProject> projects,
+			IProgressMonitor pm) throws CoreException {
+
+		IProgressMonitor monitor = pm == null ? new NullProgressMonitor() : pm;
+
+		long start = System.nanoTime();
+
+		ExecutorService renderExecutor = Executors
+				.newFixedThreadPool(RENDER_THREADS);
+		List<ProjectJob> jobs = new ArrayList<ProjectJob>();
+
+		for (IJavaProject project : projects) {
+			ProjectJob job = new ProjectJob(project, renderExecutor);
+			job.schedule();
+			jobs.add(job);
+		}
+
+		monitor.beginTask("Generating builders", jobs.size());
+
+		BatchResult result = new BatchResult();
+
+		try {
+			for (ProjectJob job : jobs) {
+
+				if (monitor.isCanceled()) {
+					cancelAll(jobs);
+				}
+
+				job.join();
+
+				IStatus status = job.getResult();
+
+				if (status != null && status.getSeverity() == IStatus.ERROR) {
+					throw new CoreException(status);
+				}
+
+				if (status != null && status.getSeverity() == IStatus.CANCEL) {
+					throw new OperationCanceledException();
+				}
+
+				result.merge(job.result);
+				monitor.worked(1);
+			}
+		}
+		catch (InterruptedException e) {
+			cancelAll(jobs);
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		finally {
+			renderExecutor.shutdown();
+			monitor.done();
+		}
+
+		result.setElapsedNanos(System.nanoTime() - start);
+
+		return result;
+	}
+
+	private void cancelAll(List<ProjectJob> jobs) {
+		for (ProjectJob job : jobs) {
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Collects the types for which a builder should be generated.
+	 */
+	private List<IType> collectTypes(Collection<IPackageFragment> packages,
+			DescriptorCache descriptors, BatchResult result)
+			throws JavaModelException {
+
+		List<IType> types = new ArrayList<IType>();
+
+		for (IPackageFragment fragment : packages) {
+			for (ICompilationUnit cu : fragment.getCompilationUnits()) {
+				for (IType type : cu.getTypes()) {
+
+					if (isEligible(type, descriptors)) {
+						types.add(type);
+					}
+					else {
+						result.skipped();
+					}
+				}
+			}
+		}
+
+		return types;
+	}
+
+	private boolean isEligible(IType type, DescriptorCache descriptors)
+			throws JavaModelException {
+		return !type.getElementName().endsWith(builderSuffix)
+				&& SourceTypeAnalyzer.isInstantiable(descriptors.describe(type))
+				&& typeFilter.accept(type);
+	}
+
+	/**
+	 * First phase: reads the source types from the java model.
+	 */
+	private List<GenerationTask> snapshotAll(List<IType> types,
+			DescriptorCache descriptors, BatchResult result,
+			IProgressMonitor monitor) {
+
+		List<GenerationTask> tasks = new ArrayList<GenerationTask>();
+
+		monitor.beginTask("Analyzing types", types.size());
+
+		try {
+			for (IType type : types) {
+
+				checkCanceled(monitor);
+
+				try {
+					GenerationTask task = prepare(type, descriptors);
+
+					if (task.isUpToDate()) {
+						result.upToDate();
+					}
+					else {
+						tasks.add(task);
+					}
+				}
+				catch (JavaModelException e) {
+					failed(type, e, result);
+				}
+
+				monitor.worked(1);
+			}
+		}
+		finally {
+			monitor.done();
+		}
+
+		return tasks;
+	}
+
+	/**
+	 * Second phase: renders the builder sources in parallel. Rendering does
+	 * not access the java model, so no locks are held.
+	 *
+	 * @param renderExecutor
+	 *            The executor that is shared by the projects of a
+	 *            {@link #generateForProjects(Collection, IProgressMonitor)
+	 *            run}, or <code>null</code> to render with an executor that
+	 *            is created for these tasks.
+	 */
+	private void renderAll(List<GenerationTask> tasks,
+			ExecutorService renderExecutor, IProgressMonitor monitor) {
+
+		monitor.beginTask("Rendering builders", tasks.size());
+
+		int threads = Math.min(RENDER_THREADS, tasks.size());
+
+		if (threads <= 1) {
+			for (GenerationTask task : tasks) {
+				checkCanceled(monitor);
+				task.render();
+				monitor.worked(1);
+			}
+			monitor.done();
+			return;
+		}
+
+		List<Callable<Object>> renderers = new ArrayList<Callable<Object>>(tasks.size());
+
+		for (GenerationTask task : tasks) {
+			renderers.add(Executors.callable(new RenderRunnable(task)));
+		}
+
+		ExecutorService executor = renderExecutor != null ? renderExecutor
+				: Executors.newFixedThreadPool(threads);
+
+		try {
+			// cancels the unfinished renderers if interrupted
+			executor.invokeAll(renderers);
+			monitor.worked(tasks.size());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		finally {
+			if (executor != renderExecutor) {
+				executor.shutdownNow();
+			}
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Third phase: creates the builders in the workspace, one after the
+	 * other.
+	 */
+	private void applyAll(List<GenerationTask> tasks, BatchResult result,
+			IProgressMonitor monitor) {
+
+		monitor.beginTask("Creating builders", tasks.size());
+
+		try {
+			for (GenerationTask task : tasks) {
+
+				checkCanceled(monitor);
+
+				IType type = task.getSourceType();
+				monitor.subTask(type.getFullyQualifiedName());
+
+				if (task.getRenderFailure() != null) {
+					failed(type, task.getRenderFailure(), result);
+				}
+				else {
+					try {
+						task.apply();
+						result.generated();
+					}
+					catch (JavaModelException e) {
+						failed(type, e, result);
+					}
+				}
+
+				monitor.worked(1);
+			}
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	private void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
+	private void failed(IType type, Exception e, BatchResult result) {
+		Activator.getDefault().log(
+				"error generating builder for " + type.getFullyQualifiedName(), e);
+		result.failed(type, e);
+	}
+
+	private GenerationTask prepare(IType type, DescriptorCache descriptors)
+			throws JavaModelException {
+
+		TypeDescriptor typeDescriptor = descriptors.describe(type);
+
+		MethodDescriptor constructorDescriptor = SourceTypeAnalyzer
+				.findDefaultInstantiationMethod(typeDescriptor);
+		IMethod constructor = descriptors.getMethod(constructorDescriptor);
+
+		List<IMethod> setters = new ArrayList<IMethod>();
+
+		for (MethodDescriptor setter : SourceTypeAnalyzer.findSetters(
+				typeDescriptor, constructorDescriptor)) {
+			setters.add(descriptors.getMethod(setter));
+		}
+
+		BuilderGeneratorFacade generator = BuilderGeneratorFacade.newInstance()
+				.withType(type)
+				.withBuilderName(type.getElementName() + builderSuffix)
+				.withSetterPrefix(setterPrefix)
+				.withOnlyOptions(options)
+				.withSetterProperties(setters);
+
+		if (constructor != null) {
+			if (constructor.isConstructor()) {
+				generator.withConstructor(constructor);
+			}
+			else {
+				generator.withFactoryMethod(constructor);
+			}
+		}
+
+		if (targetPackageName == null) {
+			generator.withEnclosingType(type);
+		}
+		else {
+			generator.withTargetPackageName((IPackageFragmentRoot) type
+					.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT),
+					targetPackageName);
+		}
+
+		return generator.prepare(descriptors);
+	}
+
+	/**
+	 * @return The handle of the builder of the given type, which may or may
+	 *         not exist.
+	 */
+	IType getBuilderType(IType type) {
+
+		String builderName = type.getElementName() + builderSuffix;
+
+		if (targetPackageName == null) {
+			return type.getType(builderName);
+		}
+
+		IPackageFragmentRoot sourceFolder = (IPackageFragmentRoot) type
+				.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+
+		return sourceFolder.getPackageFragment(targetPackageName)
+				.getCompilationUnit(builderName + ".java").getType(builderName);
+	}
+
+	private ISchedulingRule schedulingRuleFor(
+			Collection<IPackageFragment> packages) {
+
+		ISchedulingRule rule = null;
+
+		for (IPackageFragment fragment : packages) {
+			rule = MultiRule.combine(rule, fragment.getJavaProject()
+					.getProject());
+		}
+
+		return rule;
+	}
+
+	/**
+	 * Renders one builder.
+	 */
+	private static final class RenderRunnable implements Runnable {
+
+		private final GenerationTask task;
+
+		RenderRunnable(GenerationTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			task.render();
+		}
+
+	}
+
+	/**
+	 * Generates the builders of one project. The job has no scheduling rule,
+	 * the project is locked only while the builders are created.
+	 */
+	private final class ProjectJob extends Job {
+
+		private final IJavaProject project;
+		private final ExecutorService renderExecutor;
+		private BatchResult result;
+
+		ProjectJob(IJavaProject project, ExecutorService renderExecutor) {
+			super("Generating builders for " + project.getElementName());
+			this.project = project;
+			this.renderExecutor = renderExecutor;
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				result = generateForProject(project, renderExecutor, monitor);
+				return Status.OK_STATUS;
+			}
+			catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			}
+			catch (CoreException e) {
+				return e.getStatus();
+			}
+		}
+
+	}
+
+}
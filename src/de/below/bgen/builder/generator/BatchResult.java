@@ -0,0 +1,113 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.core.IType;
+
+import de.below.rcp.widgets.Pair;
+
+/**
+ * Outcome of a {@link BatchBuilderGenerator} run.
+ *
+ * @author martin
+ */
+public class BatchResult {
+
+	private int generatedTypes;
+	private int skippedTypes;
+	private int upToDateTypes;
+	private long elapsedNanos;
+	private final List<Pair<IType, Exception>> failures = new ArrayList<Pair<IType, Exception>>();
+
+	void generated() {
+		generatedTypes++;
+	}
+
+	void skipped() {
+		skippedTypes++;
+	}
+
+	void upToDate() {
+		upToDateTypes++;
+	}
+
+	void failed(IType type, Exception e) {
+		failures.add(Pair.of(type, e));
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Adds the counters and failures of another result to this one. The
+	 * elapsed time is not touched, since results that are merged usually
+	 * have been produced concurrently.
+	 */
+	void merge(BatchResult other) {
+		generatedTypes += other.generatedTypes;
+		skippedTypes += other.skippedTypes;
+		upToDateTypes += other.upToDateTypes;
+		failures.addAll(other.failures);
+	}
+
+	/**
+	 * @return The number of builders that have been generated.
+	 */
+	public int getGeneratedTypes() {
+		return generatedTypes;
+	}
+
+	/**
+	 * @return The number of types that have been skipped.
+	 */
+	public int getSkippedTypes() {
+		return skippedTypes;
+	}
+
+	/**
+	 * @return The number of builders that have not been generated again,
+	 *         since their fingerprint did not change.
+	 */
+	public int getUpToDateTypes() {
+		return upToDateTypes;
+	}
+
+	/**
+	 * @return The types for which the generation failed, together with the
+	 *         cause. Never <code>null</code>.
+	 */
+	public List<Pair<IType, Exception>> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * @return The wall clock time of the run in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedNanos / 1000000L;
+	}
+
+	/**
+	 * @return The number of generated builders per second.
+	 */
+	public double getTypesPerSecond() {
+
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+
+		return generatedTypes * 1000000000d / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"generated %d builders in %d ms (%.1f types/sec), %d up to date, %d skipped, %d failed",
+				generatedTypes, getElapsedMillis(), getTypesPerSecond(),
+				upToDateTypes, skippedTypes, failures.size());
+	}
+
+}
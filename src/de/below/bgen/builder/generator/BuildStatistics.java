@@ -0,0 +1,194 @@
+package de.below.bgen.builder.generator;
+
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+import de.below.codegen.MethodBuilder.InMethodStep;
+
+/**
+ * Renders the members and statements of an
+ * {@link BuilderOption#INSTRUMENTATION instrumented} builder: a nested class
+ * <code>BuildStatistics</code> that holds static counters of the builds, the
+ * <code>buildUpon</code> copies and the validation failures of the builder,
+ * optionally with a {@link BuilderOption#LATENCY_HISTOGRAM histogram} of the
+ * duration of <code>build()</code>, and the statements that update them.
+ *
+ * <p>
+ * The statistics are registered as a standard MBean on the platform MBean
+ * server, named <code>de.below.bgen:type=BuildStatistics,name=</code> and the
+ * name of the builder class, when the nested class is initialized, that is
+ * when a counter is updated for the first time. A builder that is loaded by
+ * more than one class loader is registered once, by the first one.
+ * </p>
+ *
+ * <p>
+ * The counters are <code>AtomicLong</code>s, since
+ * <code>LongAdder</code> is not available on Java 6. They are updated by one
+ * atomic increment each, which may contend if many threads build the same
+ * type concurrently.
+ * </p>
+ *
+ * @author martin
+ */
+final class BuildStatistics {
+
+	/**
+	 * The labels of the buckets of the latency histogram, one per decade of
+	 * the duration of a build. The last bucket holds all longer builds.
+	 */
+	static final String[] LATENCY_BUCKETS = { "<1us", "<10us", "<100us",
+			"<1ms", "<10ms", "<100ms", "<1s", ">=1s" };
+
+	private static final MemberTemplate INTERFACE = MemberTemplate.compile(
+			"public interface BuildStatisticsMBean {\n"
+			+ "\tlong getBuilds();\n"
+			+ "\tlong getBuildUponCopies();\n"
+			+ "\tlong getValidationFailures();\n");
+
+	private static final MemberTemplate LATENCY_ACCESSORS = MemberTemplate.compile(
+			"\tString[] getBuildLatencyBuckets();\n"
+			+ "\tlong[] getBuildLatencyHistogram();\n");
+
+	private static final MemberTemplate END_TYPE = MemberTemplate.compile(
+			"}\n");
+
+	private static final MemberTemplate CLASS = MemberTemplate.compile(
+			"public static final class BuildStatistics implements BuildStatisticsMBean {\n"
+			+ "\tstatic final java.util.concurrent.atomic.AtomicLong BUILDS = new java.util.concurrent.atomic.AtomicLong();\n"
+			+ "\tstatic final java.util.concurrent.atomic.AtomicLong BUILD_UPON_COPIES = new java.util.concurrent.atomic.AtomicLong();\n"
+			+ "\tstatic final java.util.concurrent.atomic.AtomicLong VALIDATION_FAILURES = new java.util.concurrent.atomic.AtomicLong();\n");
+
+	private static final MemberTemplate LATENCY_FIELDS = MemberTemplate.compile(
+			"\tprivate static final String[] BUILD_LATENCY_BUCKETS = { ${buckets} };\n"
+			+ "\tprivate static final java.util.concurrent.atomic.AtomicLongArray BUILD_LATENCY = new java.util.concurrent.atomic.AtomicLongArray(BUILD_LATENCY_BUCKETS.length);\n",
+			"buckets");
+
+	private static final MemberTemplate REGISTRATION = MemberTemplate.compile(
+			"\tstatic {\n"
+			+ "\t\ttry {\n"
+			+ "\t\t\tjava.lang.management.ManagementFactory.getPlatformMBeanServer().registerMBean(\n"
+			+ "\t\t\t\t\tnew javax.management.StandardMBean(new BuildStatistics(), BuildStatisticsMBean.class),\n"
+			+ "\t\t\t\t\tnew javax.management.ObjectName(\"de.below.bgen:type=BuildStatistics,name=\" + ${builder}.class.getName()));\n"
+			+ "\t\t}\n"
+			+ "\t\tcatch (javax.management.JMException e) {\n"
+			+ "\t\t\t// already registered by another class loader, or rejected by the server\n"
+			+ "\t\t}\n"
+			+ "\t\tcatch (SecurityException e) {\n"
+			+ "\t\t\t// not permitted to register\n"
+			+ "\t\t}\n"
+			+ "\t}\n"
+			+ "\tprivate BuildStatistics() {\n"
+			+ "\t}\n"
+			+ "\tpublic long getBuilds() {\n"
+			+ "\t\treturn BUILDS.get();\n"
+			+ "\t}\n"
+			+ "\tpublic long getBuildUponCopies() {\n"
+			+ "\t\treturn BUILD_UPON_COPIES.get();\n"
+			+ "\t}\n"
+			+ "\tpublic long getValidationFailures() {\n"
+			+ "\t\treturn VALIDATION_FAILURES.get();\n"
+			+ "\t}\n", "builder");
+
+	private static final MemberTemplate LATENCY_METHODS = MemberTemplate.compile(
+			"\tpublic String[] getBuildLatencyBuckets() {\n"
+			+ "\t\treturn BUILD_LATENCY_BUCKETS.clone();\n"
+			+ "\t}\n"
+			+ "\tpublic long[] getBuildLatencyHistogram() {\n"
+			+ "\t\tlong[] histogram = new long[BUILD_LATENCY.length()];\n"
+			+ "\t\tfor (int i = 0; i < histogram.length; i++) {\n"
+			+ "\t\t\thistogram[i] = BUILD_LATENCY.get(i);\n"
+			+ "\t\t}\n"
+			+ "\t\treturn histogram;\n"
+			+ "\t}\n"
+			+ "\tstatic void recordBuildLatency(long nanos) {\n"
+			+ "\t\tint bucket = 0;\n"
+			+ "\t\tfor (long limit = 1000; nanos >= limit && bucket < BUILD_LATENCY.length() - 1; limit *= 10) {\n"
+			+ "\t\t\tbucket++;\n"
+			+ "\t\t}\n"
+			+ "\t\tBUILD_LATENCY.incrementAndGet(bucket);\n"
+			+ "\t}\n");
+
+	private static final MemberTemplate COUNT = MemberTemplate.compile(
+			"BuildStatistics.${counter}.incrementAndGet();\n", "counter");
+
+	private static final MemberTemplate START_TIMER = MemberTemplate.compile(
+			"long buildStartNanos = System.nanoTime();\n");
+
+	private static final MemberTemplate RECORD_LATENCY = MemberTemplate.compile(
+			"BuildStatistics.recordBuildLatency(System.nanoTime() - buildStartNanos);\n");
+
+	private final boolean latencyHistogram;
+
+	BuildStatistics(boolean latencyHistogram) {
+		this.latencyHistogram = latencyHistogram;
+	}
+
+	/**
+	 * Creates the MBean interface and the class that holds the counters.
+	 */
+	void createMembers(InClassStep<JavaCodeWriter> builder, String builderName) {
+
+		builder.addMember(INTERFACE);
+
+		if (latencyHistogram) {
+			builder.addMember(LATENCY_ACCESSORS);
+		}
+
+		builder.addMember(END_TYPE);
+
+		builder.addMember(CLASS);
+
+		if (latencyHistogram) {
+			StringBuilder buckets = new StringBuilder();
+
+			for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+				if (i > 0) {
+					buckets.append(", ");
+				}
+				buckets.append('"').append(LATENCY_BUCKETS[i]).append('"');
+			}
+
+			builder.addMember(LATENCY_FIELDS, buckets.toString());
+		}
+
+		builder.addMember(REGISTRATION, builderName);
+
+		if (latencyHistogram) {
+			builder.addMember(LATENCY_METHODS);
+		}
+
+		builder.addMember(END_TYPE);
+	}
+
+	/**
+	 * Renders the statement that starts to measure <code>build()</code>, as
+	 * its first statement.
+	 */
+	void renderBuildStart(InMethodStep<?> method) {
+		if (latencyHistogram) {
+			method.addStatements(START_TIMER);
+		}
+	}
+
+	/**
+	 * Renders the statements that count a successful build and record its
+	 * duration, before <code>build()</code> returns.
+	 */
+	void renderBuildEnd(InMethodStep<?> method) {
+
+		if (latencyHistogram) {
+			method.addStatements(RECORD_LATENCY);
+		}
+
+		method.addStatements(COUNT, "BUILDS");
+	}
+
+	/**
+	 * Renders the statement that counts a copy made by
+	 * <code>buildUpon</code>.
+	 */
+	void renderBuildUpon(InMethodStep<?> method) {
+		method.addStatements(COUNT, "BUILD_UPON_COPIES");
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.below.bgen.builder.generator;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+
+/**
+ * Computes a fingerprint of everything a generated builder depends on: the
+ * instantiation method, the selected properties, the naming of the setters
+ * and the {@link BuilderOption options}. If the fingerprint of a source type
+ * did not change, its builder does not need to be generated again.
+ *
+ * @author martin
+ */
+public final class BuilderFingerprint {
+
+	/**
+	 * Name of the constant the fingerprint is stored in inside the builder.
+	 */
+	public static final String FIELD_NAME = "FINGERPRINT";
+
+	/**
+	 * Version of the generated code. Must be increased whenever the rendering
+	 * changes, so existing builders are regenerated.
+	 */
+	private static final int VERSION = 1;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final int LENGTH = 16;
+
+	private BuilderFingerprint() {
+	}
+
+	/**
+	 * Computes the fingerprint of a builder.
+	 *
+	 * @return The fingerprint as hex string, never <code>null</code>.
+	 */
+	public static String of(BuilderModel model,
+			SetterNamingStrategy setterNaming, Set<BuilderOption> options) {
+
+		StringBuilder shape = new StringBuilder();
+
+		shape.append(VERSION).append('|')
+			.append(model.getSourceTypeName()).append('|')
+			.append(model.getBuilderName()).append('|')
+			.append(model.isNested()).append('|')
+			.append(model.getInstantiationKind()).append('|')
+			.append(model.getFactoryTypeName()).append('.')
+			.append(model.getFactoryMethodName()).append('|');
+
+		for (Property property : model.getProperties().getConstructorArgs()) {
+			appendProperty(shape, property, setterNaming);
+		}
+
+		shape.append('|');
+
+		for (Property property : model.getProperties().getSetterProperties()) {
+			appendProperty(shape, property, setterNaming).append(property.renderSetterName()).append(';');
+		}
+
+		shape.append('|');
+
+		for (Property property : model.getReadableProperties()) {
+			shape.append(property.getName()).append(';');
+		}
+
+		shape.append('|')
+			.append(model.getBuildExceptions()).append('|')
+			.append(model.getBuildUponExceptions()).append('|')
+			.append(model.getMandatoryProperties()).append('|')
+			.append(options);
+
+		return digest(shape.toString());
+	}
+
+	private static StringBuilder appendProperty(StringBuilder shape,
+			Property property, SetterNamingStrategy setterNaming) {
+
+		return shape.append(property.getType()).append(' ')
+			.append(property.getName()).append(' ')
+			.append(setterNaming.renderSetterNameFor(property.getName()))
+			.append(';');
+	}
+
+	private static String digest(String shape) {
+
+		byte[] hash;
+
+		try {
+			hash = MessageDigest.getInstance("SHA-1").digest(shape.getBytes("UTF-8"));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+
+		char[] result = new char[LENGTH];
+
+		for (int i = 0; i < LENGTH / 2; i++) {
+			result[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+			result[2 * i + 1] = HEX_DIGITS[hash[i] & 0xf];
+		}
+
+		return new String(result);
+	}
+
+}
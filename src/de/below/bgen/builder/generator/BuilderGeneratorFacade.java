@@ -2,7 +2,9 @@ package de.below.bgen.builder.generator;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -14,6 +16,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import de.below.bgen.builder.generator.components.InstantiationStrategy;
 import de.below.bgen.builder.generator.components.SetterNamingStrategy;
 import de.below.bgen.builder.generator.components.TargetTypeCreationStrategy;
+import de.below.bgen.builder.generator.descriptor.DescriptorCache;
 
 /**
  * "Fluent API" for setting up a {@link BuilderGenerator}.
@@ -25,11 +28,12 @@ public class BuilderGeneratorFacade {
 	private String builderName;
 	private IProgressMonitor progressMonitor = new NullProgressMonitor();
 	private List<IMethod> setterProperties = Collections.emptyList();
+	private List<String> mandatoryProperties = Collections.emptyList();
 	private IType type;
 	private TargetTypeCreationStrategy targetTypeCreationStrategy;
 	
 	private InstantiationStrategy instantiationStrategy;
-	private boolean fluentSetters = true;
+	private final EnumSet<BuilderOption> options = EnumSet.of(BuilderOption.FLUENT_SETTERS);
 
 	public static BuilderGeneratorFacade newInstance() {
 		return new BuilderGeneratorFacade();
@@ -82,11 +86,33 @@ public class BuilderGeneratorFacade {
 	 *            The constructor, from which the properties should be taken.
 	 * @param targetCompilationUnit
 	 *            The compilation unit where the builder should be nested in.
+	 * @return <code>false</code>, if the builder is up to date and has not
+	 *         been generated again.
 	 * @throws JavaModelException
 	 */
-	public void generate()
+	public boolean generate()
 			throws JavaModelException {
 
+		return createGenerator().generate(type, setterProperties, mandatoryProperties, builderName);
+	}
+
+	/**
+	 * Takes the snapshot of the source type, without rendering or creating the
+	 * builder yet.
+	 * 
+	 * @param descriptors
+	 *            The descriptors of the current generation session.
+	 */
+	GenerationTask prepare(DescriptorCache descriptors) throws JavaModelException {
+
+		BuilderGenerator generator = createGenerator();
+
+		return new GenerationTask(type, generator, generator.snapshot(type,
+				setterProperties, mandatoryProperties, builderName, descriptors));
+	}
+
+	private BuilderGenerator createGenerator() {
+
 		if (builderName == null) {
 			throw new IllegalArgumentException("builder name not set");
 		}
@@ -100,10 +126,8 @@ public class BuilderGeneratorFacade {
 					.defaultConstructorCall(type);
 		}
 		
-		BuilderGenerator generator = new BuilderGenerator(progressMonitor,
-				setterNamingStrategy, targetTypeCreationStrategy, instantiationStrategy, fluentSetters);
-
-		generator.generate(type, setterProperties, new ArrayList<String>(), builderName);
+		return new BuilderGenerator(progressMonitor,
+				setterNamingStrategy, targetTypeCreationStrategy, instantiationStrategy, options);
 	}
 
 	/**
@@ -123,6 +147,23 @@ public class BuilderGeneratorFacade {
 		return this;
 	}
 
+	/**
+	 * Sets the properties that must be assigned before the builder can build
+	 * an instance. The builder tracks the assigned properties in a bitmask,
+	 * and <code>build()</code> throws an {@link IllegalStateException} naming
+	 * the missing ones.
+	 * 
+	 * @param mandatoryProperties
+	 *            The names of the properties, i.e. the names of the
+	 *            constructor arguments or the setters without prefix.
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withMandatoryProperties(List<String> mandatoryProperties) {
+		this.mandatoryProperties = mandatoryProperties == null ? Collections
+				.<String> emptyList() : new ArrayList<String>(mandatoryProperties);
+		return this;
+	}
+
 	public BuilderGeneratorFacade withType(IType type) {
 		this.type = type;
 		if (builderName == null) {
@@ -145,7 +186,222 @@ public class BuilderGeneratorFacade {
 	}
 
 	public BuilderGeneratorFacade withFluentSetters(boolean fluentSetters) {
-		this.fluentSetters = fluentSetters;
+		return withOption(BuilderOption.FLUENT_SETTERS, fluentSetters);
+	}
+
+	/**
+	 * Formats the builder before it is inserted into the compilation unit.
+	 * 
+	 * @see BuilderOption#PREFORMAT
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withPreformatting(boolean preformat) {
+		return withOption(BuilderOption.PREFORMAT, preformat);
+	}
+
+	/**
+	 * Updates an existing builder in place instead of re-creating it.
+	 * 
+	 * @see BuilderOption#INCREMENTAL_UPDATE
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withIncrementalUpdate(boolean incremental) {
+		return withOption(BuilderOption.INCREMENTAL_UPDATE, incremental);
+	}
+
+	/**
+	 * Embeds a fingerprint of the source type in the builder, and skips the
+	 * generation if the fingerprint did not change.
+	 * 
+	 * @see BuilderOption#FINGERPRINT
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withFingerprint(boolean fingerprint) {
+		return withOption(BuilderOption.FINGERPRINT, fingerprint);
+	}
+
+	/**
+	 * Lets <code>build()</code> call only the setters of the properties that
+	 * have been assigned.
+	 * 
+	 * @see BuilderOption#ASSIGNED_SETTERS_ONLY
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withAssignedSettersOnly(boolean assignedOnly) {
+		return withOption(BuilderOption.ASSIGNED_SETTERS_ONLY, assignedOnly);
+	}
+
+	/**
+	 * Generates <code>reset()</code> and a thread local <code>local()</code>
+	 * builder.
+	 * 
+	 * @see BuilderOption#REUSABLE_BUILDERS
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withReusableBuilders(boolean reusable) {
+		return withOption(BuilderOption.REUSABLE_BUILDERS, reusable);
+	}
+
+	/**
+	 * Generates <code>buildInto(existing)</code>, that populates an existing
+	 * instance.
+	 * 
+	 * @see BuilderOption#BUILD_INTO
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withBuildInto(boolean buildInto) {
+		return withOption(BuilderOption.BUILD_INTO, buildInto);
+	}
+
+	/**
+	 * Generates final builders with small methods.
+	 * 
+	 * @see BuilderOption#JIT_FRIENDLY
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withJitFriendly(boolean jitFriendly) {
+		return withOption(BuilderOption.JIT_FRIENDLY, jitFriendly);
+	}
+
+	/**
+	 * Generates adders for collection properties, that copy shared
+	 * collections on the first change.
+	 * 
+	 * @see BuilderOption#COPY_ON_WRITE_COLLECTIONS
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withCopyOnWriteCollections(boolean copyOnWrite) {
+		return withOption(BuilderOption.COPY_ON_WRITE_COLLECTIONS, copyOnWrite);
+	}
+
+	/**
+	 * Generates adders and capacity hints for collection and array
+	 * properties.
+	 * 
+	 * @see BuilderOption#COLLECTION_SETTERS
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withCollectionSetters(boolean collectionSetters) {
+		return withOption(BuilderOption.COLLECTION_SETTERS, collectionSetters);
+	}
+
+	/**
+	 * Generates setters that take over collections and arrays without
+	 * copying them.
+	 * 
+	 * @see BuilderOption#ADOPTING_SETTERS
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withAdoptingSetters(boolean adoptingSetters) {
+		return withOption(BuilderOption.ADOPTING_SETTERS, adoptingSetters);
+	}
+
+	/**
+	 * Generates <code>buildCanonical()</code>, that returns existing
+	 * instances for equal property values. The instances are held in a
+	 * bounded table of weak references, and compared by generated hashing
+	 * and equality of their property values.
+	 * 
+	 * @see BuilderOption#CANONICAL_INSTANCES
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withCanonicalInstances(boolean canonical) {
+		return withOption(BuilderOption.CANONICAL_INSTANCES, canonical);
+	}
+
+	/**
+	 * Generates methods that set properties by name or ordinal and populate
+	 * the builder from a map or a row of values, without reflection.
+	 * 
+	 * @see BuilderOption#BINDING_METHODS
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withBindingMethods(boolean bindingMethods) {
+		return withOption(BuilderOption.BINDING_METHODS, bindingMethods);
+	}
+
+	/**
+	 * Generates a nested class that reads and writes the properties by
+	 * ordinal, without reflection.
+	 * 
+	 * @see BuilderOption#PROPERTY_TABLE
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withPropertyTable(boolean propertyTable) {
+		return withOption(BuilderOption.PROPERTY_TABLE, propertyTable);
+	}
+
+	/**
+	 * Generates counters of builds, copies and validation failures, that are
+	 * exposed as a platform MBean.
+	 * 
+	 * @see BuilderOption#INSTRUMENTATION
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withInstrumentation(boolean instrumentation) {
+		return withOption(BuilderOption.INSTRUMENTATION, instrumentation);
+	}
+
+	/**
+	 * Adds a histogram of the duration of <code>build()</code> to the
+	 * statistics of an instrumented builder.
+	 * 
+	 * @see BuilderOption#LATENCY_HISTOGRAM
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withLatencyHistogram(boolean latencyHistogram) {
+		return withOption(BuilderOption.LATENCY_HISTOGRAM, latencyHistogram);
+	}
+
+	/**
+	 * Stores wrapper properties in primitive fields, and generates setter
+	 * overloads for the primitive types.
+	 * 
+	 * @see BuilderOption#PRIMITIVE_STORAGE
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withPrimitiveStorage(boolean primitiveStorage) {
+		return withOption(BuilderOption.PRIMITIVE_STORAGE, primitiveStorage);
+	}
+
+	/**
+	 * Enables or disables a generation option.
+	 * 
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withOption(BuilderOption option, boolean enabled) {
+		
+		if (enabled) {
+			options.add(option);
+		}
+		else {
+			options.remove(option);
+		}
+		
+		return this;
+	}
+
+	/**
+	 * Enables all given options, in addition to the options that are already
+	 * enabled.
+	 * 
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withOptions(Set<BuilderOption> enabledOptions) {
+		options.addAll(enabledOptions);
+		return this;
+	}
+
+	/**
+	 * Replaces the options with the given set: the given options are
+	 * enabled, all others are disabled, including the default
+	 * {@link BuilderOption#FLUENT_SETTERS}.
+	 * 
+	 * @return {@link BuilderGeneratorFacade this}
+	 */
+	public BuilderGeneratorFacade withOnlyOptions(Set<BuilderOption> enabledOptions) {
+		options.clear();
+		options.addAll(enabledOptions);
 		return this;
 	}
 
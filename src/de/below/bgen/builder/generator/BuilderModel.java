@@ -0,0 +1,146 @@
+package de.below.bgen.builder.generator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of everything that is needed to render a builder.
+ *
+ * <p>
+ * The model is taken from the java model before rendering starts, so
+ * rendering itself does not need to access the java model and may run on any
+ * thread.
+ * </p>
+ *
+ * @author martin
+ */
+public final class BuilderModel {
+
+	/**
+	 * The ways a builder can instantiate its target type.
+	 */
+	public static enum InstantiationKind {
+
+		/**
+		 * Calls the implicit default constructor.
+		 */
+		DEFAULT_CONSTRUCTOR,
+
+		/**
+		 * Calls an explicit constructor.
+		 */
+		CONSTRUCTOR,
+
+		/**
+		 * Calls a static factory method.
+		 */
+		FACTORY_METHOD
+	}
+
+	private final String sourceTypeName;
+	private final String builderName;
+	private final boolean nested;
+	private final InstantiationKind instantiationKind;
+	private final String factoryTypeName;
+	private final String factoryMethodName;
+	private final PropertyList properties;
+	private final List<Property> readableProperties;
+	private final Set<String> buildExceptions;
+	private final Set<String> buildUponExceptions;
+	private final List<String> mandatoryProperties;
+
+	/**
+	 * @param sourceTypeName
+	 *            The simple name of the type the builder creates.
+	 * @param builderName
+	 *            The simple name of the builder.
+	 * @param nested
+	 *            <code>true</code>, if the builder is a nested class.
+	 * @param instantiationKind
+	 *            How the target type is instantiated.
+	 * @param factoryTypeName
+	 *            The type that declares the factory method, or
+	 *            <code>null</code> if no factory method is used.
+	 * @param factoryMethodName
+	 *            The name of the factory method, or <code>null</code> if no
+	 *            factory method is used.
+	 * @param properties
+	 *            The properties of the builder. Must not be modified after
+	 *            being passed to the model.
+	 * @param readableProperties
+	 *            The properties that have a public getter on the target type.
+	 * @param buildExceptions
+	 *            Checked exceptions thrown when instantiating and populating
+	 *            the target type.
+	 * @param buildUponExceptions
+	 *            Checked exceptions thrown by the getters of the readable
+	 *            properties.
+	 * @param mandatoryProperties
+	 *            Names of the properties that must be set before building.
+	 */
+	public BuilderModel(String sourceTypeName, String builderName,
+			boolean nested, InstantiationKind instantiationKind,
+			String factoryTypeName, String factoryMethodName,
+			PropertyList properties, List<Property> readableProperties,
+			Set<String> buildExceptions, Set<String> buildUponExceptions,
+			List<String> mandatoryProperties) {
+
+		this.sourceTypeName = sourceTypeName;
+		this.builderName = builderName;
+		this.nested = nested;
+		this.instantiationKind = instantiationKind;
+		this.factoryTypeName = factoryTypeName;
+		this.factoryMethodName = factoryMethodName;
+		this.properties = properties;
+		this.readableProperties = Collections.unmodifiableList(readableProperties);
+		this.buildExceptions = Collections.unmodifiableSet(buildExceptions);
+		this.buildUponExceptions = Collections.unmodifiableSet(buildUponExceptions);
+		this.mandatoryProperties = Collections.unmodifiableList(mandatoryProperties);
+	}
+
+	public String getSourceTypeName() {
+		return sourceTypeName;
+	}
+
+	public String getBuilderName() {
+		return builderName;
+	}
+
+	public boolean isNested() {
+		return nested;
+	}
+
+	public InstantiationKind getInstantiationKind() {
+		return instantiationKind;
+	}
+
+	public String getFactoryTypeName() {
+		return factoryTypeName;
+	}
+
+	public String getFactoryMethodName() {
+		return factoryMethodName;
+	}
+
+	public PropertyList getProperties() {
+		return properties;
+	}
+
+	public List<Property> getReadableProperties() {
+		return readableProperties;
+	}
+
+	public Set<String> getBuildExceptions() {
+		return buildExceptions;
+	}
+
+	public Set<String> getBuildUponExceptions() {
+		return buildUponExceptions;
+	}
+
+	public List<String> getMandatoryProperties() {
+		return mandatoryProperties;
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.below.bgen.builder.generator.BuilderModel.InstantiationKind;
+import de.below.bgen.builder.generator.Property.SetterProperty;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+/**
+ * Creates {@link BuilderModel BuilderModels} from descriptors.
+ *
+ * @author martin
+ */
+public class BuilderModelFactory {
+
+	private final PropertyCollector propertyCollector = new PropertyCollector();
+
+	/**
+	 * Creates the model for a builder.
+	 *
+	 * @param sourceType
+	 *            The type for which the builder is created.
+	 * @param instantiationMethod
+	 *            The constructor or static factory method, or
+	 *            <code>null</code> if the implicit default constructor should
+	 *            be used.
+	 * @param setterMethods
+	 *            The setters of the source type that should be populated by
+	 *            the builder.
+	 * @param mandatoryProperties
+	 *            Names of the properties that must be set before building.
+	 * @param builderName
+	 *            The name of the builder.
+	 * @param nested
+	 *            <code>true</code>, if the builder is a nested class.
+	 */
+	public BuilderModel create(TypeDescriptor sourceType,
+			MethodDescriptor instantiationMethod,
+			List<MethodDescriptor> setterMethods,
+			List<String> mandatoryProperties, String builderName,
+			boolean nested) {
+
+		if (sourceType == null) {
+			throw new IllegalArgumentException("no source type given");
+		}
+
+		PropertyList properties = propertyCollector.collectProperties(
+				sourceType, instantiationMethod, setterMethods);
+
+		List<Property> readableProperties = new ArrayList<Property>();
+		Set<String> getterExceptions = new LinkedHashSet<String>();
+
+		// a class may have more setters then getters
+		for (Property property : properties.getAll()) {
+
+			MethodDescriptor getter = sourceType.findPublicNoArgMethod(property
+					.renderGetterName());
+
+			if (getter != null) {
+				readableProperties.add(property);
+				getterExceptions.addAll(getter.getExceptionTypes());
+			}
+		}
+
+		InstantiationKind instantiationKind;
+		String factoryTypeName = null;
+		String factoryMethodName = null;
+
+		if (instantiationMethod == null) {
+			instantiationKind = InstantiationKind.DEFAULT_CONSTRUCTOR;
+		}
+		else if (instantiationMethod.isConstructor()) {
+			instantiationKind = InstantiationKind.CONSTRUCTOR;
+		}
+		else if (instantiationMethod.isStatic()) {
+			instantiationKind = InstantiationKind.FACTORY_METHOD;
+			factoryTypeName = instantiationMethod.getDeclaringTypeName();
+			factoryMethodName = instantiationMethod.getName();
+		}
+		else {
+			throw new IllegalArgumentException("invalid instantiation method: " + instantiationMethod);
+		}
+
+		return new BuilderModel(sourceType.getName(), builderName, nested,
+				instantiationKind, factoryTypeName, factoryMethodName,
+				properties, readableProperties,
+				collectExceptions(properties, instantiationMethod),
+				getterExceptions, mandatoryProperties);
+	}
+
+	/**
+	 * Returns all checked exceptions that may be thrown when instantiating the
+	 * target type or when calling one of its setter methods.
+	 */
+	private Set<String> collectExceptions(PropertyList properties,
+			MethodDescriptor instantiationMethod) {
+
+		Set<String> exceptions = new LinkedHashSet<String>();
+
+		if (instantiationMethod != null) {
+			exceptions.addAll(instantiationMethod.getExceptionTypes());
+		}
+
+		for (SetterProperty property : properties.getSetterProperties()) {
+			exceptions.addAll(property.getSetter().getExceptionTypes());
+		}
+		return exceptions;
+	}
+
+}
@@ -0,0 +1,181 @@
+package de.below.bgen.builder.generator;
+
+/**
+ * Options that control how a builder is generated.
+ *
+ * @author martin
+ */
+public enum BuilderOption {
+
+	/**
+	 * The setters of the builder return the builder itself, so calls can be
+	 * chained.
+	 */
+	FLUENT_SETTERS,
+
+	/**
+	 * The rendered builder is formatted with the formatter settings of the
+	 * project before it is inserted, instead of formatting the compilation
+	 * unit after the insertion. This saves the reconciles and the formatting
+	 * of the whole compilation unit, which dominate the generation time for
+	 * large compilation units.
+	 */
+	PREFORMAT,
+
+	/**
+	 * An existing builder is updated in place instead of being deleted and
+	 * re-created: only the members that changed are rewritten, all other
+	 * members keep their text and position. The rendered builder is formatted
+	 * before it is compared, as with {@link #PREFORMAT}.
+	 */
+	INCREMENTAL_UPDATE,
+
+	/**
+	 * A fingerprint of the source type is embedded in the builder. Builders
+	 * whose fingerprint did not change are not generated again.
+	 *
+	 * @see BuilderFingerprint
+	 */
+	FINGERPRINT,
+
+	/**
+	 * The builder tracks which properties have been assigned, and
+	 * <code>build()</code> only calls the setters of those. Properties that
+	 * were never assigned keep the defaults of the target type, and building
+	 * a sparsely populated object costs only the calls for the assigned
+	 * properties.
+	 */
+	ASSIGNED_SETTERS_ONLY,
+
+	/**
+	 * The builder gets a <code>reset()</code> method, that restores the
+	 * state of a new builder, and a static <code>local()</code> method, that
+	 * returns the reset builder of the current thread. Loops that build many
+	 * objects on one thread then do not allocate a builder per object.
+	 * 
+	 * <p>
+	 * A builder returned by <code>local()</code> must not be kept after
+	 * <code>build()</code>, and must not be used while an outer caller on the
+	 * same thread still populates it.
+	 * </p>
+	 */
+	REUSABLE_BUILDERS,
+
+	/**
+	 * The builder gets a <code>buildInto(existing)</code> method, that calls
+	 * the setters on a given instance instead of creating a new one, so
+	 * pooled instances can be populated again. Only generated for targets
+	 * without constructor arguments; combined with
+	 * {@link #ASSIGNED_SETTERS_ONLY}, only the assigned properties are
+	 * applied.
+	 */
+	BUILD_INTO,
+
+	/**
+	 * The builder is generated for the JIT compiler: the class and its
+	 * instance methods are final, and the setter calls of
+	 * <code>build()</code> are split into methods that are small enough to
+	 * be inlined. Once <code>newBuilder()...build()</code> is inlined
+	 * completely, escape analysis removes the builder allocation, and only
+	 * the target object is allocated.
+	 */
+	JIT_FRIENDLY,
+
+	/**
+	 * Properties of the types <code>List</code>, <code>Set</code> and
+	 * <code>Map</code> get adders, and their collections are copied on
+	 * write: a collection that has been passed to a setter, taken over by
+	 * <code>buildUpon</code> or handed to a built object is shared, and is
+	 * copied once when the first element is added. Changing one property of
+	 * a large object therefore does not copy its collections.
+	 * 
+	 * @see CollectionMembers
+	 */
+	COPY_ON_WRITE_COLLECTIONS,
+
+	/**
+	 * Properties of the types <code>List</code>, <code>Set</code>,
+	 * <code>Map</code> and of array types get adders and a capacity hint,
+	 * e.g. <code>addItem(item)</code> and <code>itemsCapacity(int)</code>.
+	 * Setters copy arrays, since an array can not be shared. The collections
+	 * that the builder created are wrapped in unmodifiable views once, when
+	 * they are handed to the first built object, and arrays are trimmed to
+	 * their elements.
+	 * 
+	 * @see CollectionMembers
+	 */
+	COLLECTION_SETTERS,
+
+	/**
+	 * Together with {@link #COLLECTION_SETTERS}, collection and array
+	 * properties get setters like <code>adoptItems(items)</code>, that take
+	 * over the given collection or array without copying it. The caller must
+	 * not use it afterwards.
+	 */
+	ADOPTING_SETTERS,
+
+	/**
+	 * The builder gets a <code>buildCanonical()</code> method, that returns
+	 * an instance built before from equal property values, if it is still
+	 * alive, instead of a new one. For immutable value objects that are built
+	 * again and again from the same values, only one instance per distinct
+	 * value is retained.
+	 * 
+	 * @see CanonicalTable
+	 */
+	CANONICAL_INSTANCES,
+
+	/**
+	 * The builder gets methods that set properties by name or by ordinal,
+	 * <code>set(name, value)</code> and <code>set(ordinal, value)</code>, and
+	 * that populate it from a map or from a row of values,
+	 * <code>fromMap(values)</code> and
+	 * <code>fromRow(row, columnToProperty)</code>. Names are resolved without
+	 * reflection, by a generated <code>switch</code>, for builders that are
+	 * filled from configuration, JSON or database rows.
+	 * 
+	 * @see PropertyBinding
+	 */
+	BINDING_METHODS,
+
+	/**
+	 * The builder gets a nested class like <code>PersonProperties</code>,
+	 * that gives frameworks indexed access to the properties: their number,
+	 * names and types, <code>get(person, ordinal)</code> and
+	 * <code>set(builder, ordinal, value)</code>, without reflection.
+	 * 
+	 * @see PropertyTable
+	 */
+	PROPERTY_TABLE,
+
+	/**
+	 * The builder counts its builds, its <code>buildUpon</code> copies and
+	 * the builds that failed because of missing mandatory properties, in
+	 * static counters of a nested class <code>BuildStatistics</code>, that
+	 * is registered as a platform MBean on first use. Builders without this
+	 * option contain no trace of it.
+	 * 
+	 * @see BuildStatistics
+	 */
+	INSTRUMENTATION,
+
+	/**
+	 * Together with {@link #INSTRUMENTATION}, the statistics contain a
+	 * histogram of the duration of <code>build()</code>, with one bucket per
+	 * decade from below a microsecond to a second and more.
+	 */
+	LATENCY_HISTOGRAM,
+
+	/**
+	 * Properties of wrapper types like <code>Integer</code> are stored in a
+	 * field of the primitive type and a flag that tells whether a value has
+	 * been set, and get a setter overload for the primitive type, e.g.
+	 * <code>setAge(int)</code>. Setting a primitive value does not box it;
+	 * the value is boxed once by <code>build()</code>, where
+	 * <code>valueOf</code> may return a cached instance.
+	 * 
+	 * @see PrimitiveStorage
+	 */
+	PRIMITIVE_STORAGE
+
+}
@@ -0,0 +1,839 @@
+package de.below.bgen.builder.generator;
+
+import static de.below.bgen.builder.generator.Expressions.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import de.below.bgen.builder.generator.Expressions.ObjectVar;
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+import de.below.bgen.codegen.Expression;
+import de.below.bgen.codegen.Visibility;
+import de.below.codegen.ClassBuilder;
+import de.below.codegen.ClassBuilder.ClassNameStep;
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.FieldBuilder;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+import de.below.codegen.MethodBuilder.InMethodStep;
+import de.below.codegen.MethodBuilder.ModifiersStepStep;
+
+/**
+ * Renders the source code of a builder from a {@link BuilderModel}.
+ *
+ * <p>
+ * Rendering does not access the java model, instances are immutable and may
+ * be shared between threads.
+ * </p>
+ *
+ * @author martin
+ */
+public class BuilderRenderer {
+
+	static final MemberTemplate FIELD = MemberTemplate.compile(
+			"private ${type} ${name};\n", "type", "name");
+
+	private static final MemberTemplate SETTER = MemberTemplate.compile(
+			"${modifiers} ${returnType} ${setter}(${type} ${name}) {\n"
+			+ "\tthis.${name} = ${value};\n", "modifiers", "returnType", "setter", "type", "name", "value");
+
+	static final MemberTemplate STATEMENT = MemberTemplate.compile(
+			"\t${statement};\n", "statement");
+
+	static final MemberTemplate END_FLUENT_SETTER = MemberTemplate.compile(
+			"\treturn this;\n"
+			+ "}\n");
+
+	static final MemberTemplate END_SETTER = MemberTemplate.compile(
+			"}\n");
+
+	private static final MemberTemplate SET_PROPERTY_IF_ASSIGNED = MemberTemplate.compile(
+			"if (${condition}) {\n"
+			+ "\t${object}.${setter}(${name});\n"
+			+ "}\n", "condition", "object", "setter", "name");
+
+	private static final MemberTemplate MANDATORY_CHECK = MemberTemplate.compile(
+			"if (${condition}) {\n"
+			+ "\tthrow new IllegalStateException(describeMissingProperties());\n"
+			+ "}\n", "condition");
+
+	private static final MemberTemplate COUNTED_MANDATORY_CHECK = MemberTemplate.compile(
+			"if (${condition}) {\n"
+			+ "\tBuildStatistics.VALIDATION_FAILURES.incrementAndGet();\n"
+			+ "\tthrow new IllegalStateException(describeMissingProperties());\n"
+			+ "}\n", "condition");
+
+	private static final MemberTemplate DESCRIBE_MISSING = MemberTemplate.compile(
+			"private String describeMissingProperties() {\n"
+			+ "\tStringBuilder missing = new StringBuilder();\n");
+
+	private static final MemberTemplate APPEND_IF_MISSING = MemberTemplate.compile(
+			"\tif (${condition}) {\n"
+			+ "\t\tmissing.append(\", ${name}\");\n"
+			+ "\t}\n", "condition", "name");
+
+	private static final MemberTemplate END_DESCRIBE_MISSING = MemberTemplate.compile(
+			"\treturn \"missing mandatory properties: \" + missing.substring(2);\n"
+			+ "}\n");
+
+	private static final MemberTemplate LOCAL_INSTANCES = MemberTemplate.compile(
+			"private static final ThreadLocal<${builder}> LOCAL_INSTANCES = new ThreadLocal<${builder}>() {\n"
+			+ "\t@Override\n"
+			+ "\tprotected ${builder} initialValue() {\n"
+			+ "\t\treturn new ${builder}();\n"
+			+ "\t}\n"
+			+ "};\n", "builder");
+
+	private static final MemberTemplate LOCAL = MemberTemplate.compile(
+			"public static ${builder} local() {\n"
+			+ "\t${builder} builder = LOCAL_INSTANCES.get();\n"
+			+ "\tbuilder.reset();\n"
+			+ "\treturn builder;\n"
+			+ "}\n", "builder");
+
+	private static final MemberTemplate RESET = MemberTemplate.compile(
+			"${modifiers} ${returnType} reset() {\n", "modifiers", "returnType");
+
+	private static final MemberTemplate APPLY_SETTERS = MemberTemplate.compile(
+			"${method}(${object});\n", "method", "object");
+
+	private static final MemberTemplate COPY_PROPERTY = MemberTemplate.compile(
+			"builder.${setter}(original.${getter}());\n", "setter", "getter");
+
+	private static final MemberTemplate SET_PROPERTY = MemberTemplate.compile(
+			"${object}.${setter}(${name});\n", "object", "setter", "name");
+
+	/**
+	 * The number of setter calls per method in JIT friendly builders. Each
+	 * call takes 8 bytes of bytecode, 18 bytes if it is guarded by the
+	 * presence mask, so a method stays below the 325 bytes up to which C2
+	 * inlines hot methods.
+	 */
+	private static final int SETTER_CALLS_PER_METHOD = 16;
+
+	private final SetterNamingStrategy setterNaming;
+
+	private final Set<BuilderOption> options;
+
+	private final boolean fluentSetters;
+
+	private final boolean jitFriendly;
+
+	private final String methodModifiers;
+
+	/**
+	 * Renders the counters of an instrumented builder, or <code>null</code>.
+	 */
+	private final BuildStatistics statistics;
+
+	public BuilderRenderer(SetterNamingStrategy setterNaming,
+			Set<BuilderOption> options) {
+		this.setterNaming = setterNaming;
+		this.options = EnumSet.noneOf(BuilderOption.class);
+		this.options.addAll(options);
+		this.fluentSetters = options.contains(BuilderOption.FLUENT_SETTERS);
+		this.jitFriendly = options.contains(BuilderOption.JIT_FRIENDLY);
+		this.methodModifiers = jitFriendly ? "public final" : "public";
+		this.statistics = options.contains(BuilderOption.INSTRUMENTATION) ? new BuildStatistics(
+				options.contains(BuilderOption.LATENCY_HISTOGRAM)) : null;
+	}
+
+	public BuilderRenderer(SetterNamingStrategy setterNaming,
+			boolean fluentSetters) {
+		this(setterNaming, fluentSetters ? EnumSet.of(BuilderOption.FLUENT_SETTERS)
+				: EnumSet.noneOf(BuilderOption.class));
+	}
+
+	/**
+	 * @return The fingerprint of the builder that is rendered for the given
+	 *         model.
+	 */
+	public String fingerprint(BuilderModel model) {
+		return BuilderFingerprint.of(model, setterNaming, options);
+	}
+
+	/**
+	 * Renders the builder class.
+	 *
+	 * @return The source code of the builder class, never <code>null</code>.
+	 */
+	public String render(BuilderModel model) {
+		return render(model, JavaCodeWriter.pooled()).render();
+	}
+
+	/**
+	 * Renders the builder class and streams it to the given sink.
+	 *
+	 * @throws de.below.codegen.CodeWriterException
+	 *             If the sink could not be written.
+	 */
+	public void render(BuilderModel model, Appendable out) {
+		render(model, JavaCodeWriter.create(out)).flush();
+	}
+
+	private JavaCodeWriter render(BuilderModel model, JavaCodeWriter out) {
+
+		PropertyList properties = model.getProperties();
+		String builderName = model.getBuilderName();
+		PresenceMask presence = isTrackingAssignments(model) ? PresenceMask
+				.of(model) : null;
+		CollectionMembers collections = CollectionMembers.of(properties, options);
+		PrimitiveStorage storage = PrimitiveStorage.of(properties, options);
+
+		ClassNameStep<JavaCodeWriter> declaration = ClassBuilder.newClass(out, out)
+				.visibility(Visibility.PUBLIC)
+				.staticClass(model.isNested());
+
+		if (jitFriendly) {
+			declaration.finalClass();
+		}
+
+		InClassStep<JavaCodeWriter> builder = declaration.name(builderName);
+
+		if (options.contains(BuilderOption.FINGERPRINT)) {
+			createFingerprint(model, builder);
+		}
+
+		createFactoryMethod(builderName, builder);
+
+		if (options.contains(BuilderOption.REUSABLE_BUILDERS)) {
+			createLocalMethod(builderName, builder);
+		}
+
+		createBuildUponMethod(model, builder);
+
+		createFields(properties.getConstructorArgs(), builder, storage);
+		createFields(properties.getSetterProperties(), builder, storage);
+
+		if (collections != null) {
+			collections.createFields(builder);
+		}
+
+		if (storage != null) {
+			storage.createFields(builder);
+		}
+
+		if (presence != null) {
+			createPresenceFields(presence, builder);
+		}
+
+		createSetters(properties.getAll(), builder, builderName, presence,
+				collections, storage);
+
+		if (collections != null) {
+			collections.createMethods(builder, methodModifiers,
+					fluentSetters ? builderName : "void", presence);
+		}
+
+		if (options.contains(BuilderOption.REUSABLE_BUILDERS)) {
+			createResetMethod(properties.getAll(), builder, builderName,
+					presence, collections, storage);
+		}
+
+		createBuildMethod(model, builder, presence, collections, storage);
+
+		if (isBuildingInto(model)) {
+			createBuildIntoMethod(model, builder, presence, collections, storage);
+		}
+
+		if (isSplittingSetterCalls(model)) {
+			createApplySettersMethods(model, builder, presence, storage);
+		}
+
+		if (options.contains(BuilderOption.CANONICAL_INSTANCES)) {
+			new CanonicalTable(model,
+					options.contains(BuilderOption.ASSIGNED_SETTERS_ONLY) ? presence : null,
+					storage).createMembers(builder, methodModifiers);
+		}
+
+		if (options.contains(BuilderOption.BINDING_METHODS)) {
+			new PropertyBinding(properties, setterNaming).createMembers(
+					builder, methodModifiers, fluentSetters ? builderName : "void");
+		}
+
+		if (options.contains(BuilderOption.PROPERTY_TABLE)) {
+			createPropertyTable(model, builder);
+		}
+
+		if (statistics != null) {
+			statistics.createMembers(builder, builderName);
+		}
+
+		if (presence != null && presence.hasMandatoryProperties()) {
+			createDescribeMissingMethod(properties, presence, builder);
+		}
+
+		return builder.endClass();
+	}
+
+	/**
+	 * Creates the constant that holds the fingerprint of the builder.
+	 */
+	private void createFingerprint(BuilderModel model,
+			InClassStep<JavaCodeWriter> builder) {
+
+		builder.beginField().type("String")
+				.name(BuilderFingerprint.FIELD_NAME)
+				.visibility(Visibility.PRIVATE)
+				.staticField(true).finalField(true)
+				.value(stringLiteral(fingerprint(model)))
+				.buildField();
+	}
+
+	private void createFields(List<? extends Property> properties,
+			InClassStep<JavaCodeWriter> builder, PrimitiveStorage storage) {
+
+		for (Property property : properties) {
+			builder.addMember(FIELD, storage != null ? storage
+					.renderFieldType(property) : property.getType(),
+					property.getName());
+		}
+
+	}
+
+	/**
+	 * Creates the static "buildUpon(originalObject)" - method, which can be
+	 * used to create a builder that is populated with the values from a given
+	 * object.
+	 */
+	private void createBuildUponMethod(BuilderModel model,
+			InClassStep<?> builder) {
+
+		String builderName = model.getBuilderName();
+
+		InMethodStep<?> method = builder
+				.beginMethod().visibility(Visibility.PUBLIC)
+				.staticMethod()
+				.returnType(builderName)
+				.exceptions(model.getBuildUponExceptions())
+				.argument(model.getSourceTypeName(), "original")
+				.name("buildUpon");
+
+
+		method.addStatement(Expressions.declarationWithAssignment(
+				type(builderName), variable("builder"),
+				methodCall(type(builderName), "newBuilder")));
+
+
+		for (Property property : model.getReadableProperties()) {
+
+			method.addStatements(COPY_PROPERTY,
+					setterNaming.renderSetterNameFor(property.getName()),
+					property.renderGetterName());
+		}
+
+		if (statistics != null) {
+			statistics.renderBuildUpon(method);
+		}
+
+		method.addStatement(Expressions.returnStatement(object("builder")));
+		method.endMethod();
+
+	}
+
+	/**
+	 * Creates the field that tracks the assigned properties, and the constant
+	 * with the bits of the mandatory properties.
+	 */
+	private void createPresenceFields(PresenceMask presence,
+			InClassStep<JavaCodeWriter> builder) {
+
+		FieldBuilder.BuildStep<InClassStep<JavaCodeWriter>> mask = builder
+				.beginField().type(presence.getType())
+				.name(PresenceMask.FIELD_NAME)
+				.visibility(Visibility.PRIVATE);
+
+		if (presence.getInitializer() != null) {
+			mask.finalField(true).value(literal(presence.getInitializer()));
+		}
+
+		mask.buildField();
+
+		if (!presence.hasMandatoryProperties()) {
+			return;
+		}
+
+		builder.beginField().type(presence.getType())
+				.name(PresenceMask.MANDATORY_NAME)
+				.visibility(Visibility.PRIVATE)
+				.staticField(true).finalField(true)
+				.value(literal(presence.getMandatoryInitializer()))
+				.buildField();
+	}
+
+	/**
+	 * Creates a setter-method for each property of the intrinsic class.
+	 * 
+	 * @param presence
+	 *            The mask that tracks the assigned properties, or
+	 *            <code>null</code> if they are not tracked.
+	 * @param collections
+	 *            The members for collection properties, or <code>null</code>.
+	 * @param storage
+	 *            The primitive storage of wrapper properties, or
+	 *            <code>null</code>.
+	 */
+	private void createSetters(List<? extends Property> properties,
+			final InClassStep<JavaCodeWriter> builder, String builderName,
+			PresenceMask presence, CollectionMembers collections,
+			PrimitiveStorage storage) {
+
+		for (int i = 0; i < properties.size(); i++) {
+
+			Property property = properties.get(i);
+			String name = property.getName();
+			String primitive = storage != null ? storage.getPrimitive(property) : null;
+			String value = name;
+
+			if (primitive != null) {
+				value = storage.renderSetterValue(property);
+			}
+			else if (collections != null) {
+				value = collections.renderSetterValue(i);
+			}
+
+			builder.addMember(SETTER, methodModifiers,
+					fluentSetters ? builderName : "void",
+					setterNaming.renderSetterNameFor(name), property.getType(),
+					name, value);
+
+			if (presence != null) {
+				builder.addMember(STATEMENT, presence.renderMark(i));
+			}
+
+			if (collections != null) {
+				collections.createSetterStatements(i, false, builder);
+			}
+
+			if (storage != null) {
+				storage.createSetterStatements(property, builder);
+			}
+
+			builder.addMember(fluentSetters ? END_FLUENT_SETTER : END_SETTER);
+
+			if (primitive != null) {
+				createPrimitiveSetter(i, property, primitive, builder,
+						builderName, presence);
+			}
+		}
+
+	}
+
+	/**
+	 * Creates the overload of the setter of a wrapper property that takes the
+	 * primitive value, and stores it without boxing.
+	 */
+	private void createPrimitiveSetter(int ordinal, Property property,
+			String primitive, InClassStep<JavaCodeWriter> builder,
+			String builderName, PresenceMask presence) {
+
+		String name = property.getName();
+
+		builder.addMember(SETTER, methodModifiers,
+				fluentSetters ? builderName : "void",
+				setterNaming.renderSetterNameFor(name), primitive, name, name);
+
+		builder.addMember(STATEMENT, "this."
+				+ PrimitiveStorage.renderPresentFlag(name) + " = true");
+
+		if (presence != null) {
+			builder.addMember(STATEMENT, presence.renderMark(ordinal));
+		}
+
+		builder.addMember(fluentSetters ? END_FLUENT_SETTER : END_SETTER);
+	}
+
+	/**
+	 * Creates the "reset()" - method, which restores the state of a new
+	 * builder, so the builder can be used again.
+	 * 
+	 * @param presence
+	 *            The mask that tracks the assigned properties, or
+	 *            <code>null</code> if they are not tracked.
+	 */
+	private void createResetMethod(List<? extends Property> properties,
+			InClassStep<JavaCodeWriter> builder, String builderName,
+			PresenceMask presence, CollectionMembers collections,
+			PrimitiveStorage storage) {
+
+		builder.addMember(RESET, methodModifiers,
+				fluentSetters ? builderName : "void");
+
+		for (Property property : properties) {
+			builder.addMember(STATEMENT, "this." + property.getName() + " = "
+					+ defaultValue(storage != null ? storage.renderFieldType(property)
+							: property.getType()));
+		}
+
+		if (collections != null) {
+			collections.createResetStatements(builder);
+		}
+
+		if (storage != null) {
+			storage.createResetStatements(builder);
+		}
+
+		if (presence != null) {
+			builder.addMember(STATEMENT, presence.renderClear());
+		}
+
+		builder.addMember(fluentSetters ? END_FLUENT_SETTER : END_SETTER);
+	}
+
+	/**
+	 * @return The value of an unassigned field of the given type.
+	 */
+	private static String defaultValue(String type) {
+
+		if (type.equals("boolean")) {
+			return "false";
+		}
+
+		if (type.equals("byte") || type.equals("short") || type.equals("char")
+				|| type.equals("int") || type.equals("long")
+				|| type.equals("float") || type.equals("double")) {
+			return "0";
+		}
+
+		return "null";
+	}
+
+	/**
+	 * Creates the nested class that reads the properties from the target type
+	 * and writes them to the builder by ordinal.
+	 */
+	private void createPropertyTable(BuilderModel model,
+			InClassStep<JavaCodeWriter> builder) {
+
+		PropertyTable table = new PropertyTable(model.getSourceTypeName(),
+				model.getBuilderName(), model.getBuildUponExceptions());
+
+		for (Property property : model.getProperties().getAll()) {
+			table.addProperty(property.getName(), property.getType(),
+					model.getReadableProperties().contains(property) ? property
+							.renderGetterName() : null,
+					setterNaming.renderSetterNameFor(property.getName()));
+		}
+
+		table.createClass(builder);
+	}
+
+	/**
+	 * Creates the method that names the mandatory properties that have not
+	 * been assigned.
+	 */
+	private void createDescribeMissingMethod(PropertyList properties,
+			PresenceMask presence, InClassStep<JavaCodeWriter> builder) {
+
+		builder.addMember(DESCRIBE_MISSING);
+
+		List<Property> all = properties.getAll();
+
+		for (int i = 0; i < all.size(); i++) {
+			if (presence.isMandatory(i)) {
+				builder.addMember(APPEND_IF_MISSING,
+						presence.renderIsUnassigned(i), all.get(i).getName());
+			}
+		}
+
+		builder.addMember(END_DESCRIBE_MISSING);
+	}
+
+	/**
+	 * Creates the build()-method on the builder, that is responsible for
+	 * instantiating the intrinsic type.
+	 */
+	private void createBuildMethod(BuilderModel model,
+			InClassStep<JavaCodeWriter> builder, PresenceMask presence,
+			CollectionMembers collections, PrimitiveStorage storage) {
+
+		InMethodStep<InClassStep<JavaCodeWriter>> result = modifiers(builder
+				.beginMethod()
+				.visibility(Visibility.PUBLIC))
+				.returnType(model.getSourceTypeName())
+				.exceptions(model.getBuildExceptions())
+				.name("build");
+
+		if (statistics != null) {
+			statistics.renderBuildStart(result);
+		}
+
+		if (presence != null && presence.hasMandatoryProperties()) {
+			result.addStatements(statistics != null ? COUNTED_MANDATORY_CHECK
+					: MANDATORY_CHECK, presence.renderMandatoryMissing());
+		}
+
+		if (collections != null) {
+			collections.renderBeforeBuild(result);
+		}
+
+		ObjectVar builderInstanceVar = object("result");
+
+		renderInstantiationMethodCall(model, result, builderInstanceVar, storage);
+
+		renderSetterCalls(model, result, builderInstanceVar, presence, storage);
+
+		if (collections != null) {
+			collections.renderAfterBuild(result);
+		}
+
+		if (statistics != null) {
+			statistics.renderBuildEnd(result);
+		}
+
+		result.addStatement(Expressions.returnStatement(builderInstanceVar));
+
+		result.endMethod();
+
+	}
+
+	/**
+	 * Creates the "buildInto(existing)" - method, which applies the setter
+	 * properties to an existing instance of the intrinsic type instead of
+	 * creating a new one.
+	 */
+	private void createBuildIntoMethod(BuilderModel model,
+			InClassStep<JavaCodeWriter> builder, PresenceMask presence,
+			CollectionMembers collections, PrimitiveStorage storage) {
+
+		ObjectVar existing = object("existing");
+
+		InMethodStep<InClassStep<JavaCodeWriter>> result = modifiers(builder
+				.beginMethod()
+				.visibility(Visibility.PUBLIC))
+				.returnType(model.getSourceTypeName())
+				.exceptions(model.getBuildExceptions())
+				.argument(model.getSourceTypeName(), existing.getName())
+				.name("buildInto");
+
+		if (presence != null && presence.hasMandatoryProperties()) {
+			result.addStatements(statistics != null ? COUNTED_MANDATORY_CHECK
+					: MANDATORY_CHECK, presence.renderMandatoryMissing());
+		}
+
+		if (collections != null) {
+			collections.renderBeforeBuild(result);
+		}
+
+		renderSetterCalls(model, result, existing, presence, storage);
+
+		if (collections != null) {
+			collections.renderAfterBuild(result);
+		}
+
+		result.addStatement(Expressions.returnStatement(existing));
+
+		result.endMethod();
+	}
+
+	/**
+	 * @return <code>true</code>, if "buildInto(existing)" is generated. The
+	 *         values of constructor arguments can not be applied to an
+	 *         existing instance, so only targets that are populated by setters
+	 *         alone qualify.
+	 */
+	private boolean isBuildingInto(BuilderModel model) {
+		return options.contains(BuilderOption.BUILD_INTO)
+				&& model.getProperties().getConstructorArgs().isEmpty()
+				&& !model.getProperties().getSetterProperties().isEmpty();
+	}
+
+	/**
+	 * Renders the the code that calls the setter-methods on the target type.
+	 * JIT friendly builders with many setter properties call the methods
+	 * created by {@link #createApplySettersMethods} instead.
+	 * 
+	 * @param presence
+	 *            The mask that tracks the assigned properties, or
+	 *            <code>null</code> if they are not tracked.
+	 * @param storage
+	 *            The primitive storage of wrapper properties, or
+	 *            <code>null</code>.
+	 */
+	private void renderSetterCalls(BuilderModel model,
+			InMethodStep<InClassStep<JavaCodeWriter>> builder,
+			ObjectVar builderVar, PresenceMask presence,
+			PrimitiveStorage storage) {
+
+		int count = model.getProperties().getSetterProperties().size();
+
+		if (!isSplittingSetterCalls(model)) {
+			renderSetterCalls(model.getProperties(), 0, count, builder,
+					builderVar, presence, storage);
+			return;
+		}
+
+		for (int chunk = 0; chunk * SETTER_CALLS_PER_METHOD < count; chunk++) {
+			builder.addStatements(APPLY_SETTERS, "applySetters" + chunk,
+					builderVar.getName());
+		}
+	}
+
+	/**
+	 * Renders the the code that calls a range of the setter-methods on the
+	 * target type.
+	 * 
+	 * @param presence
+	 *            The mask that tracks the assigned properties, or
+	 *            <code>null</code> if they are not tracked. Only used if
+	 *            {@link BuilderOption#ASSIGNED_SETTERS_ONLY} is set.
+	 * @param storage
+	 *            The primitive storage of wrapper properties, or
+	 *            <code>null</code>.
+	 */
+	private void renderSetterCalls(PropertyList properties, int from, int to,
+			InMethodStep<InClassStep<JavaCodeWriter>> builder,
+			ObjectVar builderVar, PresenceMask presence,
+			PrimitiveStorage storage) {
+
+		boolean assignedOnly = presence != null
+				&& options.contains(BuilderOption.ASSIGNED_SETTERS_ONLY);
+		int offset = properties.getConstructorArgs().size();
+		List<? extends Property> setterProperties = properties.getSetterProperties();
+
+		for (int i = from; i < to; i++) {
+
+			Property property = setterProperties.get(i);
+			String value = storage != null ? storage.renderValue(property)
+					: property.getName();
+
+			if (assignedOnly) {
+				builder.addStatements(SET_PROPERTY_IF_ASSIGNED,
+						presence.renderIsAssigned(offset + i), builderVar.getName(),
+						property.renderSetterName(), value);
+			}
+			else {
+				builder.addStatements(SET_PROPERTY, builderVar.getName(),
+						property.renderSetterName(), value);
+			}
+		}
+	}
+
+	/**
+	 * Creates the private methods that call the setters of up to
+	 * {@link #SETTER_CALLS_PER_METHOD} properties each, so the methods that
+	 * call them stay small enough to be inlined.
+	 */
+	private void createApplySettersMethods(BuilderModel model,
+			InClassStep<JavaCodeWriter> builder, PresenceMask presence,
+			PrimitiveStorage storage) {
+
+		ObjectVar target = object("result");
+		int count = model.getProperties().getSetterProperties().size();
+
+		for (int chunk = 0; chunk * SETTER_CALLS_PER_METHOD < count; chunk++) {
+
+			InMethodStep<InClassStep<JavaCodeWriter>> method = builder
+					.beginMethod()
+					.visibility(Visibility.PRIVATE)
+					.voidMethod()
+					.exceptions(model.getBuildExceptions())
+					.argument(model.getSourceTypeName(), target.getName())
+					.name("applySetters" + chunk);
+
+			int from = chunk * SETTER_CALLS_PER_METHOD;
+
+			renderSetterCalls(model.getProperties(), from,
+					Math.min(count, from + SETTER_CALLS_PER_METHOD), method,
+					target, presence, storage);
+
+			method.endMethod();
+		}
+	}
+
+	/**
+	 * @return <code>true</code>, if the setter calls of "build()" are split
+	 *         into separate methods.
+	 */
+	private boolean isSplittingSetterCalls(BuilderModel model) {
+		return jitFriendly
+				&& model.getProperties().getSetterProperties().size() > SETTER_CALLS_PER_METHOD;
+	}
+
+	/**
+	 * Adds the modifiers of the instance methods of the builder, which are
+	 * final in JIT friendly builders.
+	 */
+	private <T> ModifiersStepStep<T> modifiers(ModifiersStepStep<T> method) {
+		return jitFriendly ? method.finalMethod() : method;
+	}
+
+	/**
+	 * @return <code>true</code>, if the builder has to track which properties
+	 *         have been assigned.
+	 */
+	private boolean isTrackingAssignments(BuilderModel model) {
+		return !model.getMandatoryProperties().isEmpty()
+				|| options.contains(BuilderOption.ASSIGNED_SETTERS_ONLY)
+				&& !model.getProperties().getSetterProperties().isEmpty();
+	}
+
+	/**
+	 * Renders the code that instantiates the target type (via constructor or
+	 * static factory method)
+	 */
+	private void renderInstantiationMethodCall(BuilderModel model,
+			InMethodStep<InClassStep<JavaCodeWriter>> result,
+			ObjectVar builderVar, PrimitiveStorage storage) {
+
+		List<Expression> args = new ArrayList<Expression>();
+		for (Property property : model.getProperties().getConstructorArgs()) {
+			if (storage != null && storage.getPrimitive(property) != null) {
+				args.add(literal(storage.renderValue(property)));
+			}
+			else {
+				args.add(variable(property.getName()));
+			}
+		}
+
+		result.addStatement(declarationWithAssignment(
+				type(model.getSourceTypeName()), builderVar,
+				renderInstantiation(model, args)));
+	}
+
+	/**
+	 * Renders the call to the instantiation-method (which may either be a
+	 * constructor, or a static factory method.
+	 */
+	private Expression renderInstantiation(BuilderModel model,
+			List<Expression> args) {
+
+		if (model.getInstantiationKind() == BuilderModel.InstantiationKind.FACTORY_METHOD) {
+			return methodCall(type(model.getFactoryTypeName()),
+					model.getFactoryMethodName(), args);
+		}
+
+		return instantiation(type(model.getSourceTypeName()), args);
+	}
+
+	/**
+	 * Creates the static "local()" - method, which returns the reset builder
+	 * of the current thread, and the thread local that holds it.
+	 */
+	private void createLocalMethod(String builderName,
+			InClassStep<JavaCodeWriter> builder) {
+
+		builder.addMember(LOCAL_INSTANCES, builderName);
+		builder.addMember(LOCAL, builderName);
+	}
+
+	/**
+	 * Creates the static factory-method "newBuilder" on the builder type.
+	 *
+	 * @param builderName
+	 *            Name of the builder.
+	 */
+	private void createFactoryMethod(String builderName,
+			InClassStep<JavaCodeWriter> builder) {
+
+		builder.beginMethod().visibility(Visibility.PUBLIC).staticMethod()
+				.returnType(builderName)
+				.name("newBuilder")
+				.addStatement(returnStatement(instantiation(type(builderName))))
+				.endMethod();
+
+	}
+
+}
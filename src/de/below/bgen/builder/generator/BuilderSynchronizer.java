@@ -0,0 +1,211 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import de.below.bgen.Activator;
+
+/**
+ * Keeps fingerprinted builders in sync with their source types: whenever a
+ * compilation unit is saved, the builders of its types are regenerated in the
+ * background. Builders whose {@link BuilderFingerprint fingerprint} did not
+ * change are skipped, so saving a file that does not affect a builder costs
+ * almost nothing.
+ *
+ * <p>
+ * Only builders that already exist and carry a fingerprint are regenerated.
+ * They are regenerated with the settings of the given
+ * {@link BatchBuilderGenerator}, which should therefore match the settings the
+ * builders have been created with.
+ * </p>
+ *
+ * <p>
+ * The regeneration runs in a job that belongs to the family of the
+ * synchronizer, so <code>Job.getJobManager().join(synchronizer, monitor)</code>
+ * waits for the pending regenerations.
+ * </p>
+ *
+ * @author martin
+ */
+public class BuilderSynchronizer implements IElementChangedListener {
+
+	private static final long DELAY = 200;
+
+	private final BatchBuilderGenerator generator;
+
+	private final Set<IType> pendingTypes = new LinkedHashSet<IType>();
+
+	private final SynchronizeJob job = new SynchronizeJob();
+
+	private BuilderSynchronizer(BatchBuilderGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Starts to listen for saved compilation units.
+	 *
+	 * @param generator
+	 *            The generator that is used to regenerate the builders.
+	 *            {@link BuilderOption#FINGERPRINT} is enabled on it.
+	 * @return The installed synchronizer.
+	 */
+	public static BuilderSynchronizer install(BatchBuilderGenerator generator) {
+
+		BuilderSynchronizer synchronizer = new BuilderSynchronizer(
+				generator.withOption(BuilderOption.FINGERPRINT, true));
+
+		JavaCore.addElementChangedListener(synchronizer,
+				ElementChangedEvent.POST_CHANGE);
+
+		return synchronizer;
+	}
+
+	/**
+	 * Stops listening. Pending regenerations are cancelled.
+	 */
+	public void uninstall() {
+		JavaCore.removeElementChangedListener(this);
+		job.cancel();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+
+		List<ICompilationUnit> changedUnits = new ArrayList<ICompilationUnit>();
+		collectChangedUnits(event.getDelta(), changedUnits);
+
+		if (changedUnits.isEmpty()) {
+			return;
+		}
+
+		boolean scheduled = false;
+
+		for (ICompilationUnit unit : changedUnits) {
+			try {
+				scheduled |= enqueueTypesOf(unit);
+			}
+			catch (JavaModelException e) {
+				Activator.getDefault().log(
+						"error inspecting " + unit.getElementName(), e);
+			}
+		}
+
+		if (scheduled) {
+			job.schedule(DELAY);
+		}
+	}
+
+	private void collectChangedUnits(IJavaElementDelta delta,
+			List<ICompilationUnit> result) {
+
+		IJavaElement element = delta.getElement();
+
+		if (element.getElementType() == IJavaElement.COMPILATION_UNIT) {
+
+			ICompilationUnit unit = (ICompilationUnit) element;
+
+			// the primary unit of an open editor is a working copy as well
+			if (delta.getKind() == IJavaElementDelta.CHANGED
+					&& unit.getOwner() == null
+					&& (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_RESOURCE)) != 0) {
+				result.add(unit);
+			}
+
+			return;
+		}
+
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			collectChangedUnits(child, result);
+		}
+	}
+
+	/**
+	 * Enqueues the types of the given compilation unit that have a
+	 * fingerprinted builder.
+	 *
+	 * @return <code>true</code>, if at least one type has been enqueued.
+	 */
+	private boolean enqueueTypesOf(ICompilationUnit unit)
+			throws JavaModelException {
+
+		boolean result = false;
+
+		if (!unit.exists()) {
+			return false;
+		}
+
+		for (IType type : unit.getTypes()) {
+
+			IType builder = generator.getBuilderType(type);
+
+			if (builder.exists()
+					&& builder.getField(BuilderFingerprint.FIELD_NAME).exists()) {
+
+				synchronized (pendingTypes) {
+					pendingTypes.add(type);
+				}
+
+				result = true;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Regenerates the builders of all pending types.
+	 */
+	private final class SynchronizeJob extends WorkspaceJob {
+
+		SynchronizeJob() {
+			super("Synchronizing builders");
+			setSystem(true);
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == BuilderSynchronizer.this;
+		}
+
+		@Override
+		public IStatus runInWorkspace(IProgressMonitor monitor) {
+
+			List<IType> types;
+
+			synchronized (pendingTypes) {
+				types = new ArrayList<IType>(pendingTypes);
+				pendingTypes.clear();
+			}
+
+			try {
+				generator.generateForTypes(types, monitor);
+				return Status.OK_STATUS;
+			}
+			catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			}
+			catch (CoreException e) {
+				return e.getStatus();
+			}
+		}
+
+	}
+
+}
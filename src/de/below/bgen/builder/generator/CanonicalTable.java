@@ -0,0 +1,332 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import de.below.codegen.Argument;
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+
+/**
+ * Renders the members of a builder that implement
+ * {@link BuilderOption#CANONICAL_INSTANCES}: the method
+ * <code>buildCanonical()</code>, which returns an existing instance if one
+ * has been built from equal property values, and the table that holds these
+ * instances.
+ *
+ * <p>
+ * The table is a static array of {@link #SIZE} entries, indexed by the hash
+ * of the property values. Each entry holds the property values it has been
+ * built from, and the instance by a weak reference, so the table neither
+ * grows nor keeps instances alive. A new instance replaces the entry of its
+ * slot. Entries are immutable and published through their final fields, so
+ * the table is read and written without locking; a lost race only costs an
+ * additional instance.
+ * </p>
+ *
+ * <p>
+ * Hashing and equality are rendered field by field, without reflection.
+ * Instances are only canonical as long as the target type is immutable.
+ * </p>
+ *
+ * @author martin
+ */
+final class CanonicalTable {
+
+	/**
+	 * The number of entries of the table, a power of two.
+	 */
+	static final int SIZE = 4096;
+
+	private static final MemberTemplate TABLE = MemberTemplate.compile(
+			"private static final int CANONICAL_SIZE = ${size};\n"
+			+ "private static final CanonicalEntry[] CANONICAL_INSTANCES = new CanonicalEntry[CANONICAL_SIZE];\n",
+			"size");
+
+	private static final MemberTemplate ENTRY = MemberTemplate.compile(
+			"private static final class CanonicalEntry extends java.lang.ref.WeakReference<${type}> {\n"
+			+ "\tfinal int keyHash;\n", "type");
+
+	private static final MemberTemplate ENTRY_FIELD = MemberTemplate.compile(
+			"\tfinal ${type} ${name};\n", "type", "name");
+
+	private static final MemberTemplate ENTRY_CONSTRUCTOR = MemberTemplate.compile(
+			"\tCanonicalEntry(${type} instance, int keyHash, ${builder} builder) {\n"
+			+ "\t\tsuper(instance);\n"
+			+ "\t\tthis.keyHash = keyHash;\n", "type", "builder");
+
+	private static final MemberTemplate ENTRY_ASSIGNMENT = MemberTemplate.compile(
+			"\t\tthis.${name} = ${value};\n", "name", "value");
+
+	private static final MemberTemplate END_ENTRY = MemberTemplate.compile(
+			"\t}\n"
+			+ "}\n");
+
+	private static final MemberTemplate BUILD_CANONICAL = MemberTemplate.compile(
+			"${modifiers} ${type} buildCanonical()${exceptions} {\n"
+			+ "\tint keyHash = canonicalHash();\n"
+			+ "\tint index = (keyHash ^ (keyHash >>> 16)) & (CANONICAL_SIZE - 1);\n"
+			+ "\tCanonicalEntry entry = CANONICAL_INSTANCES[index];\n"
+			+ "\tif (entry != null && entry.keyHash == keyHash && canonicalEquals(entry)) {\n"
+			+ "\t\t${type} existing = entry.get();\n"
+			+ "\t\tif (existing != null) {\n"
+			+ "\t\t\treturn existing;\n"
+			+ "\t\t}\n"
+			+ "\t}\n"
+			+ "\t${type} result = build();\n"
+			+ "\tCANONICAL_INSTANCES[index] = new CanonicalEntry(result, keyHash, this);\n"
+			+ "\treturn result;\n"
+			+ "}\n", "modifiers", "type", "exceptions");
+
+	private static final MemberTemplate HASH = MemberTemplate.compile(
+			"private int canonicalHash() {\n"
+			+ "\tint hash = 1;\n");
+
+	private static final MemberTemplate HASH_PART = MemberTemplate.compile(
+			"\thash = 31 * hash + ${hash};\n", "hash");
+
+	private static final MemberTemplate END_HASH = MemberTemplate.compile(
+			"\treturn hash;\n"
+			+ "}\n");
+
+	private static final MemberTemplate EQUALS = MemberTemplate.compile(
+			"private boolean canonicalEquals(CanonicalEntry entry) {\n"
+			+ "\treturn ${condition};\n"
+			+ "}\n", "condition");
+
+	private final BuilderModel model;
+
+	/**
+	 * The mask of the assigned properties, which is part of the key, or
+	 * <code>null</code>. Equal values build different instances, if the
+	 * target type is left with its defaults for unassigned properties.
+	 */
+	private final PresenceMask presence;
+
+	/**
+	 * The primitive storage of wrapper properties, or <code>null</code>.
+	 */
+	private final PrimitiveStorage storage;
+
+	CanonicalTable(BuilderModel model, PresenceMask presence,
+			PrimitiveStorage storage) {
+		this.model = model;
+		this.presence = presence;
+		this.storage = storage;
+	}
+
+	/**
+	 * Creates the table, its entry class and the methods.
+	 *
+	 * @param modifiers
+	 *            The modifiers of <code>buildCanonical()</code>.
+	 */
+	void createMembers(InClassStep<JavaCodeWriter> builder, String modifiers) {
+
+		String type = model.getSourceTypeName();
+		List<Argument> properties = getKeyFields();
+
+		builder.addMember(TABLE, String.valueOf(SIZE));
+
+		builder.addMember(ENTRY, type);
+
+		for (Argument property : properties) {
+			builder.addMember(ENTRY_FIELD, property.getType(), property.getName());
+		}
+
+		if (presence != null) {
+			builder.addMember(ENTRY_FIELD, presence.getType(), PresenceMask.FIELD_NAME);
+		}
+
+		builder.addMember(ENTRY_CONSTRUCTOR, type, model.getBuilderName());
+
+		for (Argument property : properties) {
+
+			String value = "builder." + property.getName();
+
+			// the built object may modify its arrays, the key must not change
+			if (property.getType().endsWith("[]")) {
+				value = value + " == null ? null : " + value + ".clone()";
+			}
+
+			builder.addMember(ENTRY_ASSIGNMENT, property.getName(), value);
+		}
+
+		if (presence != null) {
+			builder.addMember(ENTRY_ASSIGNMENT, PresenceMask.FIELD_NAME,
+					"builder." + PresenceMask.FIELD_NAME
+							+ (presence.isArray() ? ".clone()" : ""));
+		}
+
+		builder.addMember(END_ENTRY);
+
+		builder.addMember(BUILD_CANONICAL, modifiers, type,
+				renderExceptions(model.getBuildExceptions()));
+
+		createHashMethod(properties, builder);
+
+		createEqualsMethod(properties, builder);
+	}
+
+	/**
+	 * @return The fields of the builder that hold the property values, as
+	 *         they are stored: wrapper properties in
+	 *         {@link PrimitiveStorage primitive storage} take their field and
+	 *         its flag.
+	 */
+	private List<Argument> getKeyFields() {
+
+		List<Argument> result = new ArrayList<Argument>();
+
+		for (Property property : model.getProperties().getAll()) {
+
+			if (storage == null || storage.getPrimitive(property) == null) {
+				result.add(property);
+				continue;
+			}
+
+			result.add(new Argument(storage.getPrimitive(property), property.getName()));
+			result.add(new Argument("boolean",
+					PrimitiveStorage.renderPresentFlag(property.getName())));
+		}
+
+		return result;
+	}
+
+	private void createHashMethod(List<Argument> properties,
+			InClassStep<JavaCodeWriter> builder) {
+
+		builder.addMember(HASH);
+
+		for (Argument property : properties) {
+			builder.addMember(HASH_PART,
+					renderHash(property.getType(), "this." + property.getName()));
+		}
+
+		if (presence != null) {
+			builder.addMember(HASH_PART, renderHash(presence.getType(),
+					"this." + PresenceMask.FIELD_NAME));
+		}
+
+		builder.addMember(END_HASH);
+	}
+
+	private void createEqualsMethod(List<Argument> properties,
+			InClassStep<JavaCodeWriter> builder) {
+
+		StringBuilder condition = new StringBuilder();
+
+		for (Argument property : properties) {
+			appendEquals(condition, property.getType(), property.getName());
+		}
+
+		if (presence != null) {
+			appendEquals(condition, presence.getType(), PresenceMask.FIELD_NAME);
+		}
+
+		builder.addMember(EQUALS, condition.length() == 0 ? "true"
+				: condition.toString());
+	}
+
+	private static void appendEquals(StringBuilder condition, String type,
+			String name) {
+
+		if (condition.length() > 0) {
+			condition.append(" && ");
+		}
+
+		condition.append(renderEquals(type, "this." + name, "entry." + name));
+	}
+
+	/**
+	 * @return The expression of the hash code of a value of the given type.
+	 */
+	static String renderHash(String type, String value) {
+
+		if (type.endsWith("[]")) {
+			return "java.util.Arrays." + (isPrimitiveArray(type) ? "hashCode" : "deepHashCode")
+					+ "(" + value + ")";
+		}
+
+		if (type.equals("boolean")) {
+			return "(" + value + " ? 1231 : 1237)";
+		}
+
+		if (type.equals("long")) {
+			return "(int) (" + value + " ^ (" + value + " >>> 32))";
+		}
+
+		if (type.equals("float")) {
+			return "Float.floatToIntBits(" + value + ")";
+		}
+
+		if (type.equals("double")) {
+			return "(int) (Double.doubleToLongBits(" + value
+					+ ") ^ (Double.doubleToLongBits(" + value + ") >>> 32))";
+		}
+
+		if (isPrimitive(type)) {
+			return value;
+		}
+
+		return "(" + value + " == null ? 0 : " + value + ".hashCode())";
+	}
+
+	/**
+	 * @return The condition that compares two values of the given type.
+	 */
+	static String renderEquals(String type, String value, String other) {
+
+		if (type.endsWith("[]")) {
+			return "java.util.Arrays." + (isPrimitiveArray(type) ? "equals" : "deepEquals")
+					+ "(" + value + ", " + other + ")";
+		}
+
+		if (isPrimitive(type)) {
+			return value + " == " + other;
+		}
+
+		return "(" + value + " == null ? " + other + " == null : " + value
+				+ ".equals(" + other + "))";
+	}
+
+	private static boolean isPrimitiveArray(String type) {
+		String elementType = type.substring(0, type.length() - 2).trim();
+		return isPrimitive(elementType);
+	}
+
+	private static boolean isPrimitive(String type) {
+		return type.equals("boolean") || type.equals("byte")
+				|| type.equals("short") || type.equals("char")
+				|| type.equals("int") || type.equals("long")
+				|| type.equals("float") || type.equals("double");
+	}
+
+	/**
+	 * @return The <code>throws</code> clause of the given exceptions, or an
+	 *         empty string.
+	 */
+	static String renderExceptions(Set<String> exceptions) {
+
+		if (exceptions.isEmpty()) {
+			return "";
+		}
+
+		StringBuilder result = new StringBuilder(" throws ");
+
+		for (Iterator<String> exception = exceptions.iterator(); exception.hasNext();) {
+
+			result.append(exception.next());
+
+			if (exception.hasNext()) {
+				result.append(", ");
+			}
+		}
+
+		return result.toString();
+	}
+
+}
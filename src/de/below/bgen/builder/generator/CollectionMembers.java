@@ -0,0 +1,378 @@
+package de.below.bgen.builder.generator;
+
+import java.util.List;
+import java.util.Set;
+
+import de.below.bgen.util.CodeGenUtils;
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+import de.below.codegen.MethodBuilder.InMethodStep;
+
+/**
+ * Renders the members of a builder that handle its list, set, map and array
+ * properties, as enabled by {@link BuilderOption#COPY_ON_WRITE_COLLECTIONS},
+ * {@link BuilderOption#COLLECTION_SETTERS} and
+ * {@link BuilderOption#ADOPTING_SETTERS}.
+ *
+ * <p>
+ * A collection that the builder did not create itself is <em>shared</em>: it
+ * has been passed to a setter, taken over by <code>buildUpon</code> or handed
+ * to a built object. Adders copy a shared collection once, and add to the
+ * copy. Arrays are also tracked by the number of their used elements: an
+ * adder grows a full array by copying it, and copies a shared one before it
+ * writes to it. Each build hands out its own array, so an array that has been
+ * handed out is never written again, nor handed to another built object.
+ * </p>
+ *
+ * @author martin
+ */
+final class CollectionMembers {
+
+	private static final MemberTemplate ADDER = MemberTemplate.compile(
+			"${modifiers} ${returnType} ${adder}(${parameters}) {\n"
+			+ "\tif (this.${shared} || this.${name} == null) {\n"
+			+ "\t\tthis.${name} = this.${name} == null ? ${create} : ${copy};\n"
+			+ "\t\tthis.${shared} = false;\n"
+			+ "\t}\n"
+			+ "\tthis.${name}.${operation}(${arguments});\n",
+			"modifiers", "returnType", "adder", "parameters", "shared", "name",
+			"create", "copy", "operation", "arguments");
+
+	private static final MemberTemplate ARRAY_ADDER = MemberTemplate.compile(
+			"${modifiers} ${returnType} ${adder}(${type} ${element}) {\n"
+			+ "\tif (this.${shared} || this.${name} == null || this.${count} == this.${name}.length) {\n"
+			+ "\t\tthis.${name} = this.${name} == null ? ${create}"
+			+ " : java.util.Arrays.copyOf(this.${name}, Math.max(this.${count} * 2 + 1, this.${capacity}));\n"
+			+ "\t\tthis.${shared} = false;\n"
+			+ "\t}\n"
+			+ "\tthis.${name}[this.${count}++] = ${element};\n",
+			"modifiers", "returnType", "adder", "type", "element", "shared",
+			"name", "count", "create", "capacity");
+
+	private static final MemberTemplate ADOPTER = MemberTemplate.compile(
+			"${modifiers} ${returnType} ${adopter}(${type} ${name}) {\n"
+			+ "\tthis.${name} = ${name};\n",
+			"modifiers", "returnType", "adopter", "type", "name");
+
+	private static final MemberTemplate CAPACITY = MemberTemplate.compile(
+			"${modifiers} ${returnType} ${method}(int capacity) {\n"
+			+ "\tthis.${field} = ${capacity};\n",
+			"modifiers", "returnType", "method", "field", "capacity");
+
+	private static final MemberTemplate CAPACITY_FIELD = MemberTemplate.compile(
+			"private int ${name} = ${capacity};\n", "name", "capacity");
+
+	private static final MemberTemplate WRAP_COLLECTION = MemberTemplate.compile(
+			"if (!this.${shared} && this.${name} != null) {\n"
+			+ "\tthis.${name} = ${unmodifiable};\n"
+			+ "\tthis.${shared} = true;\n"
+			+ "}\n", "shared", "name", "unmodifiable");
+
+	private static final MemberTemplate TRIM_ARRAY = MemberTemplate.compile(
+			"if (this.${name} != null && (this.${shared} || this.${count} != this.${name}.length)) {\n"
+			+ "\tthis.${name} = java.util.Arrays.copyOf(this.${name}, this.${count});\n"
+			+ "}\n"
+			+ "this.${shared} = true;\n", "name", "shared", "count");
+
+	private static final MemberTemplate MARK_SHARED = MemberTemplate.compile(
+			"this.${shared} = true;\n", "shared");
+
+	private final List<Property> properties;
+
+	/**
+	 * The collection type of each property, by ordinal, or <code>null</code>
+	 * for properties that are not handled.
+	 */
+	private final CollectionType[] types;
+
+	private final boolean collectionSetters;
+	private final boolean adoptingSetters;
+
+	private CollectionMembers(List<Property> properties, CollectionType[] types,
+			boolean collectionSetters, boolean adoptingSetters) {
+		this.properties = properties;
+		this.types = types;
+		this.collectionSetters = collectionSetters;
+		this.adoptingSetters = adoptingSetters;
+	}
+
+	/**
+	 * @return The collection members of the given properties, or
+	 *         <code>null</code> if none of them are handled with the given
+	 *         options.
+	 */
+	static CollectionMembers of(PropertyList propertyList,
+			Set<BuilderOption> options) {
+
+		boolean copyOnWrite = options.contains(BuilderOption.COPY_ON_WRITE_COLLECTIONS);
+		boolean collectionSetters = options.contains(BuilderOption.COLLECTION_SETTERS);
+
+		if (!copyOnWrite && !collectionSetters) {
+			return null;
+		}
+
+		List<Property> properties = propertyList.getAll();
+		CollectionType[] types = new CollectionType[properties.size()];
+		boolean found = false;
+
+		for (int i = 0; i < types.length; i++) {
+
+			CollectionType type = CollectionType.of(properties.get(i));
+
+			if (type != null && (collectionSetters || !type.isArray())) {
+				types[i] = type;
+				found = true;
+			}
+		}
+
+		return found ? new CollectionMembers(properties, types,
+				collectionSetters, options.contains(BuilderOption.ADOPTING_SETTERS)) : null;
+	}
+
+	/**
+	 * Creates the fields that track the state of the collections.
+	 */
+	void createFields(InClassStep<JavaCodeWriter> builder) {
+
+		for (int i = 0; i < types.length; i++) {
+
+			if (types[i] == null) {
+				continue;
+			}
+
+			String name = properties.get(i).getName();
+
+			if (types[i].isArray()) {
+				builder.addMember(BuilderRenderer.FIELD, "int",
+						CollectionType.renderCountField(name));
+			}
+
+			builder.addMember(BuilderRenderer.FIELD, "boolean",
+					CollectionType.renderSharedFlag(name));
+
+			if (collectionSetters) {
+				builder.addMember(CAPACITY_FIELD,
+						CollectionType.renderCapacityField(name),
+						String.valueOf(types[i].getDefaultCapacity()));
+			}
+		}
+	}
+
+	/**
+	 * @return The value the setter of the property assigns to its field:
+	 *         the argument itself, or a copy of an array.
+	 */
+	String renderSetterValue(int ordinal) {
+
+		String name = properties.get(ordinal).getName();
+
+		if (types[ordinal] != null && types[ordinal].isArray()) {
+			return name + " == null ? null : " + name + ".clone()";
+		}
+
+		return name;
+	}
+
+	/**
+	 * Creates the statements that the setter of the property executes after
+	 * the assignment.
+	 *
+	 * @param adopted
+	 *            <code>true</code>, if the builder takes the ownership of the
+	 *            given collection.
+	 */
+	void createSetterStatements(int ordinal, boolean adopted,
+			InClassStep<JavaCodeWriter> builder) {
+
+		if (types[ordinal] == null) {
+			return;
+		}
+
+		String name = properties.get(ordinal).getName();
+
+		if (types[ordinal].isArray()) {
+			builder.addMember(BuilderRenderer.STATEMENT, "this."
+					+ CollectionType.renderCountField(name) + " = " + name
+					+ " == null ? 0 : " + name + ".length");
+		}
+
+		// the setter of an array assigns a copy, which the builder owns
+		builder.addMember(BuilderRenderer.STATEMENT, "this."
+				+ CollectionType.renderSharedFlag(name) + " = "
+				+ !(adopted || types[ordinal].isArray()));
+	}
+
+	/**
+	 * Creates the adders, the adopting setters and the capacity setters.
+	 *
+	 * @param modifiers
+	 *            The modifiers of the methods.
+	 * @param returnType
+	 *            The return type of the methods, the builder or
+	 *            <code>void</code>.
+	 * @param presence
+	 *            The mask that tracks the assigned properties, or
+	 *            <code>null</code> if they are not tracked.
+	 */
+	void createMethods(InClassStep<JavaCodeWriter> builder, String modifiers,
+			String returnType, PresenceMask presence) {
+
+		MemberTemplate end = returnType.equals("void") ? BuilderRenderer.END_SETTER
+				: BuilderRenderer.END_FLUENT_SETTER;
+
+		for (int i = 0; i < types.length; i++) {
+
+			if (types[i] == null) {
+				continue;
+			}
+
+			Property property = properties.get(i);
+
+			if (collectionSetters && adoptingSetters) {
+				createAdopter(i, builder, modifiers, returnType, presence);
+				builder.addMember(end);
+			}
+
+			createAdder(i, builder, modifiers, returnType);
+
+			if (presence != null) {
+				builder.addMember(BuilderRenderer.STATEMENT, presence.renderMark(i));
+			}
+
+			builder.addMember(end);
+
+			if (collectionSetters) {
+				String field = CollectionType.renderCapacityField(property.getName());
+				builder.addMember(CAPACITY, modifiers, returnType, field, field,
+						types[i].renderCapacity("capacity"));
+				builder.addMember(end);
+			}
+		}
+	}
+
+	private void createAdopter(int ordinal, InClassStep<JavaCodeWriter> builder,
+			String modifiers, String returnType, PresenceMask presence) {
+
+		Property property = properties.get(ordinal);
+
+		builder.addMember(ADOPTER, modifiers, returnType,
+				"adopt" + CodeGenUtils.capitalize(property.getName()),
+				property.getType(), property.getName());
+
+		if (presence != null) {
+			builder.addMember(BuilderRenderer.STATEMENT, presence.renderMark(ordinal));
+		}
+
+		createSetterStatements(ordinal, true, builder);
+	}
+
+	private void createAdder(int ordinal, InClassStep<JavaCodeWriter> builder,
+			String modifiers, String returnType) {
+
+		CollectionType type = types[ordinal];
+		String name = properties.get(ordinal).getName();
+		String element = CollectionType.singular(name);
+		String capacity = CollectionType.renderCapacityField(name);
+
+		if (type.isArray()) {
+			builder.addMember(ARRAY_ADDER, modifiers, returnType,
+					type.renderAdderName(name), type.getElementType(), element,
+					CollectionType.renderSharedFlag(name), name,
+					CollectionType.renderCountField(name),
+					type.renderNew("Math.max(1, this." + capacity + ")"),
+					capacity);
+			return;
+		}
+
+		builder.addMember(ADDER, modifiers, returnType,
+				type.renderAdderName(name),
+				type.renderAdderParameters(element),
+				CollectionType.renderSharedFlag(name), name,
+				collectionSetters ? type.renderNew("this." + capacity) : type.renderNew(),
+				type.renderCopy("this." + name), type.getOperation(),
+				type.renderAdderArguments(element));
+	}
+
+	/**
+	 * Renders the statements that prepare the collections before they are
+	 * handed to the built object: collections the builder created are
+	 * wrapped in unmodifiable views, once, and arrays are trimmed to their
+	 * elements, or copied if they have been handed out before.
+	 */
+	void renderBeforeBuild(InMethodStep<InClassStep<JavaCodeWriter>> method) {
+
+		if (!collectionSetters) {
+			return;
+		}
+
+		for (int i = 0; i < types.length; i++) {
+
+			if (types[i] == null) {
+				continue;
+			}
+
+			String name = properties.get(i).getName();
+
+			if (types[i].isArray()) {
+				method.addStatements(TRIM_ARRAY, name,
+						CollectionType.renderSharedFlag(name),
+						CollectionType.renderCountField(name));
+			}
+			else {
+				method.addStatements(WRAP_COLLECTION,
+						CollectionType.renderSharedFlag(name), name,
+						types[i].renderUnmodifiable("this." + name));
+			}
+		}
+	}
+
+	/**
+	 * Renders the statements that mark the collections as shared after they
+	 * have been handed to the built object, unless they have been prepared
+	 * by {@link #renderBeforeBuild(InMethodStep)} already.
+	 */
+	void renderAfterBuild(InMethodStep<InClassStep<JavaCodeWriter>> method) {
+
+		if (collectionSetters) {
+			return;
+		}
+
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] != null) {
+				method.addStatements(MARK_SHARED,
+						CollectionType.renderSharedFlag(properties.get(i).getName()));
+			}
+		}
+	}
+
+	/**
+	 * Creates the statements that reset the state of the collections.
+	 */
+	void createResetStatements(InClassStep<JavaCodeWriter> builder) {
+
+		for (int i = 0; i < types.length; i++) {
+
+			if (types[i] == null) {
+				continue;
+			}
+
+			String name = properties.get(i).getName();
+
+			if (types[i].isArray()) {
+				builder.addMember(BuilderRenderer.STATEMENT, "this."
+						+ CollectionType.renderCountField(name) + " = 0");
+			}
+
+			builder.addMember(BuilderRenderer.STATEMENT, "this."
+					+ CollectionType.renderSharedFlag(name) + " = false");
+
+			if (collectionSetters) {
+				builder.addMember(BuilderRenderer.STATEMENT, "this."
+						+ CollectionType.renderCapacityField(name) + " = "
+						+ types[i].getDefaultCapacity());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,423 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.below.bgen.util.CodeGenUtils;
+
+/**
+ * The type of a property that is a <code>List</code>, <code>Set</code>,
+ * <code>Map</code> or an array, for which a builder can render adders. This
+ * class parses the type arguments from the declared type of the property and
+ * renders the source fragments that create and copy the collections of the
+ * builder.
+ *
+ * <p>
+ * Only the interfaces themselves qualify, with or without package and type
+ * arguments. Types with wildcard arguments do not, since nothing could be
+ * added to them, and neither do arrays of generic types, since they can not
+ * be created.
+ * </p>
+ *
+ * @author martin
+ */
+final class CollectionType {
+
+	/**
+	 * Plurals of words that end in <code>s</code>, which append
+	 * <code>es</code> like <code>aliases</code>. Other plurals ending in
+	 * <code>ses</code> append <code>s</code> to a silent <code>e</code>, like
+	 * <code>cases</code>.
+	 */
+	private static final String[] SIBILANT_S_PLURALS = { "aliases",
+			"atlases", "biases", "bonuses", "buses", "campuses", "canvases",
+			"censuses", "gases", "lenses", "statuses", "viruses" };
+
+	/**
+	 * Plurals of words that end in a silent <code>che</code>. Other plurals
+	 * ending in <code>ches</code> append <code>es</code>, like
+	 * <code>matches</code>.
+	 */
+	private static final String[] SILENT_E_CHE_PLURALS = { "aches",
+			"avalanches", "caches", "cliches", "headaches", "moustaches", "niches",
+			"quiches" };
+
+	/**
+	 * The supported interfaces, with the implementation the builder creates.
+	 */
+	enum Kind {
+
+		LIST("java.util.List", "java.util.ArrayList", 1, "add", "unmodifiableList", 10),
+
+		SET("java.util.Set", "java.util.LinkedHashSet", 1, "add", "unmodifiableSet", 16),
+
+		MAP("java.util.Map", "java.util.LinkedHashMap", 2, "put", "unmodifiableMap", 16),
+
+		ARRAY(null, null, 1, "add", null, 10);
+
+		private final String interfaceName;
+		private final String implementation;
+		private final int typeArguments;
+		private final String operation;
+		private final String unmodifiable;
+		private final int defaultCapacity;
+
+		private Kind(String interfaceName, String implementation,
+				int typeArguments, String operation, String unmodifiable,
+				int defaultCapacity) {
+			this.interfaceName = interfaceName;
+			this.implementation = implementation;
+			this.typeArguments = typeArguments;
+			this.operation = operation;
+			this.unmodifiable = unmodifiable;
+			this.defaultCapacity = defaultCapacity;
+		}
+
+		private boolean matches(String rawType) {
+			return interfaceName != null
+					&& (rawType.equals(interfaceName) || rawType
+							.equals(interfaceName.substring("java.util.".length())));
+		}
+	}
+
+	private static final String OBJECT = "java.lang.Object";
+
+	private final Kind kind;
+	private final List<String> typeArguments;
+
+	private CollectionType(Kind kind, List<String> typeArguments) {
+		this.kind = kind;
+		this.typeArguments = typeArguments;
+	}
+
+	/**
+	 * @return The collection type of the given property, or <code>null</code>
+	 *         if it is not a supported collection.
+	 */
+	static CollectionType of(Property property) {
+		return of(property.getType());
+	}
+
+	/**
+	 * @param type
+	 *            A declared type, like
+	 *            <code>java.util.Map&lt;String, List&lt;Integer&gt;&gt;</code>.
+	 * @return The collection type, or <code>null</code> if the type is not a
+	 *         supported collection.
+	 */
+	static CollectionType of(String type) {
+
+		if (type.endsWith("[]")) {
+
+			String elementType = type.substring(0, type.length() - 2).trim();
+
+			if (elementType.indexOf('<') >= 0) {
+				return null;
+			}
+
+			List<String> arguments = new ArrayList<String>();
+			arguments.add(elementType);
+
+			return new CollectionType(Kind.ARRAY, arguments);
+		}
+
+		int start = type.indexOf('<');
+		String rawType = (start < 0 ? type : type.substring(0, start)).trim();
+
+		for (Kind kind : Kind.values()) {
+
+			if (!kind.matches(rawType)) {
+				continue;
+			}
+
+			List<String> arguments = start < 0 ? rawArguments(kind)
+					: parseArguments(type.substring(start + 1, type.lastIndexOf('>')));
+
+			if (arguments.size() != kind.typeArguments) {
+				return null;
+			}
+
+			for (String argument : arguments) {
+				if (argument.startsWith("?")) {
+					return null;
+				}
+			}
+
+			return new CollectionType(kind, arguments);
+		}
+
+		return null;
+	}
+
+	private static List<String> rawArguments(Kind kind) {
+
+		List<String> result = new ArrayList<String>();
+
+		for (int i = 0; i < kind.typeArguments; i++) {
+			result.add(OBJECT);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Splits type arguments at the commas that are not nested in type
+	 * arguments themselves.
+	 */
+	private static List<String> parseArguments(String arguments) {
+
+		List<String> result = new ArrayList<String>();
+		int depth = 0;
+		int begin = 0;
+
+		for (int i = 0; i < arguments.length(); i++) {
+
+			char c = arguments.charAt(i);
+
+			if (c == '<') {
+				depth++;
+			}
+			else if (c == '>') {
+				depth--;
+			}
+			else if (c == ',' && depth == 0) {
+				result.add(arguments.substring(begin, i).trim());
+				begin = i + 1;
+			}
+		}
+
+		result.add(arguments.substring(begin).trim());
+
+		return result;
+	}
+
+	Kind getKind() {
+		return kind;
+	}
+
+	boolean isArray() {
+		return kind == Kind.ARRAY;
+	}
+
+	/**
+	 * @return The type of the elements of a list, set or array, or the type
+	 *         of the keys of a map.
+	 */
+	String getElementType() {
+		return typeArguments.get(0);
+	}
+
+	/**
+	 * @return The type of the values of a map.
+	 */
+	String getValueType() {
+		return typeArguments.get(1);
+	}
+
+	/**
+	 * @return The method that adds an element, <code>add</code> or
+	 *         <code>put</code>.
+	 */
+	String getOperation() {
+		return kind.operation;
+	}
+
+	/**
+	 * @return The parameters of an adder, e.g. <code>String tag</code>.
+	 */
+	String renderAdderParameters(String elementName) {
+
+		if (kind == Kind.MAP) {
+			return getElementType() + " key, " + getValueType() + " value";
+		}
+
+		return getElementType() + " " + elementName;
+	}
+
+	/**
+	 * @return The arguments the adder passes to {@link #getOperation()}.
+	 */
+	String renderAdderArguments(String elementName) {
+		return kind == Kind.MAP ? "key, value" : elementName;
+	}
+
+	/**
+	 * @return The expression that creates an empty collection with the
+	 *         default capacity.
+	 */
+	String renderNew() {
+		return "new " + getImplementation() + "()";
+	}
+
+	/**
+	 * @param capacity
+	 *            The expression of the capacity, as returned by
+	 *            {@link #renderCapacity(String)}.
+	 * @return The expression that creates an empty collection or an array
+	 *         with the given capacity.
+	 */
+	String renderNew(String capacity) {
+
+		if (isArray()) {
+			String elementType = getElementType();
+			int dimensions = elementType.indexOf('[');
+			return dimensions < 0 ? "new " + elementType + "[" + capacity + "]"
+					: "new " + elementType.substring(0, dimensions) + "["
+							+ capacity + "]" + elementType.substring(dimensions);
+		}
+
+		return "new " + getImplementation() + "(" + capacity + ")";
+	}
+
+	/**
+	 * @return The capacity to create the collection with, for the given
+	 *         expected number of elements. Hash based collections are sized
+	 *         so that they hold that many elements without rehashing.
+	 */
+	String renderCapacity(String expected) {
+
+		if (kind == Kind.SET || kind == Kind.MAP) {
+			return "(int) (" + expected + " / 0.75f) + 1";
+		}
+
+		return expected;
+	}
+
+	/**
+	 * @return The capacity of a collection that is created without hint.
+	 */
+	int getDefaultCapacity() {
+		return kind.defaultCapacity;
+	}
+
+	/**
+	 * @return The expression that wraps the given collection in an
+	 *         unmodifiable view.
+	 */
+	String renderUnmodifiable(String source) {
+		return "java.util.Collections." + kind.unmodifiable + "(" + source + ")";
+	}
+
+	/**
+	 * @return The expression that creates a copy of the given collection.
+	 */
+	String renderCopy(String source) {
+		return "new " + getImplementation() + "(" + source + ")";
+	}
+
+	private String getImplementation() {
+
+		StringBuilder result = new StringBuilder(kind.implementation).append('<');
+
+		for (int i = 0; i < typeArguments.size(); i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(typeArguments.get(i));
+		}
+
+		return result.append('>').toString();
+	}
+
+	/**
+	 * @return The name of the adder of the property, e.g. <code>addTag</code>
+	 *         for <code>tags</code>, or <code>putEntry</code> for the map
+	 *         <code>entries</code>.
+	 */
+	String renderAdderName(String propertyName) {
+		return kind.operation + CodeGenUtils.capitalize(singular(propertyName));
+	}
+
+	/**
+	 * @return The name of one element of the collection property with the
+	 *         given name.
+	 */
+	static String singular(String name) {
+
+		if (name.length() > 3 && name.endsWith("ies")) {
+			return name.substring(0, name.length() - 3) + "y";
+		}
+
+		if (name.length() > 3 && isSibilantPlural(name)) {
+			return name.substring(0, name.length() - 2);
+		}
+
+		if (name.length() > 1 && name.endsWith("s") && !name.endsWith("ss")) {
+			return name.substring(0, name.length() - 1);
+		}
+
+		return name;
+	}
+
+	/**
+	 * @return <code>true</code>, if the name is a plural that appends
+	 *         <code>es</code> to its singular, like <code>addresses</code>,
+	 *         <code>wishes</code>, <code>boxes</code>, <code>buzzes</code>,
+	 *         <code>matches</code> or <code>statuses</code>. Other plurals
+	 *         ending in <code>ses</code> or <code>zes</code>, like
+	 *         <code>phrases</code> or <code>sizes</code>, append
+	 *         <code>s</code> to a singular ending in <code>e</code>.
+	 */
+	private static boolean isSibilantPlural(String name) {
+
+		if (name.endsWith("sses") || name.endsWith("shes")
+				|| name.endsWith("xes") || name.endsWith("zzes")) {
+			return true;
+		}
+
+		if (name.endsWith("ches")) {
+			return !endsWithWord(name, SILENT_E_CHE_PLURALS);
+		}
+
+		return endsWithWord(name, SIBILANT_S_PLURALS);
+	}
+
+	/**
+	 * @return <code>true</code>, if the last word of the camel case name is
+	 *         one of the given words, e.g. <code>emailAliases</code> for
+	 *         <code>aliases</code>, but not <code>abuses</code> for
+	 *         <code>buses</code>.
+	 */
+	private static boolean endsWithWord(String name, String[] words) {
+
+		for (String word : words) {
+
+			int start = name.length() - word.length();
+
+			if (start < 0 || !name.regionMatches(true, start, word, 0, word.length())) {
+				continue;
+			}
+
+			if (start == 0 || Character.isUpperCase(name.charAt(start))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The name of the flag that tells whether the collection of the
+	 *         property is shared with another object.
+	 */
+	static String renderSharedFlag(String propertyName) {
+		return propertyName + "Shared";
+	}
+
+	/**
+	 * @return The name of the field that holds the number of elements of an
+	 *         array property.
+	 */
+	static String renderCountField(String propertyName) {
+		return propertyName + "Count";
+	}
+
+	/**
+	 * @return The name of the field and the method that hold and set the
+	 *         capacity hint of the property.
+	 */
+	static String renderCapacityField(String propertyName) {
+		return propertyName + "Capacity";
+	}
+
+}
@@ -1,7 +1,10 @@
 package de.below.bgen.builder.generator;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import de.below.bgen.codegen.Expression;
 import de.below.codegen.JavaCodeWriter;
@@ -10,13 +13,60 @@ import de.below.codegen.JavaCodeWriter.Tokens;
 /**
  * Misc statements.
  * 
+ * <p>
+ * The expressions are immutable nodes with structural equality, so they can
+ * be compared and used as keys. Fragments that recur in many members can be
+ * {@link #intern(Expression) interned}: equal fragments then share one
+ * instance, whose text is rendered only once.
+ * </p>
+ * 
  * @author martin
  * 
  */
 public class Expressions {
 
-	public final static Expression NULL_LITERAL = new SimpleExpression("null");
+	/**
+	 * Maximum number of interned nodes. When it is exceeded, the table is
+	 * cleared, so long running sessions do not accumulate fragments of
+	 * classes generated long ago.
+	 */
+	private static final int MAX_INTERNED_NODES = 16384;
+
+	private static final ConcurrentMap<Node, Node> NODES = new ConcurrentHashMap<Node, Node>();
+
+	public final static Expression NULL_LITERAL = intern(new Literal("null"));
+
+	/**
+	 * <code>return this</code>, as used by fluent methods.
+	 */
+	public final static Expression RETURN_THIS = intern(new Return(new Name("this")));
+
 	private static final Type SELF = type("this");
+	private static final Expression[] NO_ARGUMENTS = new Expression[0];
+
+	/**
+	 * Call of a static method without arguments on a class.
+	 * 
+	 * @param type
+	 *            the class on which the method should be called.
+	 * @param methodName
+	 *            Name of the method to call.
+	 */
+	public static Expression methodCall(Type type, String methodName) {
+		return methodCall(type.name, methodName, NO_ARGUMENTS);
+	}
+
+	/**
+	 * Call of a method without arguments on an object.
+	 * 
+	 * @param object
+	 *            the object on which the method should be called.
+	 * @param methodName
+	 *            Name of the method to call.
+	 */
+	public static Expression methodCall(ObjectVar object, String methodName) {
+		return methodCall(object.getName(), methodName, NO_ARGUMENTS);
+	}
 	
 	/**
 	 * Call of a static method on a class.
@@ -59,32 +109,10 @@ public class Expressions {
 	 * @param args
 	 *            Method arguments.
 	 */
-	private static Expression methodCall(final String objectOrClass,
-			final String methodName, final Expression... args) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-
-				if (objectOrClass != null) {
-					out.write(objectOrClass).write(Tokens.DOT);
-				}
-
-				out.write(methodName);
-				out.openParenthesis();
-
-				for (int i = 0; i < args.length; i++) {
-
-					if (i > 0) {
-						out.write(Tokens.COMMA);
-					}
-					args[i].render(out);
-				}
-
-				out.closeParenthesis();
-
-			}
-		};
+	private static Expression methodCall(String objectOrClass,
+			String methodName, Expression... args) {
+		return new MethodCall(objectOrClass, methodName,
+				args.length == 0 ? NO_ARGUMENTS : args.clone());
 	}
 
 	/**
@@ -124,35 +152,16 @@ public class Expressions {
 	/**
 	 * A String literal.
 	 */
-	public static Expression stringLiteral(final String str) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(Tokens.DOUBLE_QUOTE).write(str)
-						.write(Tokens.DOUBLE_QUOTE);
-			}
-
-		};
+	public static Expression stringLiteral(String str) {
+		return new Literal(Tokens.DOUBLE_QUOTE + str + Tokens.DOUBLE_QUOTE);
 	}
 
 	/**
-	 * Creates an expressions from a string.
-	 * 
-	 * @author martin
+	 * An expression given as source code, e.g. a literal that has no factory
+	 * method of its own.
 	 */
-	private final static class SimpleExpression implements Expression {
-
-		private final String expr;
-
-		public SimpleExpression(String expr) {
-			this.expr = expr;
-		}
-
-		@Override
-		public void render(JavaCodeWriter out) {
-			out.write(expr);
-		}
+	public static Expression literal(String code) {
+		return new Literal(code);
 	}
 
 	/**
@@ -166,18 +175,9 @@ public class Expressions {
 	 * @param value
 	 *            The value to assign
 	 */
-	public static Expression assignment(final Type objectOrClass,
-			final Variable var, final Expression value) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(objectOrClass.name).write(Tokens.DOT);
-				var.render(out);
-				out.spc().writeWs(Tokens.EQUAL);
-				value.render(out);
-			}
-		};
+	public static Expression assignment(Type objectOrClass,
+			Variable var, Expression value) {
+		return new Assignment(objectOrClass.name, var, value);
 	}
 
 	/**
@@ -188,17 +188,9 @@ public class Expressions {
 	 * @param value
 	 *            The value to assign.
 	 */
-	public static Expression assignment(final Variable variable,
-			final Expression value) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				variable.render(out);
-				out.spc().writeWs(Tokens.EQUAL);
-				value.render(out);
-			}
-		};
+	public static Expression assignment(Variable variable,
+			Expression value) {
+		return new Assignment(null, variable, value);
 	}
 
 	/**
@@ -211,16 +203,9 @@ public class Expressions {
 	 * @param value
 	 *            The expression to assign.
 	 */
-	public static Expression declarationWithAssignment(final Type type,
-			final Variable variable, final Expression value) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.writeWs(type.name);
-				assignment(variable, value).render(out);
-			}
-		};
+	public static Expression declarationWithAssignment(Type type,
+			Variable variable, Expression value) {
+		return new Declaration(type, assignment(variable, value));
 	}
 
 	/**
@@ -229,14 +214,8 @@ public class Expressions {
 	 * @param number
 	 *            The number. If <code>null</code>, zero is applied.
 	 */
-	public static Expression numberLiteral(final Number number) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(number == null ? "0" : number.toString());
-			}
-		};
+	public static Expression numberLiteral(Number number) {
+		return new Literal(number == null ? "0" : number.toString());
 	}
 
 	/**
@@ -245,15 +224,8 @@ public class Expressions {
 	 * @param value
 	 *            The expression to return.
 	 */
-	public static Expression returnStatement(final Expression value) {
-		return new Expression() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.writeWs(Tokens.RETURN);
-				value.render(out);
-			}
-		};
+	public static Expression returnStatement(Expression value) {
+		return new Return(value);
 	}
 
 	/**
@@ -262,37 +234,20 @@ public class Expressions {
 	 * @param name
 	 *            name of the variable.
 	 */
-	public static Variable variable(final String name) {
-		return new Variable() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(name);
-			}
-
-			@Override
-			public String getName() {
-				return name;
-			}
-		};
+	public static Variable variable(String name) {
+		return new Name(name);
 	}
 	
-	public static Variable field(final Type type, final String name) {
-		
-		return new Variable() {
-
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(type.name).write(Tokens.DOT).write(name);
-			}
+	public static Variable field(Type type, String name) {
+		return new FieldAccess(type, name);
+	}
 
-			@Override
-			public String getName() {
-				return type.name + Tokens.DOT + name;
-			}
-			
-		};
-		
+	/**
+	 * A constructor call without arguments.
+	 * @param type The class to instantiate. 
+	 */
+	public static Expression instantiation(Type type) {
+		return instantiation(type, NO_ARGUMENTS);
 	}
 
 	/**
@@ -301,16 +256,9 @@ public class Expressions {
 	 * @param args the arguments.
 	 * @return
 	 */
-	public static Expression instantiation(final Type type,
-			final Expression... args) {
-		return new Expression() {
-			
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.writeWs(Tokens.NEW);
-				methodCall((String)null, type.name, args).render(out);
-			}
-		};
+	public static Expression instantiation(Type type,
+			Expression... args) {
+		return new Instantiation(methodCall((String) null, type.name, args));
 	}
 
 	/**
@@ -343,6 +291,21 @@ public class Expressions {
 		public Type(String name) {
 			this.name = name;
 		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Type && name.equals(((Type) obj).name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
 	}
 	
 	public static Type type(String name) {
@@ -357,23 +320,403 @@ public class Expressions {
 	 * An object instance.
 	 * @param name The name of the object.
 	 */
-	public static ObjectVar object(final String name) {
-		return new ObjectVar() {
-			
-			@Override
-			public void render(JavaCodeWriter out) {
-				out.write(name);
+	public static ObjectVar object(String name) {
+		return new Name(name);
+	}
+
+	/**
+	 * Returns the shared instance of an expression: the expression that was
+	 * interned before and is equal to the given one, or the given one, which
+	 * is interned. The text of interned expressions is rendered only once.
+	 * 
+	 * <p>
+	 * Interning costs a table lookup, so it pays off for fragments that recur
+	 * in many members or classes, like <code>return this</code>, not for
+	 * fragments that depend on a single property.
+	 * </p>
+	 * 
+	 * @param expression
+	 *            An expression created by this class. Other expressions are
+	 *            returned as they are.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends Expression> E intern(E expression) {
+
+		if (!(expression instanceof Node)) {
+			return expression;
+		}
+
+		Node node = (Node) expression;
+		Node existing = NODES.get(node);
+
+		if (existing == null) {
+			node.cacheText();
+			existing = NODES.putIfAbsent(node, node);
+		}
+
+		if (existing != null) {
+			return (E) existing;
+		}
+
+		if (NODES.size() > MAX_INTERNED_NODES) {
+			NODES.clear();
+		}
+
+		return expression;
+	}
+
+	/**
+	 * An immutable expression node. Its hash code is computed once on
+	 * creation, its text when it is interned.
+	 * 
+	 * @author martin
+	 */
+	private static abstract class Node implements Expression {
+
+		private final int hash;
+		private String text;
+
+		Node(int hash) {
+			this.hash = hash;
+		}
+
+		/**
+		 * Renders the node token by token.
+		 */
+		abstract void renderNode(JavaCodeWriter out);
+
+		@Override
+		public final void render(JavaCodeWriter out) {
+
+			String cached = text;
+
+			if (cached != null) {
+				out.write(cached);
+			}
+			else {
+				renderNode(out);
+			}
+		}
+
+		/**
+		 * Caches the text of a node that is interned, so it is rendered only
+		 * once.
+		 */
+		final void cacheText() {
+			if (text == null) {
+				text = getText();
+			}
+		}
+
+		final String getText() {
+
+			String cached = text;
+
+			if (cached != null) {
+				return cached;
+			}
+
+			JavaCodeWriter out = JavaCodeWriter.create();
+			renderNode(out);
+			return out.render();
+		}
+
+		@Override
+		public final boolean equals(Object obj) {
+
+			if (obj == this) {
+				return true;
 			}
-			
-			@Override
-			public String getName() {
-				return name;
+
+			if (obj == null || obj.getClass() != getClass()
+					|| ((Node) obj).hash != hash) {
+				return false;
 			}
-		};
+
+			return equalTo(obj);
+		}
+
+		/**
+		 * Compares the content of this node with a node of the same class.
+		 */
+		abstract boolean equalTo(Object other);
+
+		@Override
+		public final int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public String toString() {
+			return getText();
+		}
 	}
-	
-	
-	
 
-}
+	/**
+	 * An expression given as text, e.g. a literal.
+	 * 
+	 * @author martin
+	 */
+	private static final class Literal extends Node {
+
+		private final String expr;
+
+		Literal(String expr) {
+			super(expr.hashCode());
+			this.expr = expr;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.write(expr);
+		}
+
+		@Override
+		boolean equalTo(Object other) {
+			return expr.equals(((Literal) other).expr);
+		}
+	}
+
+	/**
+	 * A local variable or object.
+	 * 
+	 * @author martin
+	 */
+	private static final class Name extends Node implements ObjectVar {
+
+		private final String name;
+
+		Name(String name) {
+			super(31 * name.hashCode() + 1);
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.write(name);
+		}
+
+		@Override
+		boolean equalTo(Object other) {
+			return name.equals(((Name) other).name);
+		}
+	}
+
+	/**
+	 * A field on a type or object.
+	 * 
+	 * @author martin
+	 */
+	private static final class FieldAccess extends Node implements Variable {
+
+		private final Type type;
+		private final String name;
+
+		FieldAccess(Type type, String name) {
+			super(31 * type.hashCode() + name.hashCode());
+			this.type = type;
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return getText();
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.write(type.name).write(Tokens.DOT).write(name);
+		}
+
+		@Override
+		boolean equalTo(Object obj) {
+			FieldAccess other = (FieldAccess) obj;
+			return type.equals(other.type) && name.equals(other.name);
+		}
+	}
+
+	/**
+	 * A method call, optionally on an object or class.
+	 * 
+	 * @author martin
+	 */
+	private static final class MethodCall extends Node {
+
+		private final String objectOrClass;
+		private final String methodName;
+		private final Expression[] args;
+
+		MethodCall(String objectOrClass, String methodName, Expression[] args) {
+			super(31 * (31 * hash(objectOrClass) + methodName.hashCode())
+					+ Arrays.hashCode(args));
+			this.objectOrClass = objectOrClass;
+			this.methodName = methodName;
+			this.args = args;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+
+			if (objectOrClass != null) {
+				out.write(objectOrClass).write(Tokens.DOT);
+			}
+
+			out.write(methodName);
+			out.openParenthesis();
+
+			for (int i = 0; i < args.length; i++) {
+
+				if (i > 0) {
+					out.write(Tokens.COMMA);
+				}
+				args[i].render(out);
+			}
+
+			out.closeParenthesis();
+		}
+
+		@Override
+		boolean equalTo(Object obj) {
+			MethodCall other = (MethodCall) obj;
+			return equal(objectOrClass, other.objectOrClass)
+					&& methodName.equals(other.methodName)
+					&& Arrays.equals(args, other.args);
+		}
+	}
+
+	/**
+	 * A constructor call.
+	 * 
+	 * @author martin
+	 */
+	private static final class Instantiation extends Node {
+
+		private final Expression call;
+
+		Instantiation(Expression call) {
+			super(31 * call.hashCode() + 2);
+			this.call = call;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.writeWs(Tokens.NEW);
+			call.render(out);
+		}
+
+		@Override
+		boolean equalTo(Object other) {
+			return call.equals(((Instantiation) other).call);
+		}
+	}
+
+	/**
+	 * An assignment to a variable, optionally on an object or class.
+	 * 
+	 * @author martin
+	 */
+	private static final class Assignment extends Node {
+
+		private final String objectOrClass;
+		private final Variable variable;
+		private final Expression value;
+
+		Assignment(String objectOrClass, Variable variable, Expression value) {
+			super(31 * (31 * hash(objectOrClass) + variable.hashCode())
+					+ value.hashCode());
+			this.objectOrClass = objectOrClass;
+			this.variable = variable;
+			this.value = value;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+
+			if (objectOrClass != null) {
+				out.write(objectOrClass).write(Tokens.DOT);
+			}
+
+			variable.render(out);
+			out.spc().writeWs(Tokens.EQUAL);
+			value.render(out);
+		}
+
+		@Override
+		boolean equalTo(Object obj) {
+			Assignment other = (Assignment) obj;
+			return equal(objectOrClass, other.objectOrClass)
+					&& variable.equals(other.variable)
+					&& value.equals(other.value);
+		}
+	}
+
+	/**
+	 * A variable declaration with an initial assignment.
+	 * 
+	 * @author martin
+	 */
+	private static final class Declaration extends Node {
+
+		private final Type type;
+		private final Expression assignment;
+
+		Declaration(Type type, Expression assignment) {
+			super(31 * type.hashCode() + assignment.hashCode());
+			this.type = type;
+			this.assignment = assignment;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.writeWs(type.name);
+			assignment.render(out);
+		}
+
+		@Override
+		boolean equalTo(Object obj) {
+			Declaration other = (Declaration) obj;
+			return type.equals(other.type)
+					&& assignment.equals(other.assignment);
+		}
+	}
+
+	/**
+	 * A return statement.
+	 * 
+	 * @author martin
+	 */
+	private static final class Return extends Node {
+
+		private final Expression value;
+
+		Return(Expression value) {
+			super(31 * value.hashCode() + 3);
+			this.value = value;
+		}
+
+		@Override
+		void renderNode(JavaCodeWriter out) {
+			out.writeWs(Tokens.RETURN);
+			value.render(out);
+		}
 
+		@Override
+		boolean equalTo(Object other) {
+			return value.equals(((Return) other).value);
+		}
+	}
+
+	private static int hash(Object object) {
+		return object == null ? 0 : object.hashCode();
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+}
@@ -0,0 +1,77 @@
+package de.below.bgen.builder.generator;
+
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * The generation of a single builder within a batch, split into the phases of
+ * {@link BuilderGenerator}.
+ *
+ * @author martin
+ */
+class GenerationTask {
+
+	private final IType sourceType;
+	private final BuilderGenerator generator;
+	private final BuilderModel model;
+	private final boolean upToDate;
+	private String source;
+	private RuntimeException renderFailure;
+
+	GenerationTask(IType sourceType, BuilderGenerator generator,
+			BuilderModel model) throws JavaModelException {
+		this.sourceType = sourceType;
+		this.generator = generator;
+		this.model = model;
+		this.upToDate = generator.isUpToDate(sourceType, model);
+	}
+
+	IType getSourceType() {
+		return sourceType;
+	}
+
+	/**
+	 * @return <code>true</code>, if the existing builder has been generated
+	 *         from the same fingerprint, so it does not need to be generated
+	 *         again.
+	 */
+	boolean isUpToDate() {
+		return upToDate;
+	}
+
+	/**
+	 * Renders the builder source. Does not access the java model, so this may
+	 * be called from any thread. Failures are recorded instead of thrown, so
+	 * one broken type does not abort the whole batch.
+	 */
+	void render() {
+		try {
+			source = generator.render(model);
+		}
+		catch (RuntimeException e) {
+			renderFailure = e;
+		}
+	}
+
+	/**
+	 * @return The exception that occurred while rendering, or
+	 *         <code>null</code>.
+	 */
+	RuntimeException getRenderFailure() {
+		return renderFailure;
+	}
+
+	/**
+	 * Creates the rendered builder in the workspace.
+	 */
+	IType apply() throws JavaModelException {
+
+		if (source == null) {
+			throw new IllegalStateException("builder for "
+					+ sourceType.getElementName() + " has not been rendered");
+		}
+
+		return generator.apply(sourceType, model, source);
+	}
+
+}
@@ -0,0 +1,231 @@
+package de.below.bgen.builder.generator;
+
+import java.util.List;
+
+/**
+ * The layout of the bitmask in which a generated builder tracks which of its
+ * properties have been assigned. The bit of a property is its index in
+ * {@link PropertyList#getAll()}.
+ * 
+ * <p>
+ * Builders with up to 32 properties use an <code>int</code>, builders with
+ * up to 64 properties a <code>long</code>, larger builders a
+ * <code>long[]</code> with one word per 64 properties. This class renders the
+ * source fragments that declare, set and test the bits.
+ * </p>
+ * 
+ * @author martin
+ */
+final class PresenceMask {
+
+	/**
+	 * The field of the builder that holds the mask.
+	 */
+	static final String FIELD_NAME = "assignedMask";
+
+	/**
+	 * The constant of the builder that holds the bits of the mandatory
+	 * properties.
+	 */
+	static final String MANDATORY_NAME = "MANDATORY_MASK";
+
+	private static final int INT_BITS = 32;
+	private static final int LONG_BITS = 64;
+
+	private final int size;
+	private final long[] mandatory;
+
+	private PresenceMask(int size, long[] mandatory) {
+		this.size = size;
+		this.mandatory = mandatory;
+	}
+
+	/**
+	 * Creates the mask for the properties of a builder.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If a mandatory property is not a property of the builder, or
+	 *             a property clashes with the name of the mask field.
+	 */
+	static PresenceMask of(BuilderModel model) {
+
+		List<Property> properties = model.getProperties().getAll();
+		long[] mandatory = new long[Math.max(1, (properties.size() + LONG_BITS - 1) / LONG_BITS)];
+
+		for (String name : model.getMandatoryProperties()) {
+
+			int ordinal = indexOf(properties, name);
+
+			if (ordinal < 0) {
+				throw new IllegalArgumentException("unknown mandatory property: " + name);
+			}
+
+			mandatory[ordinal / LONG_BITS] |= 1L << (ordinal % LONG_BITS);
+		}
+
+		if (indexOf(properties, FIELD_NAME) >= 0) {
+			throw new IllegalArgumentException("property " + FIELD_NAME
+					+ " clashes with the presence mask of the builder");
+		}
+
+		return new PresenceMask(properties.size(), mandatory);
+	}
+
+	private static int indexOf(List<Property> properties, String name) {
+
+		for (int i = 0; i < properties.size(); i++) {
+			if (properties.get(i).getName().equals(name)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return <code>true</code>, if at least one property is mandatory.
+	 */
+	boolean hasMandatoryProperties() {
+
+		for (long word : mandatory) {
+			if (word != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code>, if the property with the given ordinal is
+	 *         mandatory.
+	 */
+	boolean isMandatory(int ordinal) {
+		return (mandatory[ordinal / LONG_BITS] & (1L << (ordinal % LONG_BITS))) != 0;
+	}
+
+	boolean isArray() {
+		return size > LONG_BITS;
+	}
+
+	/**
+	 * @return The type of the mask field.
+	 */
+	String getType() {
+		if (isArray()) {
+			return "long[]";
+		}
+		return size > INT_BITS ? "long" : "int";
+	}
+
+	/**
+	 * @return The initial value of the mask field, or <code>null</code> if
+	 *         it is a primitive that starts with zero.
+	 */
+	String getInitializer() {
+		return isArray() ? "new long[" + mandatory.length + "]" : null;
+	}
+
+	/**
+	 * @return The value of the {@link #MANDATORY_NAME} constant.
+	 */
+	String getMandatoryInitializer() {
+
+		if (!isArray()) {
+			return literal(mandatory[0]);
+		}
+
+		StringBuilder result = new StringBuilder("{ ");
+
+		for (int i = 0; i < mandatory.length; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(literal(mandatory[i]));
+		}
+
+		return result.append(" }").toString();
+	}
+
+	/**
+	 * @return The statement that marks the property as assigned, without
+	 *         semicolon.
+	 */
+	String renderMark(int ordinal) {
+		return word(ordinal) + " |= " + bit(ordinal);
+	}
+
+	/**
+	 * @return The condition that is <code>true</code>, if the property has
+	 *         been assigned.
+	 */
+	String renderIsAssigned(int ordinal) {
+		return "(" + word(ordinal) + " & " + bit(ordinal) + ") != 0";
+	}
+
+	/**
+	 * @return The condition that is <code>true</code>, if the property has
+	 *         not been assigned.
+	 */
+	String renderIsUnassigned(int ordinal) {
+		return "(" + word(ordinal) + " & " + bit(ordinal) + ") == 0";
+	}
+
+	/**
+	 * @return The condition that is <code>true</code>, if a mandatory
+	 *         property has not been assigned. Compares one word per 64
+	 *         properties, but only words that contain mandatory properties.
+	 */
+	String renderMandatoryMissing() {
+
+		if (!isArray()) {
+			return "(" + FIELD_NAME + " & " + MANDATORY_NAME + ") != " + MANDATORY_NAME;
+		}
+
+		StringBuilder result = new StringBuilder();
+
+		for (int i = 0; i < mandatory.length; i++) {
+
+			if (mandatory[i] == 0) {
+				continue;
+			}
+
+			if (result.length() > 0) {
+				result.append(" || ");
+			}
+
+			String word = "[" + i + "]";
+			result.append('(').append(FIELD_NAME).append(word).append(" & ")
+					.append(MANDATORY_NAME).append(word).append(") != ")
+					.append(MANDATORY_NAME).append(word);
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * @return The statement that clears all bits, without semicolon.
+	 */
+	String renderClear() {
+		return isArray() ? "java.util.Arrays.fill(" + FIELD_NAME + ", 0L)"
+				: FIELD_NAME + " = 0";
+	}
+
+	private String word(int ordinal) {
+		return isArray() ? FIELD_NAME + "[" + (ordinal / LONG_BITS) + "]" : FIELD_NAME;
+	}
+
+	private String bit(int ordinal) {
+		return literal(1L << (ordinal % LONG_BITS));
+	}
+
+	private String literal(long bits) {
+
+		if (getType().equals("int")) {
+			return "0x" + Integer.toHexString((int) bits);
+		}
+
+		return "0x" + Long.toHexString(bits) + "L";
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.below.bgen.builder.generator;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+
+/**
+ * Decides how a builder with {@link BuilderOption#PRIMITIVE_STORAGE} stores
+ * the properties of wrapper types like <code>Integer</code>, and renders the
+ * source fragments that read and write them.
+ *
+ * <p>
+ * Such a property is held in a field of the primitive type, together with a
+ * flag like <code>agePresent</code> that tells whether it holds a value or
+ * <code>null</code>. The setter for the wrapper type unboxes its argument,
+ * and an overload for the primitive type stores it without boxing. The value
+ * is boxed once, when it is passed to the target type.
+ * </p>
+ *
+ * @author martin
+ */
+final class PrimitiveStorage {
+
+	private static final Map<String, String> PRIMITIVES = new HashMap<String, String>();
+
+	static {
+		String[][] types = { { "Boolean", "boolean" }, { "Byte", "byte" },
+				{ "Short", "short" }, { "Character", "char" },
+				{ "Integer", "int" }, { "Long", "long" }, { "Float", "float" },
+				{ "Double", "double" } };
+
+		for (String[] type : types) {
+			PRIMITIVES.put(type[0], type[1]);
+			PRIMITIVES.put("java.lang." + type[0], type[1]);
+		}
+	}
+
+	/**
+	 * The primitive type of each stored property, by property name.
+	 */
+	private final Map<String, String> primitives;
+
+	private PrimitiveStorage(Map<String, String> primitives) {
+		this.primitives = primitives;
+	}
+
+	/**
+	 * @return The storage of the given properties, or <code>null</code> if
+	 *         the option is not set or none of them has a wrapper type.
+	 */
+	static PrimitiveStorage of(PropertyList properties, Set<BuilderOption> options) {
+
+		if (!options.contains(BuilderOption.PRIMITIVE_STORAGE)) {
+			return null;
+		}
+
+		Map<String, String> primitives = new LinkedHashMap<String, String>();
+
+		for (Property property : properties.getAll()) {
+
+			String primitive = PRIMITIVES.get(property.getType());
+
+			if (primitive != null) {
+				primitives.put(property.getName(), primitive);
+			}
+		}
+
+		return primitives.isEmpty() ? null : new PrimitiveStorage(primitives);
+	}
+
+	/**
+	 * @return The primitive type the property is stored as, or
+	 *         <code>null</code> if it is stored as declared.
+	 */
+	String getPrimitive(Property property) {
+		return primitives.get(property.getName());
+	}
+
+	/**
+	 * @return The name of the flag that tells whether the field of the
+	 *         property holds a value.
+	 */
+	static String renderPresentFlag(String propertyName) {
+		return propertyName + "Present";
+	}
+
+	/**
+	 * @return The type of the field of the property.
+	 */
+	String renderFieldType(Property property) {
+		String primitive = getPrimitive(property);
+		return primitive != null ? primitive : property.getType();
+	}
+
+	/**
+	 * @return The value the setter for the declared type assigns to the
+	 *         field of the property.
+	 */
+	String renderSetterValue(Property property) {
+
+		String primitive = getPrimitive(property);
+		String name = property.getName();
+
+		if (primitive == null) {
+			return name;
+		}
+
+		return name + " != null ? " + name + "." + primitive + "Value() : "
+				+ renderDefault(primitive);
+	}
+
+	/**
+	 * @return The expression of the value of the property, as it is passed
+	 *         to the target type.
+	 */
+	String renderValue(Property property) {
+
+		String primitive = getPrimitive(property);
+		String name = property.getName();
+
+		if (primitive == null) {
+			return name;
+		}
+
+		return renderPresentFlag(name) + " ? " + property.getType()
+				+ ".valueOf(" + name + ") : null";
+	}
+
+	/**
+	 * Creates the flags of the stored properties.
+	 */
+	void createFields(InClassStep<JavaCodeWriter> builder) {
+		for (String name : primitives.keySet()) {
+			builder.addMember(BuilderRenderer.FIELD, "boolean", renderPresentFlag(name));
+		}
+	}
+
+	/**
+	 * Creates the statement of the setter for the declared type that updates
+	 * the flag of the property, if it is stored.
+	 */
+	void createSetterStatements(Property property,
+			InClassStep<JavaCodeWriter> builder) {
+
+		if (getPrimitive(property) != null) {
+			builder.addMember(BuilderRenderer.STATEMENT, "this."
+					+ renderPresentFlag(property.getName()) + " = "
+					+ property.getName() + " != null");
+		}
+	}
+
+	/**
+	 * Creates the statements that clear the flags.
+	 */
+	void createResetStatements(InClassStep<JavaCodeWriter> builder) {
+		for (String name : primitives.keySet()) {
+			builder.addMember(BuilderRenderer.STATEMENT, "this."
+					+ renderPresentFlag(name) + " = false");
+		}
+	}
+
+	private static String renderDefault(String primitive) {
+		return primitive.equals("boolean") ? "false" : primitive.equals("char") ? "'\\0'" : "0";
+	}
+
+}
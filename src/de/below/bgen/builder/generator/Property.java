@@ -1,7 +1,6 @@
 package de.below.bgen.builder.generator;
 
-import org.eclipse.jdt.core.IMethod;
-
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
 import de.below.bgen.util.CodeGenUtils;
 import de.below.codegen.Argument;
 
@@ -20,7 +19,7 @@ public abstract class Property extends Argument {
 	 * @author martin
 	 */
 	public static class ConstructorArgument extends Property {
-		private final IMethod constructor;
+		private final MethodDescriptor constructor;
 		private final int index;
 
 		/**
@@ -34,13 +33,13 @@ public abstract class Property extends Argument {
 		 *            The index of the constructor argument, starting at 0.
 		 */
 		public ConstructorArgument(String type, String name,
-				IMethod constructor, int index) {
+				MethodDescriptor constructor, int index) {
 			super(type, name);
 			this.constructor = constructor;
 			this.index = index;
 		}
 
-		public IMethod getConstructor() {
+		public MethodDescriptor getConstructor() {
 			return constructor;
 		}
 
@@ -58,14 +57,14 @@ public abstract class Property extends Argument {
 	 */
 	public static class SetterProperty extends Property {
 
-		private final IMethod setter;
+		private final MethodDescriptor setter;
 
-		SetterProperty(String type, String name, IMethod setter) {
+		SetterProperty(String type, String name, MethodDescriptor setter) {
 			super(type, name);
 			this.setter = setter;
 		}
 
-		public IMethod getSetter() {
+		public MethodDescriptor getSetter() {
 			return setter;
 		}
 
@@ -0,0 +1,238 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+
+/**
+ * Renders the members of a builder that implement
+ * {@link BuilderOption#BINDING_METHODS}: methods that set properties by name
+ * or by ordinal, and that populate the builder from a map or a row of
+ * values.
+ *
+ * <p>
+ * Names are resolved by a <code>switch</code> over their hash codes, which
+ * are computed while rendering, followed by an <code>equals</code> check of
+ * the candidates with that hash code, as the compiler does for a
+ * <code>switch</code> over strings since Java 7. Ordinals are the indexes of
+ * the properties in {@link PropertyList#getAll()}. No reflection is involved,
+ * so binding a value costs a few comparisons and a direct setter call.
+ * </p>
+ *
+ * <p>
+ * A <code>null</code> value for a property of a primitive type, e.g. a SQL
+ * <code>NULL</code> in a row, is rejected with an
+ * <code>IllegalArgumentException</code> that names the property, instead of
+ * failing to unbox it.
+ * </p>
+ *
+ * @author martin
+ */
+final class PropertyBinding {
+
+	private static final MemberTemplate ORDINAL_OF = MemberTemplate.compile(
+			"public static int ordinalOf(String property) {\n"
+			+ "\tswitch (property.hashCode()) {\n");
+
+	private static final MemberTemplate HASH_CASE = MemberTemplate.compile(
+			"\tcase ${hash}:\n", "hash");
+
+	private static final MemberTemplate RETURN_IF_EQUAL = MemberTemplate.compile(
+			"\t\tif (\"${name}\".equals(property)) {\n"
+			+ "\t\t\treturn ${ordinal};\n"
+			+ "\t\t}\n", "name", "ordinal");
+
+	private static final MemberTemplate BREAK = MemberTemplate.compile(
+			"\t\tbreak;\n");
+
+	private static final MemberTemplate END_ORDINAL_OF = MemberTemplate.compile(
+			"\t}\n"
+			+ "\treturn -1;\n"
+			+ "}\n");
+
+	private static final MemberTemplate SET_BY_NAME = MemberTemplate.compile(
+			"${modifiers} ${returnType} set(String property, Object value) {\n"
+			+ "\tint ordinal = ordinalOf(property);\n"
+			+ "\tif (ordinal < 0) {\n"
+			+ "\t\tthrow new IllegalArgumentException(\"unknown property: \" + property);\n"
+			+ "\t}\n"
+			+ "\t${return}set(ordinal, value);\n"
+			+ "}\n", "modifiers", "returnType", "return");
+
+	private static final MemberTemplate UNCHECKED = MemberTemplate.compile(
+			"@SuppressWarnings(\"unchecked\")\n");
+
+	private static final MemberTemplate SET_BY_ORDINAL = MemberTemplate.compile(
+			"${modifiers} ${returnType} set(int ordinal, Object value) {\n"
+			+ "\tswitch (ordinal) {\n", "modifiers", "returnType");
+
+	private static final MemberTemplate ORDINAL_CASE = MemberTemplate.compile(
+			"\tcase ${ordinal}:\n", "ordinal");
+
+	private static final MemberTemplate REJECT_NULL = MemberTemplate.compile(
+			"\t\tif (value == null) {\n"
+			+ "\t\t\tthrow new IllegalArgumentException(\"property ${name} of type ${type} can not be null\");\n"
+			+ "\t\t}\n", "name", "type");
+
+	private static final MemberTemplate FLUENT_CALL = MemberTemplate.compile(
+			"\t\treturn ${call};\n", "call");
+
+	private static final MemberTemplate CALL = MemberTemplate.compile(
+			"\t\t${call};\n"
+			+ "\t\treturn;\n", "call");
+
+	private static final MemberTemplate END_SET_BY_ORDINAL = MemberTemplate.compile(
+			"\tdefault:\n"
+			+ "\t\tthrow new IndexOutOfBoundsException(\"no property with ordinal \" + ordinal);\n"
+			+ "\t}\n"
+			+ "}\n");
+
+	private static final MemberTemplate FROM_MAP = MemberTemplate.compile(
+			"${modifiers} ${returnType} fromMap(java.util.Map<String, ?> values) {\n"
+			+ "\tfor (java.util.Map.Entry<String, ?> entry : values.entrySet()) {\n"
+			+ "\t\tset(entry.getKey(), entry.getValue());\n"
+			+ "\t}\n", "modifiers", "returnType");
+
+	private static final MemberTemplate FROM_ROW = MemberTemplate.compile(
+			"${modifiers} ${returnType} fromRow(Object[] row, int[] columnToProperty) {\n"
+			+ "\tfor (int column = 0; column < row.length; column++) {\n"
+			+ "\t\tint ordinal = columnToProperty[column];\n"
+			+ "\t\tif (ordinal >= 0) {\n"
+			+ "\t\t\tset(ordinal, row[column]);\n"
+			+ "\t\t}\n"
+			+ "\t}\n", "modifiers", "returnType");
+
+	private static final Map<String, String> WRAPPERS = new LinkedHashMap<String, String>();
+
+	static {
+		WRAPPERS.put("boolean", "Boolean");
+		WRAPPERS.put("byte", "Byte");
+		WRAPPERS.put("short", "Short");
+		WRAPPERS.put("char", "Character");
+		WRAPPERS.put("int", "Integer");
+		WRAPPERS.put("long", "Long");
+		WRAPPERS.put("float", "Float");
+		WRAPPERS.put("double", "Double");
+	}
+
+	private final List<Property> properties;
+	private final SetterNamingStrategy setterNaming;
+
+	PropertyBinding(PropertyList properties, SetterNamingStrategy setterNaming) {
+		this.properties = properties.getAll();
+		this.setterNaming = setterNaming;
+	}
+
+	/**
+	 * Creates <code>ordinalOf(String)</code>, <code>set(String, Object)</code>,
+	 * <code>set(int, Object)</code>, <code>fromMap(Map)</code> and
+	 * <code>fromRow(Object[], int[])</code>.
+	 *
+	 * @param modifiers
+	 *            The modifiers of the instance methods.
+	 * @param returnType
+	 *            The return type of the instance methods, the builder or
+	 *            <code>void</code>.
+	 */
+	void createMembers(InClassStep<JavaCodeWriter> builder, String modifiers,
+			String returnType) {
+
+		boolean fluent = !returnType.equals("void");
+		MemberTemplate end = fluent ? BuilderRenderer.END_FLUENT_SETTER
+				: BuilderRenderer.END_SETTER;
+
+		createOrdinalOfMethod(builder);
+
+		builder.addMember(SET_BY_NAME, modifiers, returnType, fluent ? "return " : "");
+
+		createSetByOrdinalMethod(builder, modifiers, returnType, fluent);
+
+		builder.addMember(FROM_MAP, modifiers, returnType);
+		builder.addMember(end);
+
+		builder.addMember(FROM_ROW, modifiers, returnType);
+		builder.addMember(end);
+	}
+
+	private void createOrdinalOfMethod(InClassStep<JavaCodeWriter> builder) {
+
+		builder.addMember(ORDINAL_OF);
+
+		Map<Integer, List<Integer>> ordinalsByHash = new LinkedHashMap<Integer, List<Integer>>();
+
+		for (int i = 0; i < properties.size(); i++) {
+
+			Integer hash = Integer.valueOf(properties.get(i).getName().hashCode());
+			List<Integer> ordinals = ordinalsByHash.get(hash);
+
+			if (ordinals == null) {
+				ordinals = new ArrayList<Integer>();
+				ordinalsByHash.put(hash, ordinals);
+			}
+
+			ordinals.add(Integer.valueOf(i));
+		}
+
+		for (Map.Entry<Integer, List<Integer>> entry : ordinalsByHash.entrySet()) {
+
+			builder.addMember(HASH_CASE, entry.getKey().toString());
+
+			for (Integer ordinal : entry.getValue()) {
+				builder.addMember(RETURN_IF_EQUAL,
+						properties.get(ordinal.intValue()).getName(),
+						ordinal.toString());
+			}
+
+			builder.addMember(BREAK);
+		}
+
+		builder.addMember(END_ORDINAL_OF);
+	}
+
+	private void createSetByOrdinalMethod(InClassStep<JavaCodeWriter> builder,
+			String modifiers, String returnType, boolean fluent) {
+
+		for (Property property : properties) {
+			if (property.getType().indexOf('<') >= 0) {
+				builder.addMember(UNCHECKED);
+				break;
+			}
+		}
+
+		builder.addMember(SET_BY_ORDINAL, modifiers, returnType);
+
+		for (int i = 0; i < properties.size(); i++) {
+
+			Property property = properties.get(i);
+			String call = setterNaming.renderSetterNameFor(property.getName())
+					+ "((" + renderCastType(property.getType()) + ") value)";
+
+			builder.addMember(ORDINAL_CASE, String.valueOf(i));
+
+			if (WRAPPERS.containsKey(property.getType())) {
+				builder.addMember(REJECT_NULL, property.getName(), property.getType());
+			}
+
+			builder.addMember(fluent ? FLUENT_CALL : CALL, call);
+		}
+
+		builder.addMember(END_SET_BY_ORDINAL);
+	}
+
+	/**
+	 * @return The type an <code>Object</code> is cast to before it is passed
+	 *         to a setter for the given type: the type itself, or the wrapper
+	 *         of a primitive, which is unboxed by the call.
+	 */
+	static String renderCastType(String type) {
+		String wrapper = WRAPPERS.get(type);
+		return wrapper != null ? wrapper : type;
+	}
+
+}
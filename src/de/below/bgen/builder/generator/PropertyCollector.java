@@ -2,11 +2,8 @@ package de.below.bgen.builder.generator;
 
 import java.util.List;
 
-import org.eclipse.jdt.core.IMethod;
-import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.Signature;
-
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
 import de.below.bgen.util.CodeGenUtils;
 
 /**
@@ -35,30 +32,27 @@ public class PropertyCollector {
 	 * @return The properties of the source class that should be considered when
 	 *         generating the builder, never <code>null</code>.
 	 */
-	public PropertyList collectProperties(IType sourceType,
-			IMethod constructorMethod, List<IMethod> setterMethods)
-			throws JavaModelException {
+	public PropertyList collectProperties(TypeDescriptor sourceType,
+			MethodDescriptor constructorMethod, List<MethodDescriptor> setterMethods) {
 
 		PropertyList result = new PropertyList();
 
-		for (IMethod setter : setterMethods) {
+		for (MethodDescriptor setter : setterMethods) {
 
 			String propertyName = CodeGenUtils.getPropertyNameFromAccessorMethod(setter
-					.getElementName());
-			String type = Signature.toString(setter.getParameterTypes()[0]);
+					.getName());
+			String type = setter.getParameterTypes().get(0);
 			result.add(new Property.SetterProperty(type, propertyName, setter));
 		}
 
 		if (constructorMethod != null) {
 
-			for (int i = 0; i < constructorMethod.getParameterNames().length; i++) {
-
-				String propertyName = constructorMethod.getParameterNames()[i];
-				String propertyType = Signature.toString(constructorMethod
-						.getParameterTypes()[i]);
+			List<String> parameterNames = constructorMethod.getParameterNames();
+			List<String> parameterTypes = constructorMethod.getParameterTypes();
 
-				result.add(new Property.ConstructorArgument(propertyType,
-						propertyName, constructorMethod, i));
+			for (int i = 0; i < parameterNames.size(); i++) {
+				result.add(new Property.ConstructorArgument(parameterTypes.get(i),
+						parameterNames.get(i), constructorMethod, i));
 			}
 		}
 
@@ -0,0 +1,215 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import de.below.codegen.ClassBuilder.InClassStep;
+import de.below.codegen.JavaCodeWriter;
+import de.below.codegen.MemberTemplate;
+
+/**
+ * Renders a nested class like <code>PersonProperties</code>, that gives
+ * generic tooling indexed access to the properties of a type without
+ * reflection: the number of properties, their names and types, and
+ * <code>get(object, ordinal)</code> and
+ * <code>set(writer, ordinal, value)</code>, which dispatch by a
+ * <code>switch</code> to the getters and setters.
+ *
+ * <p>
+ * The ordinals are the order in which the properties are
+ * {@link #addProperty(String, String, String, String) added}; builders add
+ * them in the order of {@link PropertyList#getAll()}. Properties without a
+ * getter or setter are listed, but can not be read or written by ordinal.
+ * </p>
+ *
+ * @see BuilderOption#PROPERTY_TABLE
+ * @author martin
+ */
+public final class PropertyTable {
+
+	private static final MemberTemplate CLASS = MemberTemplate.compile(
+			"public static final class ${name} {\n"
+			+ "\tpublic static final int COUNT = ${count};\n"
+			+ "\tprivate static final String[] NAMES = { ${names} };\n"
+			+ "\tprivate static final Class<?>[] TYPES = { ${types} };\n"
+			+ "\tprivate ${name}() {\n"
+			+ "\t}\n"
+			+ "\tpublic static String getName(int ordinal) {\n"
+			+ "\t\treturn NAMES[ordinal];\n"
+			+ "\t}\n"
+			+ "\tpublic static Class<?> getType(int ordinal) {\n"
+			+ "\t\treturn TYPES[ordinal];\n"
+			+ "\t}\n", "name", "count", "names", "types");
+
+	private static final MemberTemplate GET = MemberTemplate.compile(
+			"\tpublic static Object get(${type} object, int ordinal)${exceptions} {\n"
+			+ "\t\tswitch (ordinal) {\n", "type", "exceptions");
+
+	private static final MemberTemplate GET_CASE = MemberTemplate.compile(
+			"\t\tcase ${ordinal}:\n"
+			+ "\t\t\treturn object.${getter}();\n", "ordinal", "getter");
+
+	private static final MemberTemplate UNCHECKED = MemberTemplate.compile(
+			"\t@SuppressWarnings(\"unchecked\")\n");
+
+	private static final MemberTemplate SET = MemberTemplate.compile(
+			"\tpublic static void set(${type} writer, int ordinal, Object value) {\n"
+			+ "\t\tswitch (ordinal) {\n", "type");
+
+	private static final MemberTemplate SET_CASE = MemberTemplate.compile(
+			"\t\tcase ${ordinal}:\n"
+			+ "\t\t\twriter.${setter}((${type}) value);\n"
+			+ "\t\t\treturn;\n", "ordinal", "setter", "type");
+
+	private static final MemberTemplate END_SWITCH = MemberTemplate.compile(
+			"\t\tdefault:\n"
+			+ "\t\t\tthrow new IndexOutOfBoundsException(\"no ${access} property with ordinal \" + ordinal);\n"
+			+ "\t\t}\n"
+			+ "\t}\n", "access");
+
+	private static final MemberTemplate END_CLASS = MemberTemplate.compile(
+			"}\n");
+
+	private final String typeName;
+	private final String writerTypeName;
+	private final Set<String> getterExceptions;
+
+	private final List<String> names = new ArrayList<String>();
+	private final List<String> types = new ArrayList<String>();
+	private final List<String> getters = new ArrayList<String>();
+	private final List<String> setters = new ArrayList<String>();
+
+	/**
+	 * @param typeName
+	 *            The type the properties are read from.
+	 * @param writerTypeName
+	 *            The type the properties are written to, e.g. the builder, or
+	 *            <code>null</code> if they can not be written.
+	 * @param getterExceptions
+	 *            The checked exceptions thrown by the getters.
+	 */
+	public PropertyTable(String typeName, String writerTypeName,
+			Set<String> getterExceptions) {
+		this.typeName = typeName;
+		this.writerTypeName = writerTypeName;
+		this.getterExceptions = getterExceptions;
+	}
+
+	/**
+	 * Adds a property with the next ordinal.
+	 *
+	 * @param getter
+	 *            The name of the getter, or <code>null</code> if the property
+	 *            is not readable.
+	 * @param setter
+	 *            The name of the setter on the writer type, or
+	 *            <code>null</code> if the property is not writable.
+	 */
+	public void addProperty(String name, String type, String getter,
+			String setter) {
+		names.add(name);
+		types.add(type);
+		getters.add(getter);
+		setters.add(setter);
+	}
+
+	/**
+	 * @return The name of the class rendered for the given type, e.g.
+	 *         <code>PersonProperties</code> for <code>com.acme.Person</code>.
+	 */
+	public static String renderClassName(String typeName) {
+		return typeName.substring(typeName.lastIndexOf('.') + 1) + "Properties";
+	}
+
+	/**
+	 * Creates the class as a member of the given class.
+	 */
+	public void createClass(InClassStep<JavaCodeWriter> builder) {
+
+		StringBuilder nameList = new StringBuilder();
+		StringBuilder typeList = new StringBuilder();
+
+		for (int i = 0; i < names.size(); i++) {
+
+			if (i > 0) {
+				nameList.append(", ");
+				typeList.append(", ");
+			}
+
+			nameList.append('"').append(names.get(i)).append('"');
+			typeList.append(renderClassLiteral(types.get(i)));
+		}
+
+		builder.addMember(CLASS, renderClassName(typeName),
+				String.valueOf(names.size()), nameList.toString(),
+				typeList.toString());
+
+		builder.addMember(GET, typeName,
+				CanonicalTable.renderExceptions(getterExceptions));
+
+		for (int i = 0; i < names.size(); i++) {
+			if (getters.get(i) != null) {
+				builder.addMember(GET_CASE, String.valueOf(i), getters.get(i));
+			}
+		}
+
+		builder.addMember(END_SWITCH, "readable");
+
+		if (writerTypeName != null) {
+			createSetMethod(builder);
+		}
+
+		builder.addMember(END_CLASS);
+	}
+
+	private void createSetMethod(InClassStep<JavaCodeWriter> builder) {
+
+		for (int i = 0; i < names.size(); i++) {
+			if (setters.get(i) != null && types.get(i).indexOf('<') >= 0) {
+				builder.addMember(UNCHECKED);
+				break;
+			}
+		}
+
+		builder.addMember(SET, writerTypeName);
+
+		for (int i = 0; i < names.size(); i++) {
+			if (setters.get(i) != null) {
+				builder.addMember(SET_CASE, String.valueOf(i), setters.get(i),
+						PropertyBinding.renderCastType(types.get(i)));
+			}
+		}
+
+		builder.addMember(END_SWITCH, "writable");
+	}
+
+	/**
+	 * @return The class literal of the erasure of the given type, e.g.
+	 *         <code>java.util.List.class</code> for
+	 *         <code>java.util.List&lt;String&gt;</code>.
+	 */
+	static String renderClassLiteral(String type) {
+
+		StringBuilder erasure = new StringBuilder();
+		int depth = 0;
+
+		for (int i = 0; i < type.length(); i++) {
+
+			char c = type.charAt(i);
+
+			if (c == '<') {
+				depth++;
+			}
+			else if (c == '>') {
+				depth--;
+			}
+			else if (depth == 0 && c != ' ') {
+				erasure.append(c);
+			}
+		}
+
+		return erasure.append(".class").toString();
+	}
+
+}
@@ -0,0 +1,183 @@
+package de.below.bgen.builder.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+import de.below.bgen.builder.generator.descriptor.DescriptorCache;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+/**
+ * Finds the constructors, factory methods and setters of a type that can be
+ * used by a generated builder.
+ *
+ * @author martin
+ */
+public class SourceTypeAnalyzer {
+
+	private SourceTypeAnalyzer() {
+	}
+
+	/**
+	 * Returns all public constructors and static factory methods of the given
+	 * type.
+	 *
+	 * @param type
+	 *            The type to analyze.
+	 * @return The instantiation methods, never <code>null</code>.
+	 */
+	public static List<IMethod> findConstructors(IType type)
+			throws JavaModelException {
+
+		DescriptorCache descriptors = new DescriptorCache();
+		return toMethods(findConstructors(descriptors.describe(type)), descriptors);
+	}
+
+	/**
+	 * Returns all public setter methods of the given type, that do not
+	 * correspond to an argument of the given constructor.
+	 *
+	 * @param type
+	 *            The type to analyze.
+	 * @param constructor
+	 *            The constructor or factory method that is used to
+	 *            instantiate the type. May be <code>null</code>.
+	 * @return The setter methods, never <code>null</code>.
+	 */
+	public static List<IMethod> findSetters(IType type, IMethod constructor)
+			throws JavaModelException {
+
+		DescriptorCache descriptors = new DescriptorCache();
+		return toMethods(findSetters(descriptors.describe(type),
+				descriptors.describe(constructor)), descriptors);
+	}
+
+	/**
+	 * Returns all public constructors and static factory methods of the given
+	 * type.
+	 *
+	 * @param type
+	 *            The type to analyze.
+	 * @return The instantiation methods, never <code>null</code>.
+	 */
+	public static List<MethodDescriptor> findConstructors(TypeDescriptor type) {
+
+		List<MethodDescriptor> result = new ArrayList<MethodDescriptor>();
+
+		for (MethodDescriptor method : type.getMethods()) {
+			if (method.isPublic()
+					&& (method.isConstructor() || isFactoryMethod(type, method))) {
+				result.add(method);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Chooses the instantiation method that is used when generating builders
+	 * without user interaction: the first public constructor or static
+	 * factory method of the type.
+	 *
+	 * @param type
+	 *            The type to analyze.
+	 * @return The instantiation method, or <code>null</code> if the implicit
+	 *         default constructor should be used.
+	 */
+	public static MethodDescriptor findDefaultInstantiationMethod(
+			TypeDescriptor type) {
+
+		List<MethodDescriptor> constructors = findConstructors(type);
+		return constructors.isEmpty() ? null : constructors.get(0);
+	}
+
+	/**
+	 * Returns all public setter methods of the given type, that do not
+	 * correspond to an argument of the given constructor.
+	 *
+	 * @param type
+	 *            The type to analyze.
+	 * @param constructor
+	 *            The constructor or factory method that is used to
+	 *            instantiate the type. May be <code>null</code>.
+	 * @return The setter methods, never <code>null</code>.
+	 */
+	public static List<MethodDescriptor> findSetters(TypeDescriptor type,
+			MethodDescriptor constructor) {
+
+		List<MethodDescriptor> result = new ArrayList<MethodDescriptor>();
+
+		List<String> parametersFromConstructor = new ArrayList<String>();
+
+		if (constructor != null) {
+			for (String paramName : constructor.getParameterNames()) {
+				parametersFromConstructor.add(paramName.toLowerCase());
+			}
+		}
+
+		for (MethodDescriptor method : type.getMethods()) {
+
+			String methodName = method.getName();
+
+			if (method.isPublic() && !method.isConstructor()
+					&& methodName.startsWith("set")
+					&& methodName.length() > 3
+					&& method.getParameterCount() == 1
+					&& !parametersFromConstructor.contains(methodName
+							.substring(3).toLowerCase())) {
+				result.add(method);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code>, if the given type is a concrete class that
+	 *         can be instantiated by a builder, either via one of its public
+	 *         constructors / factory methods, or via the implicit default
+	 *         constructor.
+	 */
+	public static boolean isInstantiable(TypeDescriptor type) {
+
+		if (type.getKind() != TypeDescriptor.Kind.CLASS || type.isAbstract()) {
+			return false;
+		}
+
+		if (!findConstructors(type).isEmpty()) {
+			return true;
+		}
+
+		for (MethodDescriptor method : type.getMethods()) {
+			if (method.isConstructor()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isFactoryMethod(TypeDescriptor type,
+			MethodDescriptor method) {
+
+		return method.isStatic()
+				&& method.getReturnType().equals(type.getFullyQualifiedName());
+	}
+
+	private static List<IMethod> toMethods(List<MethodDescriptor> methods,
+			DescriptorCache descriptors) {
+
+		List<IMethod> result = new ArrayList<IMethod>(methods.size());
+
+		for (MethodDescriptor method : methods) {
+			result.add(descriptors.getMethod(method));
+		}
+
+		return result;
+	}
+
+}
@@ -1,5 +1,7 @@
 package de.below.bgen.builder.generator.components;
 
+import java.util.Map;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -12,6 +14,9 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.ToolFactory;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.formatter.CodeFormatter;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.text.edits.TextEdit;
 
 /**
@@ -55,6 +60,24 @@ public abstract class TargetTypeCreationStrategy {
 
 		}
 
+		@Override
+		public IType getTargetType(IType sourceType, String typeName) {
+			return enclosingType.getType(typeName);
+		}
+
+		@Override
+		public IType updateTargetType(IProgressMonitor pm, IType sourceType,
+				String typeName, String content) throws JavaModelException {
+
+			IType existing = enclosingType.getType(typeName);
+
+			if (!existing.exists() || content == null) {
+				return createTargetType(pm, sourceType, typeName, content);
+			}
+
+			return new TargetTypeUpdater().update(existing, content, pm);
+		}
+
 		@Override
 		protected ISourceRange getTargetRange(IType targetType)
 				throws JavaModelException {
@@ -126,6 +149,12 @@ public abstract class TargetTypeCreationStrategy {
 
 		}
 
+		@Override
+		public IType getTargetType(IType sourceType, String typeName) {
+			return sourceFolder.getPackageFragment(packageName)
+					.getCompilationUnit(typeName + ".java").getType(typeName);
+		}
+
 		@Override
 		protected ISourceRange getTargetRange(IType targetType)
 				throws JavaModelException {
@@ -159,6 +188,30 @@ public abstract class TargetTypeCreationStrategy {
 	public abstract IType createTargetType(IProgressMonitor pm,
 			IType sourceType, String typeName, String content) throws JavaModelException;
 
+	/**
+	 * Returns the handle of the type with the given name, which may or may not
+	 * exist.
+	 * 
+	 * @param sourceType
+	 *            The class for which a builder should be created.
+	 * @param typeName
+	 *            Name of the type, must not be <code>null</code>
+	 */
+	public abstract IType getTargetType(IType sourceType, String typeName);
+
+	/**
+	 * Updates an existing type with the given name, so that it matches the
+	 * given source code, or creates it if it does not exist yet. By default,
+	 * the type is re-created.
+	 * 
+	 * @see #createTargetType(IProgressMonitor, IType, String, String)
+	 */
+	public IType updateTargetType(IProgressMonitor pm, IType sourceType,
+			String typeName, String content) throws JavaModelException {
+
+		return createTargetType(pm, sourceType, typeName, content);
+	}
+
 	/**
 	 * Formats the generated source code.
 	 * 
@@ -170,8 +223,6 @@ public abstract class TargetTypeCreationStrategy {
 		ICompilationUnit compilationUnit = targetType.getCompilationUnit();
 		compilationUnit.reconcile(AST.JLS3, true, null, null);
 		
-		System.out.println(compilationUnit.getSource());
-		
 		compilationUnit.makeConsistent(null);
 		
 		//compilationUnit.reconcile(AST.JLS3, true, null, null);
@@ -186,8 +237,6 @@ public abstract class TargetTypeCreationStrategy {
 
 		compilationUnit.applyTextEdit(edit, new NullProgressMonitor());
 		
-		System.out.println(compilationUnit.getBuffer());
-		
 		compilationUnit.getBuffer().save(null, true);
 		
 		compilationUnit.reconcile(AST.JLS3, true, null, null);
@@ -195,6 +244,46 @@ public abstract class TargetTypeCreationStrategy {
 		compilationUnit.makeConsistent(null);
 	}
 
+	/**
+	 * Formats the source code of a type before it is inserted. Other than
+	 * {@link #format(IType)}, this does not touch the compilation unit, so it
+	 * may be called from any thread.
+	 * 
+	 * @param source
+	 *            The source code of the type.
+	 * @param formatterOptions
+	 *            The formatter settings of the target project.
+	 * @return The formatted source, or the unchanged source if it could not be
+	 *         formatted.
+	 */
+	public String formatSource(String source,
+			Map<String, String> formatterOptions) {
+
+		CodeFormatter formatter = ToolFactory
+				.createCodeFormatter(formatterOptions);
+
+		int indentationLevel = isMainType() ? 0 : 1;
+
+		TextEdit edit = formatter.format(
+				CodeFormatter.K_CLASS_BODY_DECLARATIONS, source, 0,
+				source.length(), indentationLevel, null);
+
+		if (edit == null) {
+			return source;
+		}
+
+		IDocument document = new Document(source);
+
+		try {
+			edit.apply(document);
+		}
+		catch (BadLocationException e) {
+			return source;
+		}
+
+		return document.get();
+	}
+
 	protected abstract ISourceRange getTargetRange(IType targetType)
 			throws JavaModelException;
 
@@ -0,0 +1,322 @@
+package de.below.bgen.builder.generator.components;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTMatcher;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
+import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Updates an existing type in place, so that it matches a freshly rendered
+ * version of it.
+ *
+ * <p>
+ * Members are matched by their signature (fields by name, methods by name and
+ * parameter types, nested types by name). Only members that were added,
+ * removed or structurally changed are rewritten; all other members keep
+ * their position and text. If the declaration of the type itself changed, the
+ * whole type is replaced.
+ * </p>
+ *
+ * @author martin
+ */
+final class TargetTypeUpdater {
+
+	private final ASTMatcher matcher = new ASTMatcher();
+
+	/**
+	 * Updates the given type to the given source code.
+	 *
+	 * @param existing
+	 *            The existing type, must be a source type.
+	 * @param content
+	 *            The new source code of the type.
+	 * @return The updated type.
+	 */
+	public IType update(IType existing, String content, IProgressMonitor pm)
+			throws JavaModelException {
+
+		ICompilationUnit compilationUnit = existing.getCompilationUnit();
+
+		ASTParser parser = ASTParser.newParser(AST.JLS3);
+		parser.setSource(compilationUnit);
+		CompilationUnit root = (CompilationUnit) parser.createAST(pm);
+
+		ISourceRange nameRange = existing.getNameRange();
+		ASTNode name = NodeFinder.perform(root, nameRange.getOffset(),
+				nameRange.getLength());
+
+		TypeDeclaration declaration = (TypeDeclaration) name.getParent();
+
+		ASTRewrite rewrite = createRewrite(declaration, content,
+				compilationUnit.getJavaProject().getOptions(true));
+
+		TextEdit edit = rewrite.rewriteAST();
+
+		if (edit.hasChildren()) {
+			compilationUnit.applyTextEdit(edit, pm);
+
+			if (!compilationUnit.isWorkingCopy()) {
+				compilationUnit.getBuffer().save(pm, true);
+			}
+
+			compilationUnit.makeConsistent(pm);
+		}
+
+		return existing;
+	}
+
+	/**
+	 * Creates the rewrite that turns the given type declaration into the given
+	 * source code. The rewrite is empty, if nothing changed.
+	 *
+	 * @param existing
+	 *            The declaration of the existing type.
+	 * @param content
+	 *            The new source code of the type.
+	 * @param compilerOptions
+	 *            The options to parse the new source code with.
+	 */
+	ASTRewrite createRewrite(TypeDeclaration existing, String content,
+			Map<String, String> compilerOptions) {
+
+		ASTRewrite rewrite = ASTRewrite.create(existing.getAST());
+
+		TypeDeclaration updated = parse(content, compilerOptions);
+
+		if (updated == null) {
+			rewrite.replace(existing, rewrite.createStringPlaceholder(content,
+					ASTNode.TYPE_DECLARATION), null);
+			return rewrite;
+		}
+
+		if (!isSameHeader(existing, updated)) {
+			rewrite.replace(existing, createPlaceholder(rewrite, updated, content), null);
+			return rewrite;
+		}
+
+		Map<String, BodyDeclaration> existingMembers = indexMembers(existing);
+		Map<String, BodyDeclaration> updatedMembers = indexMembers(updated);
+
+		if (existingMembers == null || updatedMembers == null) {
+			rewrite.replace(existing, createPlaceholder(rewrite, updated, content), null);
+			return rewrite;
+		}
+
+		ListRewrite members = rewrite.getListRewrite(existing,
+				TypeDeclaration.BODY_DECLARATIONS_PROPERTY);
+
+		for (Map.Entry<String, BodyDeclaration> entry : existingMembers.entrySet()) {
+			if (!updatedMembers.containsKey(entry.getKey())) {
+				members.remove(entry.getValue(), null);
+			}
+		}
+
+		ASTNode previous = null;
+
+		for (Map.Entry<String, BodyDeclaration> entry : updatedMembers.entrySet()) {
+
+			BodyDeclaration member = entry.getValue();
+			BodyDeclaration existingMember = existingMembers.get(entry.getKey());
+
+			if (existingMember == null) {
+
+				ASTNode placeholder = createPlaceholder(rewrite, member, content);
+
+				if (previous == null) {
+					members.insertFirst(placeholder, null);
+				}
+				else {
+					members.insertAfter(placeholder, previous, null);
+				}
+
+				previous = placeholder;
+			}
+			else {
+
+				if (!existingMember.subtreeMatch(matcher, member)) {
+					members.replace(existingMember,
+							createPlaceholder(rewrite, member, content), null);
+				}
+
+				previous = existingMember;
+			}
+		}
+
+		return rewrite;
+	}
+
+	private TypeDeclaration parse(String content,
+			Map<String, String> compilerOptions) {
+
+		ASTParser parser = ASTParser.newParser(AST.JLS3);
+		parser.setKind(ASTParser.K_CLASS_BODY_DECLARATIONS);
+		parser.setCompilerOptions(compilerOptions);
+		parser.setSource(content.toCharArray());
+
+		ASTNode result = parser.createAST(null);
+
+		if (!(result instanceof TypeDeclaration)) {
+			return null;
+		}
+
+		List<?> declarations = ((TypeDeclaration) result).bodyDeclarations();
+
+		if (declarations.size() != 1
+				|| !(declarations.get(0) instanceof TypeDeclaration)) {
+			return null;
+		}
+
+		return (TypeDeclaration) declarations.get(0);
+	}
+
+	private boolean isSameHeader(TypeDeclaration existing,
+			TypeDeclaration updated) {
+
+		return existing.getName().subtreeMatch(matcher, updated.getName())
+				&& existing.isInterface() == updated.isInterface()
+				&& matcher.safeSubtreeListMatch(existing.modifiers(), updated.modifiers())
+				&& matcher.safeSubtreeMatch(existing.getJavadoc(), updated.getJavadoc())
+				&& matcher.safeSubtreeMatch(existing.getSuperclassType(), updated.getSuperclassType())
+				&& matcher.safeSubtreeListMatch(existing.superInterfaceTypes(), updated.superInterfaceTypes())
+				&& matcher.safeSubtreeListMatch(existing.typeParameters(), updated.typeParameters());
+	}
+
+	/**
+	 * Indexes the members of a type by their signature.
+	 *
+	 * @return The members in declaration order, or <code>null</code> if two
+	 *         members have the same signature (e.g. a field declaration with
+	 *         more than one fragment), so the members cannot be matched.
+	 */
+	private Map<String, BodyDeclaration> indexMembers(TypeDeclaration type) {
+
+		Map<String, BodyDeclaration> result = new LinkedHashMap<String, BodyDeclaration>();
+		Map<String, Integer> occurrences = new HashMap<String, Integer>();
+
+		for (Object declaration : type.bodyDeclarations()) {
+
+			BodyDeclaration member = (BodyDeclaration) declaration;
+			String key = createKey(member);
+
+			if (key == null) {
+				return null;
+			}
+
+			if (key.startsWith("?")) {
+				Integer count = occurrences.get(key);
+				int index = count == null ? 0 : count.intValue();
+				occurrences.put(key, Integer.valueOf(index + 1));
+				key = key + index;
+			}
+
+			if (result.put(key, member) != null) {
+				return null;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The signature of a member. Members without a name (e.g.
+	 *         initializers) are keyed by their kind, starting with "?".
+	 */
+	private String createKey(BodyDeclaration member) {
+
+		if (member instanceof FieldDeclaration) {
+
+			List<?> fragments = ((FieldDeclaration) member).fragments();
+
+			if (fragments.size() != 1) {
+				return null;
+			}
+
+			return "field " + ((VariableDeclarationFragment) fragments.get(0)).getName().getIdentifier();
+		}
+
+		if (member instanceof MethodDeclaration) {
+
+			MethodDeclaration method = (MethodDeclaration) member;
+			StringBuilder result = new StringBuilder("method ");
+
+			result.append(method.getName().getIdentifier()).append('(');
+
+			for (Object parameter : method.parameters()) {
+				SingleVariableDeclaration declaration = (SingleVariableDeclaration) parameter;
+				result.append(declaration.getType());
+				if (declaration.isVarargs()) {
+					result.append("...");
+				}
+				result.append(',');
+			}
+
+			return result.append(')').toString();
+		}
+
+		if (member instanceof TypeDeclaration) {
+			return "type " + ((TypeDeclaration) member).getName().getIdentifier();
+		}
+
+		return "?" + member.getNodeType() + " ";
+	}
+
+	/**
+	 * Creates a placeholder that inserts the source code of a node from the
+	 * rendered content.
+	 */
+	private ASTNode createPlaceholder(ASTRewrite rewrite, ASTNode node,
+			String content) {
+
+		int start = node.getStartPosition();
+		int lineStart = start;
+
+		while (lineStart > 0 && isIndentation(content.charAt(lineStart - 1))) {
+			lineStart--;
+		}
+
+		String source = content.substring(start, start + node.getLength());
+
+		return rewrite.createStringPlaceholder(
+				unindent(source, content.substring(lineStart, start)),
+				node.getNodeType());
+	}
+
+	/**
+	 * Removes the indentation of the first line from all following lines, so
+	 * the rewrite can indent the code correctly at its new position.
+	 */
+	private String unindent(String source, String indentation) {
+
+		if (indentation.length() == 0) {
+			return source;
+		}
+
+		return source.replace("\n" + indentation, "\n");
+	}
+
+	private boolean isIndentation(char c) {
+		return c == ' ' || c == '\t';
+	}
+
+}
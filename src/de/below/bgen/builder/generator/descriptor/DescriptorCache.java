@@ -0,0 +1,161 @@
+package de.below.bgen.builder.generator.descriptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+
+/**
+ * Creates descriptors for elements of the java model, and caches them for the
+ * lifetime of the cache (typically one generation session), so every element
+ * is read from the java model only once.
+ *
+ * <p>
+ * <b>Note</b> that this class is not thread-safe.
+ * </p>
+ *
+ * @author martin
+ */
+public class DescriptorCache {
+
+	private final Map<IType, TypeDescriptor> types = new HashMap<IType, TypeDescriptor>();
+	private final Map<IMethod, MethodDescriptor> methods = new HashMap<IMethod, MethodDescriptor>();
+	private final Map<MethodDescriptor, IMethod> methodHandles = new HashMap<MethodDescriptor, IMethod>();
+	private final Map<IJavaProject, Map<String, String>> projectOptions = new HashMap<IJavaProject, Map<String, String>>();
+
+	/**
+	 * Returns the descriptor for the given type, including all methods it
+	 * declares.
+	 */
+	public TypeDescriptor describe(IType type) throws JavaModelException {
+
+		TypeDescriptor result = types.get(type);
+
+		if (result == null) {
+
+			List<MethodDescriptor> typeMethods = new ArrayList<MethodDescriptor>();
+
+			for (IMethod method : type.getMethods()) {
+				typeMethods.add(describe(method));
+			}
+
+			result = new TypeDescriptor(type.getElementName(), type
+					.getPackageFragment().getElementName(), kindOf(type),
+					type.getFlags(), typeMethods);
+
+			types.put(type, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the descriptor for the given method.
+	 *
+	 * @param method
+	 *            The method to describe, may be <code>null</code>.
+	 * @return The descriptor, or <code>null</code> if no method was given.
+	 */
+	public MethodDescriptor describe(IMethod method) throws JavaModelException {
+
+		if (method == null) {
+			return null;
+		}
+
+		MethodDescriptor result = methods.get(method);
+
+		if (result == null) {
+
+			boolean constructor = method.isConstructor();
+
+			result = new MethodDescriptor(method.getElementName(), method
+					.getDeclaringType().getElementName(), method.getFlags(),
+					constructor, constructor ? null : Signature.toString(method
+							.getReturnType()), method.getParameterNames(),
+					toString(method.getParameterTypes()),
+					toString(method.getExceptionTypes()));
+
+			methods.put(method, result);
+			methodHandles.put(result, method);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the descriptors for the given methods.
+	 */
+	public List<MethodDescriptor> describe(List<IMethod> methodList)
+			throws JavaModelException {
+
+		List<MethodDescriptor> result = new ArrayList<MethodDescriptor>(
+				methodList.size());
+
+		for (IMethod method : methodList) {
+			result.add(describe(method));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the options of the given project, including the inherited
+	 * workspace options (e.g. the formatter settings).
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, String> getOptions(IJavaProject project) {
+
+		Map<String, String> result = projectOptions.get(project);
+
+		if (result == null) {
+			result = project.getOptions(true);
+			projectOptions.put(project, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the java element a descriptor has been created from.
+	 *
+	 * @return The method, or <code>null</code> if the descriptor has not been
+	 *         created by this cache.
+	 */
+	public IMethod getMethod(MethodDescriptor descriptor) {
+		return methodHandles.get(descriptor);
+	}
+
+	private static TypeDescriptor.Kind kindOf(IType type)
+			throws JavaModelException {
+
+		if (type.isAnnotation()) {
+			return TypeDescriptor.Kind.ANNOTATION;
+		}
+		else if (type.isEnum()) {
+			return TypeDescriptor.Kind.ENUM;
+		}
+		else if (type.isInterface()) {
+			return TypeDescriptor.Kind.INTERFACE;
+		}
+
+		return TypeDescriptor.Kind.CLASS;
+	}
+
+	private static String[] toString(String[] signatures) {
+
+		String[] result = new String[signatures.length];
+
+		for (int i = 0; i < signatures.length; i++) {
+			result[i] = Signature.toString(signatures[i]);
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,122 @@
+package de.below.bgen.builder.generator.descriptor;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a method or constructor. All type names are
+ * already resolved to their source representation (e.g.
+ * <code>List&lt;String&gt;</code>).
+ *
+ * <p>
+ * Descriptors do not depend on the java model, so they can also be created
+ * from other sources (like a DOM AST, or the elements of an annotation
+ * processor).
+ * </p>
+ *
+ * @author martin
+ */
+public final class MethodDescriptor {
+
+	private final String name;
+	private final String declaringTypeName;
+	private final int flags;
+	private final boolean constructor;
+	private final String returnType;
+	private final List<String> parameterNames;
+	private final List<String> parameterTypes;
+	private final List<String> exceptionTypes;
+
+	/**
+	 * @param name
+	 *            The name of the method.
+	 * @param declaringTypeName
+	 *            The simple name of the type that declares the method.
+	 * @param flags
+	 *            The modifiers of the method, as defined by
+	 *            {@link Modifier}.
+	 * @param constructor
+	 *            <code>true</code>, if the method is a constructor.
+	 * @param returnType
+	 *            The return type, <code>null</code> for constructors.
+	 * @param parameterNames
+	 *            The names of the parameters.
+	 * @param parameterTypes
+	 *            The types of the parameters.
+	 * @param exceptionTypes
+	 *            The declared exceptions.
+	 */
+	public MethodDescriptor(String name, String declaringTypeName, int flags,
+			boolean constructor, String returnType, String[] parameterNames,
+			String[] parameterTypes, String[] exceptionTypes) {
+
+		if (parameterNames.length != parameterTypes.length) {
+			throw new IllegalArgumentException("parameter names and types of "
+					+ name + " do not match");
+		}
+
+		this.name = name;
+		this.declaringTypeName = declaringTypeName;
+		this.flags = flags;
+		this.constructor = constructor;
+		this.returnType = returnType;
+		this.parameterNames = immutableCopy(parameterNames);
+		this.parameterTypes = immutableCopy(parameterTypes);
+		this.exceptionTypes = immutableCopy(exceptionTypes);
+	}
+
+	private static List<String> immutableCopy(String[] values) {
+		return Collections.unmodifiableList(Arrays.asList(values.clone()));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDeclaringTypeName() {
+		return declaringTypeName;
+	}
+
+	public boolean isConstructor() {
+		return constructor;
+	}
+
+	public boolean isPublic() {
+		return Modifier.isPublic(flags);
+	}
+
+	public boolean isStatic() {
+		return Modifier.isStatic(flags);
+	}
+
+	/**
+	 * @return The return type, or <code>null</code> if this is a constructor.
+	 */
+	public String getReturnType() {
+		return returnType;
+	}
+
+	public int getParameterCount() {
+		return parameterNames.size();
+	}
+
+	public List<String> getParameterNames() {
+		return parameterNames;
+	}
+
+	public List<String> getParameterTypes() {
+		return parameterTypes;
+	}
+
+	public List<String> getExceptionTypes() {
+		return exceptionTypes;
+	}
+
+	@Override
+	public String toString() {
+		return declaringTypeName + "." + name + parameterTypes;
+	}
+
+}
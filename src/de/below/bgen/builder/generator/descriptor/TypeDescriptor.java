@@ -0,0 +1,109 @@
+package de.below.bgen.builder.generator.descriptor;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable description of a type and the methods it declares.
+ *
+ * @author martin
+ * @see MethodDescriptor
+ */
+public final class TypeDescriptor {
+
+	/**
+	 * The kinds of types.
+	 */
+	public static enum Kind {
+		CLASS, INTERFACE, ENUM, ANNOTATION
+	}
+
+	private final String name;
+	private final String packageName;
+	private final Kind kind;
+	private final int flags;
+	private final List<MethodDescriptor> methods;
+	private final Map<String, MethodDescriptor> noArgMethods = new HashMap<String, MethodDescriptor>();
+
+	/**
+	 * @param name
+	 *            The simple name of the type.
+	 * @param packageName
+	 *            The name of the package, an empty String for the default
+	 *            package.
+	 * @param kind
+	 *            The kind of the type.
+	 * @param flags
+	 *            The modifiers of the type, as defined by {@link Modifier}.
+	 * @param methods
+	 *            The methods and constructors declared by the type.
+	 */
+	public TypeDescriptor(String name, String packageName, Kind kind,
+			int flags, List<MethodDescriptor> methods) {
+
+		this.name = name;
+		this.packageName = packageName;
+		this.kind = kind;
+		this.flags = flags;
+		this.methods = Collections
+				.unmodifiableList(new ArrayList<MethodDescriptor>(methods));
+
+		for (MethodDescriptor method : methods) {
+			if (method.getParameterCount() == 0 && !method.isConstructor()) {
+				noArgMethods.put(method.getName(), method);
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public String getFullyQualifiedName() {
+		return packageName.length() == 0 ? name : packageName + "." + name;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public boolean isAbstract() {
+		return Modifier.isAbstract(flags);
+	}
+
+	/**
+	 * @return The methods and constructors declared by this type, never
+	 *         <code>null</code>.
+	 */
+	public List<MethodDescriptor> getMethods() {
+		return methods;
+	}
+
+	/**
+	 * Looks up a public method without arguments (e.g. a getter) declared by
+	 * this type.
+	 *
+	 * @param methodName
+	 *            The name of the method.
+	 * @return The method, or <code>null</code> if this type does not declare
+	 *         a public method with the given name and no arguments.
+	 */
+	public MethodDescriptor findPublicNoArgMethod(String methodName) {
+		MethodDescriptor method = noArgMethods.get(methodName);
+		return method != null && method.isPublic() ? method : null;
+	}
+
+	@Override
+	public String toString() {
+		return getFullyQualifiedName();
+	}
+
+}
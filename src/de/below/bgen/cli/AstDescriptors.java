@@ -0,0 +1,136 @@
+package de.below.bgen.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+/**
+ * Creates descriptors from the DOM of a compilation unit that has been parsed
+ * without bindings. Types are described as written in the source, just like
+ * the java model does, so the generated builders need the imports of the
+ * source compilation unit.
+ *
+ * @author martin
+ */
+class AstDescriptors {
+
+	private AstDescriptors() {
+	}
+
+	/**
+	 * @return The name of the package of the compilation unit, an empty String
+	 *         for the default package.
+	 */
+	static String getPackageName(CompilationUnit unit) {
+		return unit.getPackage() == null ? "" : unit.getPackage().getName()
+				.getFullyQualifiedName();
+	}
+
+	/**
+	 * @return The import declarations of the compilation unit, as source code.
+	 */
+	static List<String> getImports(CompilationUnit unit) {
+
+		List<String> result = new ArrayList<String>();
+
+		for (Object declaration : unit.imports()) {
+
+			ImportDeclaration importDeclaration = (ImportDeclaration) declaration;
+
+			result.add("import " + (importDeclaration.isStatic() ? "static " : "")
+					+ importDeclaration.getName().getFullyQualifiedName()
+					+ (importDeclaration.isOnDemand() ? ".*" : "") + ";");
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The top level classes and interfaces of the compilation unit.
+	 */
+	static List<TypeDeclaration> getTypes(CompilationUnit unit) {
+
+		List<TypeDeclaration> result = new ArrayList<TypeDeclaration>();
+
+		for (Object type : unit.types()) {
+			if (((AbstractTypeDeclaration) type).getNodeType() == ASTNode.TYPE_DECLARATION) {
+				result.add((TypeDeclaration) type);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Describes a type and the methods and constructors it declares.
+	 */
+	static TypeDescriptor describe(TypeDeclaration type, String packageName) {
+
+		String typeName = type.getName().getIdentifier();
+		List<MethodDescriptor> methods = new ArrayList<MethodDescriptor>();
+
+		for (MethodDeclaration method : type.getMethods()) {
+			methods.add(describe(method, typeName));
+		}
+
+		return new TypeDescriptor(typeName, packageName,
+				type.isInterface() ? TypeDescriptor.Kind.INTERFACE
+						: TypeDescriptor.Kind.CLASS, type.getModifiers(),
+				methods);
+	}
+
+	private static MethodDescriptor describe(MethodDeclaration method,
+			String declaringTypeName) {
+
+		List<?> parameters = method.parameters();
+
+		String[] parameterNames = new String[parameters.size()];
+		String[] parameterTypes = new String[parameters.size()];
+
+		for (int i = 0; i < parameterNames.length; i++) {
+
+			SingleVariableDeclaration parameter = (SingleVariableDeclaration) parameters.get(i);
+			parameterNames[i] = parameter.getName().getIdentifier();
+			parameterTypes[i] = parameter.getType().toString()
+					+ dimensions(parameter.getExtraDimensions()
+							+ (parameter.isVarargs() ? 1 : 0));
+		}
+
+		List<?> thrownExceptions = method.thrownExceptions();
+		String[] exceptionTypes = new String[thrownExceptions.size()];
+
+		for (int i = 0; i < exceptionTypes.length; i++) {
+			exceptionTypes[i] = thrownExceptions.get(i).toString();
+		}
+
+		String returnType = method.isConstructor() || method.getReturnType2() == null ? null
+				: method.getReturnType2().toString() + dimensions(method.getExtraDimensions());
+
+		return new MethodDescriptor(method.getName().getIdentifier(),
+				declaringTypeName, method.getModifiers(),
+				method.isConstructor(), returnType, parameterNames,
+				parameterTypes, exceptionTypes);
+	}
+
+	private static String dimensions(int count) {
+
+		StringBuilder result = new StringBuilder();
+
+		for (int i = 0; i < count; i++) {
+			result.append("[]");
+		}
+
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,325 @@
+package de.below.bgen.cli;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.core.JavaCore;
+
+import de.below.bgen.builder.generator.BuilderOption;
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+
+/**
+ * Generates top level builders for all eligible classes of a source tree,
+ * outside of any workspace.
+ *
+ * <pre>
+ * BuilderGeneratorCli -source &lt;dir&gt; -output &lt;dir&gt; [-setterPrefix &lt;prefix&gt;]
+ *     [-builderSuffix &lt;suffix&gt;] [-noFluentSetters] [-sourceLevel &lt;level&gt;]
+ *     [-batchSize &lt;files&gt;] [-threads &lt;count&gt;]
+ * </pre>
+ *
+ * <p>
+ * The source tree is walked lazily and cut into batches of at most
+ * <code>batchSize</code> files. Each batch is parsed, rendered and written by
+ * one thread of a worker pool; at most two batches per thread are pending at
+ * any time, so the memory use does not grow with the size of the tree.
+ * </p>
+ *
+ * @author martin
+ */
+public class BuilderGeneratorCli {
+
+	private static final int EXIT_OK = 0;
+	private static final int EXIT_FAILURES = 1;
+	private static final int EXIT_USAGE = 2;
+
+	private static final String USAGE = "usage: BuilderGeneratorCli -source <dir> -output <dir>"
+			+ " [-setterPrefix <prefix>] [-builderSuffix <suffix>] [-noFluentSetters]"
+			+ " [-sourceLevel <level>] [-batchSize <files>] [-threads <count>]";
+
+	/**
+	 * The settings of a run.
+	 */
+	static final class Settings {
+
+		private File sourceDirectory;
+		private File outputDirectory;
+		private String setterPrefix = "set";
+		private String builderSuffix = "Builder";
+		private final Set<BuilderOption> options = EnumSet.of(BuilderOption.FLUENT_SETTERS);
+		private String sourceLevel = JavaCore.VERSION_1_6;
+		private int batchSize = 500;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private Map<String, String> compilerOptions;
+
+		File getOutputDirectory() {
+			return outputDirectory;
+		}
+
+		String getBuilderSuffix() {
+			return builderSuffix;
+		}
+
+		Set<BuilderOption> getOptions() {
+			return options;
+		}
+
+		SetterNamingStrategy getSetterNaming() {
+			return SetterNamingStrategy.create(setterPrefix);
+		}
+
+		/**
+		 * @return The options of the parser for the configured source level.
+		 */
+		@SuppressWarnings("unchecked")
+		synchronized Map<String, String> getCompilerOptions() {
+
+			if (compilerOptions == null) {
+				compilerOptions = JavaCore.getOptions();
+				JavaCore.setComplianceOptions(sourceLevel, compilerOptions);
+			}
+
+			return compilerOptions;
+		}
+	}
+
+	/**
+	 * The counters of a run, updated concurrently by the workers.
+	 */
+	static final class Statistics {
+
+		private final AtomicInteger generated = new AtomicInteger();
+		private final AtomicInteger skipped = new AtomicInteger();
+		private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+		private final PrintStream err;
+
+		Statistics(PrintStream err) {
+			this.err = err;
+		}
+
+		void generated() {
+			generated.incrementAndGet();
+		}
+
+		void skipped() {
+			skipped.incrementAndGet();
+		}
+
+		void failed(String what, Exception e) {
+			failures.add(what);
+			err.println("error generating builder for " + what + ": " + e);
+		}
+
+		int getGenerated() {
+			return generated.get();
+		}
+
+		int getSkipped() {
+			return skipped.get();
+		}
+
+		List<String> getFailures() {
+			return failures;
+		}
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Runs the generator.
+	 *
+	 * @return The exit code: 0 on success, 1 if a builder could not be
+	 *         generated, 2 on invalid arguments.
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+
+		Settings settings;
+
+		try {
+			settings = parse(args);
+		}
+		catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+
+		long start = System.nanoTime();
+		Statistics statistics = new Statistics(err);
+
+		try {
+			generate(settings, statistics);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			err.println("interrupted");
+			return EXIT_FAILURES;
+		}
+
+		out.println(String.format(
+				"generated %d builders in %d ms, %d skipped, %d failed",
+				statistics.getGenerated(),
+				(System.nanoTime() - start) / 1000000L,
+				statistics.getSkipped(), statistics.getFailures().size()));
+
+		return statistics.getFailures().isEmpty() ? EXIT_OK : EXIT_FAILURES;
+	}
+
+	private static void generate(Settings settings, final Statistics statistics)
+			throws InterruptedException {
+
+		ExecutorService workers = Executors.newFixedThreadPool(settings.threads);
+		final Semaphore pendingBatches = new Semaphore(settings.threads * 2);
+
+		try {
+			LinkedList<File> directories = new LinkedList<File>();
+			directories.add(settings.sourceDirectory);
+
+			List<String> batch = new ArrayList<String>(settings.batchSize);
+
+			while (!directories.isEmpty()) {
+
+				File[] children = directories.removeFirst().listFiles();
+
+				if (children == null) {
+					continue;
+				}
+
+				for (File child : children) {
+
+					if (child.isDirectory()) {
+						directories.add(child);
+					}
+					else if (child.getName().endsWith(".java")) {
+
+						batch.add(child.getPath());
+
+						if (batch.size() == settings.batchSize) {
+							submit(workers, pendingBatches, new GenerationBatch(batch, settings, statistics));
+							batch = new ArrayList<String>(settings.batchSize);
+						}
+					}
+				}
+			}
+
+			if (!batch.isEmpty()) {
+				submit(workers, pendingBatches, new GenerationBatch(batch, settings, statistics));
+			}
+		}
+		finally {
+			workers.shutdown();
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Submits a batch, blocking while too many batches are pending.
+	 */
+	private static void submit(ExecutorService workers,
+			final Semaphore pendingBatches, final GenerationBatch batch)
+			throws InterruptedException {
+
+		pendingBatches.acquire();
+
+		workers.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					batch.run();
+				}
+				finally {
+					pendingBatches.release();
+				}
+			}
+		});
+	}
+
+	private static Settings parse(String[] args) {
+
+		Settings settings = new Settings();
+
+		for (int i = 0; i < args.length; i++) {
+
+			String arg = args[i];
+
+			if ("-source".equals(arg)) {
+				settings.sourceDirectory = new File(value(args, ++i, arg));
+			}
+			else if ("-output".equals(arg)) {
+				settings.outputDirectory = new File(value(args, ++i, arg));
+			}
+			else if ("-setterPrefix".equals(arg)) {
+				settings.setterPrefix = value(args, ++i, arg);
+			}
+			else if ("-builderSuffix".equals(arg)) {
+				settings.builderSuffix = value(args, ++i, arg);
+			}
+			else if ("-noFluentSetters".equals(arg)) {
+				settings.options.remove(BuilderOption.FLUENT_SETTERS);
+			}
+			else if ("-sourceLevel".equals(arg)) {
+				settings.sourceLevel = value(args, ++i, arg);
+			}
+			else if ("-batchSize".equals(arg)) {
+				settings.batchSize = positive(value(args, ++i, arg), arg);
+			}
+			else if ("-threads".equals(arg)) {
+				settings.threads = positive(value(args, ++i, arg), arg);
+			}
+			else {
+				throw new IllegalArgumentException("unknown argument: " + arg);
+			}
+		}
+
+		if (settings.sourceDirectory == null || !settings.sourceDirectory.isDirectory()) {
+			throw new IllegalArgumentException("no source directory given");
+		}
+
+		if (settings.outputDirectory == null) {
+			throw new IllegalArgumentException("no output directory given");
+		}
+
+		return settings;
+	}
+
+	private static String value(String[] args, int index, String arg) {
+
+		if (index >= args.length) {
+			throw new IllegalArgumentException("missing value for " + arg);
+		}
+
+		return args[index];
+	}
+
+	private static int positive(String value, String arg) {
+
+		try {
+			int result = Integer.parseInt(value);
+
+			if (result > 0) {
+				return result;
+			}
+		}
+		catch (NumberFormatException e) {
+			// reported below
+		}
+
+		throw new IllegalArgumentException(arg + " must be a positive number");
+	}
+
+}
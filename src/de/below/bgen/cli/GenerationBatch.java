@@ -0,0 +1,171 @@
+package de.below.bgen.cli;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import de.below.bgen.builder.generator.BuilderModel;
+import de.below.bgen.builder.generator.BuilderModelFactory;
+import de.below.bgen.builder.generator.BuilderRenderer;
+import de.below.bgen.builder.generator.SourceTypeAnalyzer;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+import de.below.codegen.ChannelSink;
+import de.below.codegen.CodeWriterException;
+
+/**
+ * Parses a bounded batch of source files with one
+ * {@link ASTParser#createASTs(String[], String[], String[], FileASTRequestor, org.eclipse.core.runtime.IProgressMonitor)
+ * createASTs} call, and renders and writes the builders of each compilation
+ * unit as soon as it has been parsed. No AST outlives its callback, so the
+ * memory use is bounded by the batch size.
+ *
+ * @author martin
+ */
+class GenerationBatch extends FileASTRequestor implements Runnable {
+
+	private static final String ENCODING = "UTF-8";
+	private static final Charset CHARSET = Charset.forName(ENCODING);
+
+	private final String[] sourceFiles;
+	private final BuilderGeneratorCli.Settings settings;
+	private final BuilderGeneratorCli.Statistics statistics;
+	private final BuilderModelFactory modelFactory = new BuilderModelFactory();
+	private final BuilderRenderer renderer;
+
+	GenerationBatch(List<String> sourceFiles,
+			BuilderGeneratorCli.Settings settings,
+			BuilderGeneratorCli.Statistics statistics) {
+
+		this.sourceFiles = sourceFiles.toArray(new String[sourceFiles.size()]);
+		this.settings = settings;
+		this.statistics = statistics;
+		this.renderer = new BuilderRenderer(settings.getSetterNaming(),
+				settings.getOptions());
+	}
+
+	@Override
+	public void run() {
+
+		String[] encodings = new String[sourceFiles.length];
+
+		for (int i = 0; i < encodings.length; i++) {
+			encodings[i] = ENCODING;
+		}
+
+		ASTParser parser = ASTParser.newParser(AST.JLS3);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setResolveBindings(false);
+		parser.setCompilerOptions(settings.getCompilerOptions());
+		parser.setEnvironment(new String[0], new String[0], null, false);
+
+		try {
+			parser.createASTs(sourceFiles, encodings, new String[0], this, null);
+		}
+		catch (RuntimeException e) {
+			statistics.failed(sourceFiles.length + " files starting with "
+					+ sourceFiles[0], e);
+		}
+	}
+
+	@Override
+	public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+
+		String packageName = AstDescriptors.getPackageName(ast);
+
+		for (TypeDeclaration type : AstDescriptors.getTypes(ast)) {
+
+			TypeDescriptor sourceType = AstDescriptors.describe(type, packageName);
+
+			if (!isEligible(sourceType)) {
+				statistics.skipped();
+				continue;
+			}
+
+			try {
+				String builderName = sourceType.getName() + settings.getBuilderSuffix();
+
+				write(packageName, AstDescriptors.getImports(ast),
+						createModel(sourceType, builderName));
+
+				statistics.generated();
+			}
+			catch (IOException e) {
+				statistics.failed(sourceType.getFullyQualifiedName(), e);
+			}
+			catch (RuntimeException e) {
+				statistics.failed(sourceType.getFullyQualifiedName(), e);
+			}
+		}
+	}
+
+	private boolean isEligible(TypeDescriptor sourceType) {
+		return !sourceType.getName().endsWith(settings.getBuilderSuffix())
+				&& SourceTypeAnalyzer.isInstantiable(sourceType);
+	}
+
+	private BuilderModel createModel(TypeDescriptor sourceType,
+			String builderName) {
+
+		MethodDescriptor instantiationMethod = SourceTypeAnalyzer
+				.findDefaultInstantiationMethod(sourceType);
+
+		List<MethodDescriptor> setters = SourceTypeAnalyzer.findSetters(
+				sourceType, instantiationMethod);
+
+		return modelFactory.create(sourceType, instantiationMethod, setters,
+				Collections.<String> emptyList(), builderName, false);
+	}
+
+	/**
+	 * Streams the builder into its file, without creating the whole source
+	 * in memory.
+	 */
+	private void write(String packageName, List<String> imports,
+			BuilderModel model) throws IOException {
+
+		File directory = new File(settings.getOutputDirectory(),
+				packageName.replace('.', File.separatorChar));
+
+		if (!directory.isDirectory() && !directory.mkdirs()
+				&& !directory.isDirectory()) {
+			throw new IOException("could not create " + directory);
+		}
+
+		ChannelSink sink = new ChannelSink(new FileOutputStream(new File(
+				directory, model.getBuilderName() + ".java")).getChannel(),
+				CHARSET);
+
+		try {
+			if (packageName.length() > 0) {
+				sink.append("package ").append(packageName).append(";\n\n");
+			}
+
+			for (String importDeclaration : imports) {
+				sink.append(importDeclaration).append('\n');
+			}
+
+			if (!imports.isEmpty()) {
+				sink.append('\n');
+			}
+
+			renderer.render(model, sink);
+		}
+		catch (CodeWriterException e) {
+			throw e.getCause();
+		}
+		finally {
+			sink.close();
+		}
+	}
+
+}
@@ -5,5 +5,19 @@ package de.below.bgen.codegen;
  * @author martin below
  */
 public enum Visibility {
-	PRIVATE, PROTECTED, PACKAGE_DEFAULT, PUBLIC
+	PRIVATE("private"), PROTECTED("protected"), PACKAGE_DEFAULT(null), PUBLIC("public");
+
+	private final String keyword;
+
+	private Visibility(String keyword) {
+		this.keyword = keyword;
+	}
+
+	/**
+	 * @return The modifier keyword, or <code>null</code> for
+	 *         {@link #PACKAGE_DEFAULT}.
+	 */
+	public String getKeyword() {
+		return keyword;
+	}
 }
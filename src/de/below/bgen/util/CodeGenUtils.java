@@ -68,9 +68,10 @@ public class CodeGenUtils {
 	public static void renderArgumentList(final IMethod method,
 			StringBuilder target) throws JavaModelException {
 		target.append("(");
-		for (int i = 0; i < method.getParameterNames().length; i++) {
+		String[] parameterNames = method.getParameterNames();
+		for (int i = 0; i < parameterNames.length; i++) {
 
-			String paramName = method.getParameterNames()[i];
+			String paramName = parameterNames[i];
 
 			if (i > 0) {
 				target.append(", ");
@@ -1,10 +1,10 @@
 package de.below.bgen.wizard;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMethod;
@@ -35,6 +35,8 @@ import org.eclipse.ui.dialogs.ElementListSelectionDialog;
 
 import de.below.bgen.Activator;
 import de.below.bgen.builder.generator.BuilderGeneratorFacade;
+import de.below.bgen.builder.generator.SourceTypeAnalyzer;
+import de.below.bgen.util.CodeGenUtils;
 import de.below.bgen.wizard.MethodTableViewer.Columns;
 import de.below.rcp.util.ControlUtil;
 import de.below.rcp.widgets.SimpleComboViewer;
@@ -64,8 +66,11 @@ public class NewBuilderWizard extends SimpleWizard {
 	private Text enclosingTypeNameInput;
 	private SimpleComboViewer<IMethod> constructorInput;
 	private MethodTableViewer settersViewer;
+	private PropertyTableViewer mandatoryViewer;
 	private IType type;
 	private Button createFluentSetters;
+	private Button assignedSettersOnly;
+	private Button reusableBuilders;
 	private Button prefixedSetters;
 	private InitializableWizardPage page1;
 	private InitializableWizardPage page2;
@@ -158,6 +163,13 @@ public class NewBuilderWizard extends SimpleWizard {
 				new Label(composite, SWT.NULL);
 				createFluentSetters = newButton(composite, "Generate Fluent API", SWT.CHECK);
 				createFluentSetters.setSelection(true);
+				reusableBuilders = newButton(composite, "Generate reset() and local()", SWT.CHECK);
+
+				newLabel(composite, "Should build() skip the setters of properties " +
+						"that have not been set on the builder?", 4);
+				new Label(composite, SWT.NULL);
+				assignedSettersOnly = newButton(composite, "Call Setters of assigned Properties only", SWT.CHECK);
+				assignedSettersOnly.setSelection(true);
 				
 			}
 
@@ -314,6 +326,7 @@ public class NewBuilderWizard extends SimpleWizard {
 				
 				createConstructorSection(composite);
 				createPropertyViewer(composite);
+				createMandatoryViewer(composite);
 				
 				initializeDefaults();
 				
@@ -342,6 +355,18 @@ public class NewBuilderWizard extends SimpleWizard {
 				
 			}
 			
+			private void createMandatoryViewer(Composite composite) {
+
+				newLabel(composite, "Mandatory properties, that must be set before build():", 2);
+
+				mandatoryViewer = new PropertyTableViewer(composite, SWT.BORDER,
+						SWT.FULL_SELECTION | SWT.CHECK, PropertyTableViewer.Columns.NAME);
+
+				GridDataFactory.fillDefaults().grab(true, false).span(2, 1)
+						.hint(SWT.DEFAULT, 120)
+						.applyTo(mandatoryViewer);
+			}
+
 			@Override
 			protected void initializeDefaults() {
 				
@@ -358,9 +383,40 @@ public class NewBuilderWizard extends SimpleWizard {
 			}
 
 			private void loadSetters() {
-				Collection<IMethod> setters = getSettersFor(type, constructorInput.getSelection());
+				IMethod constructor = constructorInput.getSelection();
+				Collection<IMethod> setters = getSettersFor(type, constructor);
 				settersViewer.setInput(setters);
 				settersViewer.setChecked(setters, true);
+				loadProperties(constructor, setters);
+			}
+
+			/**
+			 * Lists the arguments of the constructor and the setters as
+			 * candidates for mandatory properties. Properties that have been
+			 * ticked before stay ticked, if they are still listed.
+			 */
+			private void loadProperties(IMethod constructor, Collection<IMethod> setters) {
+
+				List<String> ticked = new ArrayList<String>();
+
+				if (mandatoryViewer.getChecked() != null) {
+					ticked.addAll(mandatoryViewer.getChecked());
+				}
+
+				List<String> properties = getArgumentNamesOf(constructor);
+
+				for (IMethod setter : setters) {
+					String property = CodeGenUtils.getPropertyNameFromAccessorMethod(setter.getElementName());
+					if (!properties.contains(property)) {
+						properties.add(property);
+					}
+				}
+
+				ticked.retainAll(properties);
+
+				mandatoryViewer.setInput(properties);
+				mandatoryViewer.setChecked(properties, false);
+				mandatoryViewer.setChecked(ticked, true);
 			}
 
 			private void createConstructorSection(Composite composite) {
@@ -453,70 +509,46 @@ public class NewBuilderWizard extends SimpleWizard {
 
 	private Collection<IMethod> getSettersFor(IType type, IMethod constructor) {
 		
-		List<IMethod> result = new ArrayList<IMethod>();
-		
-		List<String> parametersFromConstructor = new ArrayList<String>();
-		
 		try {
-			if (constructor != null) {
-				
-				for (String paramName : constructor.getParameterNames()) {
-					parametersFromConstructor.add(paramName.toLowerCase());
-				}
-			}
-		
-			for (IMethod method : type.getMethods()) {
-				
-				String methodName = method.getElementName();
-				
-				if (isVisible(method) && methodName.startsWith("set") && methodName.length() > 3) {
-					
-					if (method.getParameterNames().length == 1) {
-						
-						if (!parametersFromConstructor.contains(methodName.substring(3).toLowerCase())) {
-							result.add(method);
-						}
-						
-					}
-					
-				}
-				
-			}
+			return SourceTypeAnalyzer.findSetters(type, constructor);
 		}
 		catch (JavaModelException e) {
 			// syntax error on method -> swallow
+			return new ArrayList<IMethod>();
 		}
-		
-		
-		return result;
 	}
 
-	private List<IMethod> findConstructorsFor(IType type) {
-		
-		List<IMethod> result = new ArrayList<IMethod>();
+	/**
+	 * @return The names of the arguments of the given constructor or factory
+	 *         method, or an empty list if there is none.
+	 */
+	private List<String> getArgumentNamesOf(IMethod constructor) {
+
+		List<String> result = new ArrayList<String>();
+
+		if (constructor == null) {
+			return result;
+		}
 
 		try {
-			for (IMethod method : type.getMethods()) {
-				if (isVisible(method) && (method.isConstructor() || isFactoryMethod(method)) ) {
-					result.add(method);
-				}
-			}
+			result.addAll(Arrays.asList(constructor.getParameterNames()));
 		}
 		catch (JavaModelException e) {
-			e.printStackTrace();
+			// syntax error on method -> swallow
 		}
-		
+
 		return result;
 	}
 
-	private boolean isFactoryMethod(IMethod method) throws JavaModelException {
+	private List<IMethod> findConstructorsFor(IType type) {
 		
-		return (method.getFlags() & Flags.AccStatic) > 0 && 
-			Signature.toString(method.getReturnType()).equals(type.getFullyQualifiedName());
-	}
-
-	private boolean isVisible(IMethod method) throws JavaModelException {
-		return (method.getFlags() & Flags.AccPublic) > 0;
+		try {
+			return SourceTypeAnalyzer.findConstructors(type);
+		}
+		catch (JavaModelException e) {
+			e.printStackTrace();
+			return new ArrayList<IMethod>();
+		}
 	}
 
 	
@@ -557,7 +589,10 @@ public class NewBuilderWizard extends SimpleWizard {
 				.newInstance()
 				.withType(type)
 				.withSetterProperties(settersViewer.getChecked())
+				.withMandatoryProperties(getMandatoryProperties())
 				.withFluentSetters(createFluentSetters.getSelection())
+				.withAssignedSettersOnly(assignedSettersOnly.getSelection())
+				.withReusableBuilders(reusableBuilders.getSelection())
 				.withBuilderName(builderTypeNameInput.getText())
 				.withSetterPrefix(prefixedSetters.getSelection() ? "set" : null)
 				;
@@ -589,6 +624,30 @@ public class NewBuilderWizard extends SimpleWizard {
 		
 	}
 
+	/**
+	 * @return The names of the properties ticked as mandatory, that are
+	 *         also included in the builder: the arguments of the constructor
+	 *         and the ticked setters.
+	 */
+	private List<String> getMandatoryProperties() {
+
+		List<String> included = getArgumentNamesOf(constructorInput.getSelection());
+
+		for (IMethod setter : settersViewer.getChecked()) {
+			included.add(CodeGenUtils.getPropertyNameFromAccessorMethod(setter.getElementName()));
+		}
+
+		List<String> result = new ArrayList<String>();
+
+		for (String property : mandatoryViewer.getChecked()) {
+			if (included.contains(property)) {
+				result.add(property);
+			}
+		}
+
+		return result;
+	}
+
 	private IType getEnclosingType() {
 		
 		IJavaProject project = (IJavaProject) type.getAncestor(IJavaElement.JAVA_PROJECT);
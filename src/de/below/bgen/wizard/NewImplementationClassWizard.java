@@ -60,6 +60,7 @@ public class NewImplementationClassWizard extends SimpleWizard {
 	private Text targetTypeNameInput;
 	private Text targetPackageNameInput;
 	private Text enclosingTypeNameInput;
+	private Button propertyTable;
 	private IType type;
 	private InitializableWizardPage page1;
 
@@ -133,6 +134,9 @@ public class NewImplementationClassWizard extends SimpleWizard {
 
 //				GridDataFactory gridDataFactory = GridDataFactory.swtDefaults().span(2, 1);
 				
+				new Label(composite, SWT.NULL);
+				propertyTable = newButton(composite, "Generate Property Table", SWT.CHECK);
+				
 			}
 
 			@Override
@@ -376,7 +380,7 @@ public class NewImplementationClassWizard extends SimpleWizard {
 			
 			BeanGenerator generator = new BeanGenerator(type,
 					targetTypeNameInput.getText(), new NullProgressMonitor(),
-					targetTypeGenerator, false);
+					targetTypeGenerator, false, propertyTable.getSelection());
 			
 			generator.run();
 			
@@ -0,0 +1,53 @@
+package de.below.bgen.wizard;
+
+import org.eclipse.swt.widgets.Composite;
+
+import de.below.rcp.widgets.SimpleTableViewer;
+
+/**
+ * Lists properties by name, no matter whether they are set by a setter or
+ * passed to the constructor or factory method.
+ */
+public class PropertyTableViewer extends SimpleTableViewer<String> {
+
+	public static enum Columns implements ColumnProvider<String> {
+		
+		NAME(new TextColumn<String>() {
+			
+			@Override
+			public String getLabel(String entity) {
+				return entity;
+			}
+
+			@Override
+			public String getColumnHeader() {
+				return "Property";
+			}
+		});
+		
+		;
+
+		private final Column<String, ?> column;
+		
+		private Columns(Column<String, ?> column) {
+			this.column = column;
+		}
+		
+		@Override
+		public SimpleTableViewer.Column<String, ?> getColumn() {
+			return column;
+		}
+		
+	}
+	
+	public PropertyTableViewer(
+			Composite parent,
+			int style,
+			int viewerStyle,
+			Columns... visibleColumns) {
+		
+		super(parent, style, viewerStyle, String.class, visibleColumns);
+		
+	}
+
+}
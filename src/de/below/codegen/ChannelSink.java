@@ -0,0 +1,162 @@
+package de.below.codegen;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link Appendable} that encodes the appended characters and writes them
+ * to a {@link WritableByteChannel}. Characters and bytes are buffered in
+ * buffers of constant size, so arbitrarily large code can be streamed with
+ * constant memory.
+ *
+ * <p>
+ * {@link #flush()} writes all pending bytes; {@link #close()} flushes and
+ * closes the channel.
+ * </p>
+ *
+ * @author martin
+ */
+public class ChannelSink implements Appendable, Flushable, Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final CharBuffer chars;
+	private final ByteBuffer bytes;
+
+	public ChannelSink(WritableByteChannel channel, Charset charset) {
+		this(channel, charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize
+	 *            The number of characters that are buffered before they are
+	 *            encoded.
+	 */
+	public ChannelSink(WritableByteChannel channel, Charset charset,
+			int bufferSize) {
+
+		this.channel = channel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = CharBuffer.allocate(bufferSize);
+		this.bytes = ByteBuffer.allocate((int) Math.ceil(bufferSize
+				* encoder.maxBytesPerChar()));
+	}
+
+	@Override
+	public ChannelSink append(CharSequence csq) throws IOException {
+		return append(csq, 0, csq.length());
+	}
+
+	@Override
+	public ChannelSink append(CharSequence csq, int start, int end)
+			throws IOException {
+
+		int offset = start;
+
+		while (offset < end) {
+
+			if (!chars.hasRemaining()) {
+				encode(false);
+			}
+
+			int count = Math.min(end - offset, chars.remaining());
+			chars.append(csq, offset, offset + count);
+			offset += count;
+		}
+
+		return this;
+	}
+
+	@Override
+	public ChannelSink append(char c) throws IOException {
+
+		if (!chars.hasRemaining()) {
+			encode(false);
+		}
+
+		chars.put(c);
+
+		return this;
+	}
+
+	/**
+	 * Encodes all buffered characters and writes them to the channel.
+	 */
+	@Override
+	public void flush() throws IOException {
+		encode(false);
+		writeBytes();
+	}
+
+	/**
+	 * Flushes the remaining characters and closes the channel. The sink must
+	 * not be used afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			encode(true);
+
+			while (encoder.flush(bytes).isOverflow()) {
+				writeBytes();
+			}
+
+			writeBytes();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	private void encode(boolean endOfInput) throws IOException {
+
+		chars.flip();
+
+		CoderResult result;
+
+		do {
+			result = encoder.encode(chars, bytes, endOfInput);
+
+			if (result.isOverflow()) {
+				writeBytes();
+			}
+		}
+		while (result.isOverflow());
+
+		chars.compact();
+	}
+
+	private void writeBytes() throws IOException {
+		bytes.flip();
+		writeFully(bytes, channel);
+		bytes.clear();
+	}
+
+	/**
+	 * Writes all remaining bytes of the buffer to the channel.
+	 */
+	private static void writeFully(ByteBuffer buffer, WritableByteChannel channel)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "channel " + channel;
+	}
+
+}
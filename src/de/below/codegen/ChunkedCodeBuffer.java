@@ -0,0 +1,171 @@
+package de.below.codegen;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A growable character buffer for generated code, made of fixed-size chunks.
+ * Other than a {@link StringBuilder}, it never copies the characters written
+ * so far when it grows, and its content can be written to the destination
+ * chunk by chunk, without creating a {@link String} of the whole code.
+ *
+ * @author martin
+ */
+public class ChunkedCodeBuffer implements Appendable, CharSequence {
+
+	private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private final int chunkSize;
+	private final List<char[]> chunks = new ArrayList<char[]>();
+	private char[] current;
+	private int position;
+	private int length;
+
+	public ChunkedCodeBuffer() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkSize
+	 *            The number of characters per chunk.
+	 */
+	public ChunkedCodeBuffer(int chunkSize) {
+
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("invalid chunk size: " + chunkSize);
+		}
+
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public ChunkedCodeBuffer append(CharSequence csq) {
+		return append(csq, 0, csq.length());
+	}
+
+	@Override
+	public ChunkedCodeBuffer append(CharSequence csq, int start, int end) {
+
+		int offset = start;
+
+		while (offset < end) {
+
+			ensureCapacity();
+
+			int count = Math.min(end - offset, chunkSize - position);
+
+			if (csq instanceof String) {
+				((String) csq).getChars(offset, offset + count, current, position);
+			}
+			else {
+				for (int i = 0; i < count; i++) {
+					current[position + i] = csq.charAt(offset + i);
+				}
+			}
+
+			position += count;
+			length += count;
+			offset += count;
+		}
+
+		return this;
+	}
+
+	@Override
+	public ChunkedCodeBuffer append(char c) {
+
+		ensureCapacity();
+
+		current[position++] = c;
+		length++;
+
+		return this;
+	}
+
+	private void ensureCapacity() {
+		if (current == null || position == chunkSize) {
+			current = new char[chunkSize];
+			chunks.add(current);
+			position = 0;
+		}
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		}
+
+		return chunks.get(index / chunkSize)[index % chunkSize];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	/**
+	 * Removes all content, keeping the first chunk for reuse.
+	 */
+	public void clear() {
+
+		if (chunks.size() > 1) {
+			char[] first = chunks.get(0);
+			chunks.clear();
+			chunks.add(first);
+			current = first;
+		}
+
+		position = 0;
+		length = 0;
+	}
+
+	/**
+	 * Writes the content to the given destination, one chunk at a time.
+	 */
+	public void writeTo(Appendable out) throws IOException {
+
+		for (int i = 0; i < chunks.size(); i++) {
+			out.append(CharBuffer.wrap(chunks.get(i), 0, chunkLength(i)));
+		}
+	}
+
+	/**
+	 * Encodes the content with the given charset and writes it to the given
+	 * channel, using an output buffer of constant size.
+	 */
+	public void writeTo(WritableByteChannel channel, Charset charset)
+			throws IOException {
+
+		ChannelSink sink = new ChannelSink(channel, charset);
+		writeTo(sink);
+		sink.flush();
+	}
+
+	private int chunkLength(int index) {
+		return index == chunks.size() - 1 ? position : chunkSize;
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder result = new StringBuilder(length);
+
+		for (int i = 0; i < chunks.size(); i++) {
+			result.append(chunks.get(i), 0, chunkLength(i));
+		}
+
+		return result.toString();
+	}
+
+}
@@ -76,6 +76,16 @@ public class ClassBuilder {
 		 */
 		FieldTypeStep<InClassStep<T>> beginField();
 
+		/**
+		 * Adds a member by rendering a precompiled template.
+		 * 
+		 * @param template
+		 *            The template of the member.
+		 * @param values
+		 *            The values of the slots of the template.
+		 */
+		InClassStep<T> addMember(MemberTemplate template, String... values);
+
 		/**
 		 * Finishes creation of the class.
 		 * 
@@ -167,6 +177,12 @@ public class ClassBuilder {
 			return FieldBuilder.<InClassStep<T>>newField(out, this);
 		}
 
+		@Override
+		public InClassStep<T> addMember(MemberTemplate template, String... values) {
+			template.render(out, values);
+			return this;
+		}
+
 		@Override
 		public ConstructorVisibilityStep<InClassStep<T>> beginConstructor() {
 			return ConstructorBuilder.<InClassStep<T>>newConstructor(out, this, className);
@@ -187,7 +203,14 @@ public class ClassBuilder {
 	}
 
 	public static VisibilityStep<JavaCodeWriter> newClass() {
-		JavaCodeWriter writer = JavaCodeWriter.create();
+		return newClass(JavaCodeWriter.create());
+	}
+
+	/**
+	 * Creates a class on the given writer, e.g. a {@link JavaCodeWriter#pooled()
+	 * pooled} one.
+	 */
+	public static VisibilityStep<JavaCodeWriter> newClass(JavaCodeWriter writer) {
 		return new Steps<JavaCodeWriter>(writer, writer);
 	}
 
@@ -0,0 +1,23 @@
+package de.below.codegen;
+
+import java.io.IOException;
+
+/**
+ * Signals that the sink of a {@link JavaCodeWriter} could not be written.
+ * 
+ * @author martin
+ */
+public class CodeWriterException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CodeWriterException(IOException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	@Override
+	public synchronized IOException getCause() {
+		return (IOException) super.getCause();
+	}
+
+}
@@ -62,15 +62,10 @@ public class ConstructorBuilder {
 		}
 		
 		@Override
-		public InConstructorStep<T> addStatement(final Expression expression) {
-			return addStatement(new Statement() {
-
-				@Override
-				public void render(JavaCodeWriter out) {
-					expression.render(out);
-				}
-				
-			});
+		public InConstructorStep<T> addStatement(Expression expression) {
+			expression.render(out);
+			out.terminateStatement().newLine();
+			return this;
 		}
 		
 
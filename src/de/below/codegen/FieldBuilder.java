@@ -1,5 +1,6 @@
 package de.below.codegen;
 
+import de.below.bgen.codegen.Expression;
 import de.below.bgen.codegen.Visibility;
 import de.below.codegen.JavaCodeWriter.Tokens;
 
@@ -50,6 +51,13 @@ public class FieldBuilder {
 		 */
 		BuildStep<T> visibility(Visibility visibility);
 
+		/**
+		 * Sets the initial value of the field.
+		 * @param value The expression to initialize the field with.
+		 * @return this step
+		 */
+		BuildStep<T> value(Expression value);
+
 		/**
 		 * Renders the type.
 		 * 
@@ -66,6 +74,7 @@ public class FieldBuilder {
 		private String typeName;
 		private final JavaCodeWriter out;
 		private boolean staticField;
+		private Expression value;
 		private final T parent;
 
 		Steps(JavaCodeWriter out, T parent) {
@@ -92,6 +101,12 @@ public class FieldBuilder {
 			return this;
 		}
 		
+		@Override
+		public BuildStep<T> value(Expression value) {
+			this.value = value;
+			return this;
+		}
+		
 		@Override
 		public BuildStep<T> name(String name) {
 			this.name = name;
@@ -118,8 +133,14 @@ public class FieldBuilder {
 			}
 			
 			out.writeWs(typeName)
-				.write(name)
-				.write(';')
+				.write(name);
+			
+			if (value != null) {
+				out.spc().writeWs(Tokens.EQUAL);
+				value.render(out);
+			}
+			
+			out.write(';')
 				.newLine()
 				;
 			
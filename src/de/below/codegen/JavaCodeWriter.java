@@ -1,14 +1,23 @@
 package de.below.codegen;
 
-import java.util.Iterator;
+import java.io.Flushable;
+import java.io.IOException;
 import java.util.List;
 
 import de.below.bgen.codegen.Visibility;
-import de.below.bgen.util.CodeGenUtils;
 
 /**
  * Low-Level-API for writing java source code.
  * 
+ * <p>
+ * The code is written to an {@link Appendable} sink. By default, this is a
+ * {@link StringBuilder} whose content is returned by {@link #render()}. To
+ * stream large classes to their destination without building the whole
+ * source in memory, a {@link java.io.Writer}, a {@link ChunkedCodeBuffer} or a
+ * {@link ChannelSink} can be used instead. {@link IOException IOExceptions}
+ * of the sink are rethrown as {@link CodeWriterException}.
+ * </p>
+ * 
  * @author martin
  * 
  */
@@ -32,7 +41,29 @@ public class JavaCodeWriter {
 		public static final char TAB = '\t';
 	}
 
-	private final StringBuilder sink;
+	/**
+	 * Indentation prefixes by depth, so a line is indented with a single
+	 * append.
+	 */
+	private static final String[] INDENTS = new String[16];
+
+	static {
+		StringBuilder indent = new StringBuilder();
+		for (int i = 0; i < INDENTS.length; i++) {
+			INDENTS[i] = indent.toString();
+			indent.append(Tokens.TAB);
+		}
+	}
+
+	private static final ThreadLocal<JavaCodeWriter> POOL = new ThreadLocal<JavaCodeWriter>() {
+
+		@Override
+		protected JavaCodeWriter initialValue() {
+			return create();
+		}
+	};
+
+	private final Appendable sink;
 	private int indention = 0;
 	private boolean newLine;
 
@@ -44,7 +75,36 @@ public class JavaCodeWriter {
 		return new JavaCodeWriter(strBuilder);
 	}
 
-	private JavaCodeWriter(StringBuilder sink) {
+	/**
+	 * Returns the pooled writer of the calling thread, {@link #reset() reset}.
+	 * The writer keeps its buffer between uses, so rendering into it does not
+	 * reallocate the buffer once it has grown to the size of the largest
+	 * class.
+	 * 
+	 * <p>
+	 * The next call on the same thread resets the writer again, so the code
+	 * must be taken with {@link #render()} before another class is rendered
+	 * with a pooled writer.
+	 * </p>
+	 */
+	public static JavaCodeWriter pooled() {
+		return POOL.get().reset();
+	}
+
+	/**
+	 * Creates a writer that streams the code to the given sink.
+	 * 
+	 * @param sink
+	 *            The sink to write to, must not be <code>null</code>.
+	 */
+	public static JavaCodeWriter create(Appendable sink) {
+		return new JavaCodeWriter(sink);
+	}
+
+	private JavaCodeWriter(Appendable sink) {
+		if (sink == null) {
+			throw new IllegalArgumentException("no sink given");
+		}
 		this.sink = sink;
 	}
 
@@ -71,31 +131,105 @@ public class JavaCodeWriter {
 
 	public JavaCodeWriter write(String string) {
 		indent();
-		sink.append(string);
+		append(string);
 		return this;
 	}
 
 	public JavaCodeWriter write(char character) {
 		indent();
-		sink.append(character);
+		append(character);
 		return this;
 	}
 
 	private void indent() {
 		if (newLine) {
-			for (int i = 0; i < indention; i++) {
-				sink.append(Tokens.TAB );
+			if (indention < INDENTS.length) {
+				append(INDENTS[indention]);
+			}
+			else {
+				for (int i = 0; i < indention; i++) {
+					append(Tokens.TAB);
+				}
 			}
 			newLine = false;
 		}
 	}
 
 	public JavaCodeWriter newLine() {
-		sink.append(Tokens.NEW_LINE);
+		append(Tokens.NEW_LINE);
 		this.newLine = true;
 		return this;
 	}
 
+	/**
+	 * Discards the code written so far, so the writer can be reused for
+	 * another class.
+	 * 
+	 * @return this
+	 * @throws IllegalStateException
+	 *             If the code is streamed to a sink that can not be cleared.
+	 */
+	public JavaCodeWriter reset() {
+
+		if (sink instanceof StringBuilder) {
+			((StringBuilder) sink).setLength(0);
+		}
+		else if (sink instanceof ChunkedCodeBuffer) {
+			((ChunkedCodeBuffer) sink).clear();
+		}
+		else {
+			throw new IllegalStateException("can not reset " + sink);
+		}
+
+		indention = 0;
+		newLine = false;
+		return this;
+	}
+
+	/**
+	 * Flushes the sink, if it is {@link Flushable}.
+	 * 
+	 * @return this
+	 */
+	public JavaCodeWriter flush() {
+		if (sink instanceof Flushable) {
+			try {
+				((Flushable) sink).flush();
+			}
+			catch (IOException e) {
+				throw new CodeWriterException(e);
+			}
+		}
+		return this;
+	}
+
+	private void append(String string) {
+		try {
+			sink.append(string);
+		}
+		catch (IOException e) {
+			throw new CodeWriterException(e);
+		}
+	}
+
+	private void append(String string, int start) {
+		try {
+			sink.append(string, start, string.length());
+		}
+		catch (IOException e) {
+			throw new CodeWriterException(e);
+		}
+	}
+
+	private void append(char character) {
+		try {
+			sink.append(character);
+		}
+		catch (IOException e) {
+			throw new CodeWriterException(e);
+		}
+	}
+
 	public JavaCodeWriter increaseIndention() {
 		indention++;
 		return this;
@@ -111,8 +245,8 @@ public class JavaCodeWriter {
 
 	public JavaCodeWriter renderVisibility(Visibility visibility) {
 
-		if (visibility != null && visibility != Visibility.PACKAGE_DEFAULT) {
-			writeWs(visibility.name().toLowerCase());
+		if (visibility != null && visibility.getKeyword() != null) {
+			writeWs(visibility.getKeyword());
 		}
 
 		return this;
@@ -121,10 +255,19 @@ public class JavaCodeWriter {
 
 	@Override
 	public String toString() {
-		return render();
+		return sink.toString();
 	}
 
+	/**
+	 * Returns the code written so far.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the code is streamed to a sink that does not keep it.
+	 */
 	public String render() {
+		if (!(sink instanceof CharSequence)) {
+			throw new IllegalStateException("code has been streamed to " + sink);
+		}
 		return sink.toString();
 	}
 
@@ -168,10 +311,13 @@ public class JavaCodeWriter {
 	public JavaCodeWriter renderArgumentList(
 			List<? extends Argument> arguments, boolean includeTypes) {
 
-		for (Iterator<? extends Argument> it = arguments.iterator(); it
-				.hasNext();) {
+		for (int i = 0; i < arguments.size(); i++) {
 
-			Argument arg = it.next();
+			Argument arg = arguments.get(i);
+
+			if (i > 0) {
+				write(", ");
+			}
 
 			if (includeTypes) {
 				writeWs(arg.getType());
@@ -179,10 +325,6 @@ public class JavaCodeWriter {
 
 			write(arg.getName());
 
-			if (it.hasNext()) {
-				write(", ");
-			}
-
 		}
 
 		return this;
@@ -202,7 +344,14 @@ public class JavaCodeWriter {
 	 * @return this
 	 */
 	public JavaCodeWriter writeCapitalized(String str) {
-		return write(CodeGenUtils.capitalize(str));
+
+		if (str.length() == 0) {
+			return this;
+		}
+
+		write(Character.toUpperCase(str.charAt(0)));
+		append(str, 1);
+		return this;
 	}
 
 	public JavaCodeWriter writeWs(char character) {
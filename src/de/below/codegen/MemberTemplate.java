@@ -0,0 +1,170 @@
+package de.below.codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A member shape that is compiled once and rendered many times by filling its
+ * slots, e.g. the setter of a builder, that differs from the other setters
+ * only by type and name.
+ * 
+ * <p>
+ * The pattern is the code of the member, with slots written as
+ * <code>${slot}</code>. Lines are separated by <code>\n</code> and indented
+ * relative to the current indention of the writer:
+ * </p>
+ * 
+ * <pre>
+ * MemberTemplate setter = MemberTemplate.compile(
+ * 		&quot;public ${builder} ${setter}(${type} ${name}) {\n&quot;
+ * 		+ &quot;\tthis.${name} = ${name};\n&quot;
+ * 		+ &quot;\treturn this;\n&quot;
+ * 		+ &quot;}\n&quot;, &quot;builder&quot;, &quot;setter&quot;, &quot;type&quot;, &quot;name&quot;);
+ * 
+ * setter.render(out, &quot;PersonBuilder&quot;, &quot;setName&quot;, &quot;String&quot;, &quot;name&quot;);
+ * </pre>
+ * 
+ * <p>
+ * Rendering writes the literal parts and slot values straight to the writer,
+ * without going through the builder steps. Templates are immutable and can
+ * be shared between threads.
+ * </p>
+ * 
+ * @author martin
+ */
+public final class MemberTemplate {
+
+	private static final int NEW_LINE = -1;
+	private static final int LITERAL = -2;
+
+	/**
+	 * The parts of the template. For each part, <code>kinds</code> contains
+	 * the index of the slot, {@link #LITERAL} or {@link #NEW_LINE}.
+	 */
+	private final String[] literals;
+	private final int[] kinds;
+	private final int slotCount;
+
+	private MemberTemplate(String[] literals, int[] kinds, int slotCount) {
+		this.literals = literals;
+		this.kinds = kinds;
+		this.slotCount = slotCount;
+	}
+
+	/**
+	 * Compiles a template.
+	 * 
+	 * @param pattern
+	 *            The code of the member.
+	 * @param slots
+	 *            The names of the slots, in the order their values are given
+	 *            to {@link #render(JavaCodeWriter, String...)}.
+	 * @throws IllegalArgumentException
+	 *             If the pattern uses an undeclared slot or contains an
+	 *             unterminated one.
+	 */
+	public static MemberTemplate compile(String pattern, String... slots) {
+
+		List<String> slotNames = Arrays.asList(slots);
+		List<String> literals = new ArrayList<String>();
+		List<Integer> kinds = new ArrayList<Integer>();
+
+		StringBuilder literal = new StringBuilder();
+		int position = 0;
+
+		while (position < pattern.length()) {
+
+			char c = pattern.charAt(position);
+
+			if (c == '\n') {
+				addLiteral(literal, literals, kinds);
+				literals.add(null);
+				kinds.add(NEW_LINE);
+				position++;
+			}
+			else if (pattern.startsWith("${", position)) {
+
+				int end = pattern.indexOf('}', position);
+
+				if (end < 0) {
+					throw new IllegalArgumentException("unterminated slot at "
+							+ position + ": " + pattern);
+				}
+
+				String slot = pattern.substring(position + 2, end);
+				int index = slotNames.indexOf(slot);
+
+				if (index < 0) {
+					throw new IllegalArgumentException("undeclared slot " + slot
+							+ " in " + pattern);
+				}
+
+				addLiteral(literal, literals, kinds);
+				literals.add(null);
+				kinds.add(index);
+				position = end + 1;
+			}
+			else {
+				literal.append(c);
+				position++;
+			}
+		}
+
+		addLiteral(literal, literals, kinds);
+
+		int[] kindArray = new int[kinds.size()];
+
+		for (int i = 0; i < kindArray.length; i++) {
+			kindArray[i] = kinds.get(i);
+		}
+
+		return new MemberTemplate(literals.toArray(new String[literals.size()]),
+				kindArray, slots.length);
+	}
+
+	private static void addLiteral(StringBuilder literal, List<String> literals,
+			List<Integer> kinds) {
+
+		if (literal.length() > 0) {
+			literals.add(literal.toString());
+			kinds.add(LITERAL);
+			literal.setLength(0);
+		}
+	}
+
+	/**
+	 * Renders the template with the given slot values.
+	 * 
+	 * @param out
+	 *            The writer to render to.
+	 * @param values
+	 *            The values of the slots, in the order of their declaration.
+	 * @return the writer.
+	 */
+	public JavaCodeWriter render(JavaCodeWriter out, String... values) {
+
+		if (values.length != slotCount) {
+			throw new IllegalArgumentException("expected " + slotCount
+					+ " slot values, got " + values.length);
+		}
+
+		for (int i = 0; i < kinds.length; i++) {
+
+			int kind = kinds[i];
+
+			if (kind == NEW_LINE) {
+				out.newLine();
+			}
+			else if (kind == LITERAL) {
+				out.write(literals[i]);
+			}
+			else {
+				out.write(values[kind]);
+			}
+		}
+
+		return out;
+	}
+
+}
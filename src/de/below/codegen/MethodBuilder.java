@@ -34,6 +34,12 @@ public class MethodBuilder {
 
 		InMethodStep<T> addStatement(Statement statement);
 		InMethodStep<T> addStatement(Expression expression);
+
+		/**
+		 * Adds the statements rendered by a precompiled template.
+		 */
+		InMethodStep<T> addStatements(MemberTemplate template, String... values);
+
 		T endMethod();
 	}	
 	
@@ -130,18 +136,19 @@ public class MethodBuilder {
 		}
 		
 		@Override
-		public InMethodStep<T> addStatement(final Expression expression) {
-			return addStatement(new Statement() {
-
-				@Override
-				public void render(JavaCodeWriter out) {
-					expression.render(out);
-				}
-				
-			});
+		public InMethodStep<T> addStatement(Expression expression) {
+			expression.render(out);
+			out.terminateStatement().newLine();
+			return this;
 		}
 		
 
+		@Override
+		public InMethodStep<T> addStatements(MemberTemplate template, String... values) {
+			template.render(out, values);
+			return this;
+		}
+
 		@Override
 		public T endMethod() {
 			out.endBlock();
@@ -0,0 +1,663 @@
+package de.below.bgen.apt;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuilderProcessorTest {
+
+	private final static String personClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder\n" +
+		"public class Person {\n" +
+		"	private final String name;\n" +
+		"	private int age;\n" +
+		"	public Person(String name) {\n" +
+		"		this.name = name;\n" +
+		"	}\n" +
+		"	public String getName() {\n" +
+		"		return name;\n" +
+		"	}\n" +
+		"	public void setAge(int age) {\n" +
+		"		this.age = age;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String mandatoryClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(mandatoryProperties = { \"name\", \"age\" })\n" +
+		"public class Account {\n" +
+		"	private String name;\n" +
+		"	private int age;\n" +
+		"	public void setName(String name) {\n" +
+		"		this.name = name;\n" +
+		"	}\n" +
+		"	public void setAge(int age) {\n" +
+		"		this.age = age;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String defaultsClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(assignedSettersOnly = true, buildInto = true)\n" +
+		"public class Defaults {\n" +
+		"	private String name = \"default\";\n" +
+		"	private int age = 7;\n" +
+		"	public void setName(String name) {\n" +
+		"		this.name = name;\n" +
+		"	}\n" +
+		"	public void setAge(int age) {\n" +
+		"		this.age = age;\n" +
+		"	}\n" +
+		"	public String toString() {\n" +
+		"		return name + age;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String reusableClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(reusable = true, mandatoryProperties = \"name\")\n" +
+		"public class Reused {\n" +
+		"	private String name;\n" +
+		"	public void setName(String name) {\n" +
+		"		this.name = name;\n" +
+		"	}\n" +
+		"	public String toString() {\n" +
+		"		return name;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String aggregateClass =
+		"package de.apt;\n" +
+		"import java.util.List;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(copyOnWriteCollections = true)\n" +
+		"public class Aggregate {\n" +
+		"	private List<String> tags;\n" +
+		"	public List<String> getTags() {\n" +
+		"		return tags;\n" +
+		"	}\n" +
+		"	public void setTags(List<String> tags) {\n" +
+		"		this.tags = tags;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String orderClass =
+		"package de.apt;\n" +
+		"import java.util.List;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(collectionSetters = true, adoptingSetters = true)\n" +
+		"public class Order {\n" +
+		"	private List<String> items;\n" +
+		"	private int[] quantities;\n" +
+		"	public List<String> getItems() {\n" +
+		"		return items;\n" +
+		"	}\n" +
+		"	public void setItems(List<String> items) {\n" +
+		"		this.items = items;\n" +
+		"	}\n" +
+		"	public int[] getQuantities() {\n" +
+		"		return quantities;\n" +
+		"	}\n" +
+		"	public void setQuantities(int[] quantities) {\n" +
+		"		this.quantities = quantities;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String tagClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(canonical = true)\n" +
+		"public class Tag {\n" +
+		"	private final String host;\n" +
+		"	private int port;\n" +
+		"	public Tag(String host) {\n" +
+		"		this.host = host;\n" +
+		"	}\n" +
+		"	public void setPort(int port) {\n" +
+		"		this.port = port;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String endpointClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(bindingMethods = true)\n" +
+		"public class Endpoint {\n" +
+		"	private final String host;\n" +
+		"	private int port;\n" +
+		"	private java.util.List<String> aliases;\n" +
+		"	public Endpoint(String host) {\n" +
+		"		this.host = host;\n" +
+		"	}\n" +
+		"	public void setPort(int port) {\n" +
+		"		this.port = port;\n" +
+		"	}\n" +
+		"	public void setAliases(java.util.List<String> aliases) {\n" +
+		"		this.aliases = aliases;\n" +
+		"	}\n" +
+		"	public String toString() {\n" +
+		"		return host + \":\" + port + aliases;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String pointClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(propertyTable = true)\n" +
+		"public class Point {\n" +
+		"	private final int x;\n" +
+		"	private String label;\n" +
+		"	public Point(int x) {\n" +
+		"		this.x = x;\n" +
+		"	}\n" +
+		"	public int getX() {\n" +
+		"		return x;\n" +
+		"	}\n" +
+		"	public String getLabel() {\n" +
+		"		return label;\n" +
+		"	}\n" +
+		"	public void setLabel(String label) {\n" +
+		"		this.label = label;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String meterClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(instrumented = true, latencyHistogram = true, mandatoryProperties = \"name\")\n" +
+		"public class Meter {\n" +
+		"	private String name;\n" +
+		"	public String getName() {\n" +
+		"		return name;\n" +
+		"	}\n" +
+		"	public void setName(String name) {\n" +
+		"		this.name = name;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String scoreClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder(primitiveStorage = true)\n" +
+		"public class Score {\n" +
+		"	private Integer points = Integer.valueOf(-1);\n" +
+		"	private Double weight;\n" +
+		"	public void setPoints(Integer points) {\n" +
+		"		this.points = points;\n" +
+		"	}\n" +
+		"	public void setWeight(Double weight) {\n" +
+		"		this.weight = weight;\n" +
+		"	}\n" +
+		"	public String toString() {\n" +
+		"		return points + \"/\" + weight;\n" +
+		"	}\n" +
+		"}\n";
+
+	private final static String abstractClass =
+		"package de.apt;\n" +
+		"@de.below.bgen.apt.GenerateBuilder\n" +
+		"public abstract class Shape {\n" +
+		"}\n";
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("apt", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void mustGenerateCompilableBuilder() throws IOException {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Person.java", personClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		String builder = read(new File(directory, "de/apt/PersonBuilder.java"));
+
+		assertTrue(builder, builder.startsWith("package de.apt;"));
+		assertTrue(builder, builder.contains("public PersonBuilder setName(java.lang.String name)"));
+		assertTrue(builder, builder.contains("Person result = new Person(name);"));
+		assertTrue(builder, builder.contains("result.setAge(age);"));
+		assertTrue(new File(directory, "de/apt/PersonBuilder.class").exists());
+	}
+
+	@Test
+	public void mustRejectMissingMandatoryProperties() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Account.java", mandatoryClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.AccountBuilder");
+		Object builder = builderClass.getMethod("newBuilder").invoke(null);
+
+		builderClass.getMethod("setAge", int.class).invoke(builder, 42);
+
+		try {
+			builderClass.getMethod("build").invoke(builder);
+			fail("missing name not detected");
+		}
+		catch (InvocationTargetException e) {
+			assertEquals("missing mandatory properties: name", e.getCause().getMessage());
+		}
+
+		builderClass.getMethod("setName", String.class).invoke(builder, "test");
+
+		assertNotNull(builderClass.getMethod("build").invoke(builder));
+	}
+
+	@Test
+	public void mustKeepDefaultsOfUnassignedProperties() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Defaults.java", defaultsClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.DefaultsBuilder");
+		Object builder = builderClass.getMethod("newBuilder").invoke(null);
+
+		builderClass.getMethod("setAge", int.class).invoke(builder, 42);
+
+		assertEquals("default42", builderClass.getMethod("build").invoke(builder).toString());
+
+		Class<?> defaultsClass = loader.loadClass("de.apt.Defaults");
+		Object existing = defaultsClass.newInstance();
+		defaultsClass.getMethod("setName", String.class).invoke(existing, "pooled");
+
+		assertSame(existing, builderClass.getMethod("buildInto", defaultsClass).invoke(builder, existing));
+		assertEquals("pooled42", existing.toString());
+	}
+
+	@Test
+	public void mustResetThreadLocalBuilder() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Reused.java", reusableClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.ReusedBuilder");
+		Object builder = builderClass.getMethod("local").invoke(null);
+
+		builderClass.getMethod("setName", String.class).invoke(builder, "first");
+		assertEquals("first", builderClass.getMethod("build").invoke(builder).toString());
+
+		Object reused = builderClass.getMethod("local").invoke(null);
+		assertSame(builder, reused);
+
+		try {
+			builderClass.getMethod("build").invoke(reused);
+			fail("the mandatory name must be missing after reset()");
+		}
+		catch (InvocationTargetException e) {
+			assertEquals("missing mandatory properties: name", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void mustCopySharedCollectionsOnWrite() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Aggregate.java", aggregateClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> aggregateClass = loader.loadClass("de.apt.Aggregate");
+		Class<?> builderClass = loader.loadClass("de.apt.AggregateBuilder");
+		Method addTag = builderClass.getMethod("addTag", String.class);
+		Method build = builderClass.getMethod("build");
+		Method getTags = aggregateClass.getMethod("getTags");
+
+		Object builder = builderClass.getMethod("newBuilder").invoke(null);
+		addTag.invoke(builder, "a");
+		Object original = build.invoke(builder);
+		addTag.invoke(builder, "b");
+
+		assertEquals(Arrays.asList("a"), getTags.invoke(original));
+		assertEquals(Arrays.asList("a", "b"), getTags.invoke(build.invoke(builder)));
+
+		Object unchanged = build.invoke(builderClass.getMethod("buildUpon", aggregateClass).invoke(null, original));
+		assertSame(getTags.invoke(original), getTags.invoke(unchanged));
+
+		Object copy = builderClass.getMethod("buildUpon", aggregateClass).invoke(null, original);
+		addTag.invoke(copy, "c");
+
+		assertEquals(Arrays.asList("a"), getTags.invoke(original));
+		assertEquals(Arrays.asList("a", "c"), getTags.invoke(build.invoke(copy)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void mustBuildCollectionsFromElements() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Order.java", orderClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> orderClass = loader.loadClass("de.apt.Order");
+		Class<?> builderClass = loader.loadClass("de.apt.OrderBuilder");
+		Method build = builderClass.getMethod("build");
+
+		Object builder = builderClass.getMethod("newBuilder").invoke(null);
+		builderClass.getMethod("itemsCapacity", int.class).invoke(builder, 2);
+		builderClass.getMethod("addItem", String.class).invoke(builder, "a");
+		builderClass.getMethod("addItem", String.class).invoke(builder, "b");
+		builderClass.getMethod("addQuantity", int.class).invoke(builder, 1);
+		builderClass.getMethod("addQuantity", int.class).invoke(builder, 2);
+
+		Object order = build.invoke(builder);
+		List<String> items = (List<String>) orderClass.getMethod("getItems").invoke(order);
+
+		assertEquals(Arrays.asList("a", "b"), items);
+		assertTrue(Arrays.equals(new int[] { 1, 2 }, (int[]) orderClass.getMethod("getQuantities").invoke(order)));
+
+		try {
+			items.add("c");
+			fail("the built list must be unmodifiable");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		Object again = build.invoke(builder);
+		int[] first = (int[]) orderClass.getMethod("getQuantities").invoke(order);
+		int[] second = (int[]) orderClass.getMethod("getQuantities").invoke(again);
+
+		assertNotSame(first, second);
+
+		first[0] = 99;
+		builderClass.getMethod("addQuantity", int.class).invoke(builder, 3);
+
+		assertTrue(Arrays.equals(new int[] { 1, 2 }, second));
+		assertTrue(Arrays.equals(new int[] { 1, 2, 3 }, (int[]) orderClass.getMethod("getQuantities").invoke(build.invoke(builder))));
+		assertTrue(Arrays.equals(new int[] { 1, 2 }, second));
+
+		int[] quantities = { 3 };
+		List<String> adopted = new ArrayList<String>();
+		builderClass.getMethod("setQuantities", int[].class).invoke(builder, quantities);
+		builderClass.getMethod("adoptItems", List.class).invoke(builder, adopted);
+		order = build.invoke(builder);
+		quantities[0] = 4;
+		adopted.add("d");
+
+		assertTrue(Arrays.equals(new int[] { 3 }, (int[]) orderClass.getMethod("getQuantities").invoke(order)));
+		assertEquals(Arrays.asList("d"), orderClass.getMethod("getItems").invoke(order));
+	}
+
+	@Test
+	public void mustReturnCanonicalInstances() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Tag.java", tagClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.TagBuilder");
+		Method newBuilder = builderClass.getMethod("newBuilder");
+		Method setHost = builderClass.getMethod("setHost", String.class);
+		Method setPort = builderClass.getMethod("setPort", int.class);
+		Method buildCanonical = builderClass.getMethod("buildCanonical");
+
+		Object first = buildCanonical.invoke(setPort.invoke(setHost.invoke(newBuilder.invoke(null), new String("db")), 5432));
+		Object second = buildCanonical.invoke(setPort.invoke(setHost.invoke(newBuilder.invoke(null), new String("db")), 5432));
+		Object other = buildCanonical.invoke(setPort.invoke(setHost.invoke(newBuilder.invoke(null), "db"), 5433));
+
+		assertSame(first, second);
+		assertNotSame(first, other);
+	}
+
+	@Test
+	public void mustBindPropertiesByName() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Endpoint.java", endpointClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.EndpointBuilder");
+		Method newBuilder = builderClass.getMethod("newBuilder");
+		Method ordinalOf = builderClass.getMethod("ordinalOf", String.class);
+		Method build = builderClass.getMethod("build");
+
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("host", "db");
+		values.put("port", Integer.valueOf(5432));
+		values.put("aliases", Arrays.asList("primary"));
+
+		Object builder = builderClass.getMethod("fromMap", Map.class).invoke(newBuilder.invoke(null), values);
+
+		assertEquals("db:5432[primary]", build.invoke(builder).toString());
+
+		int[] columnToProperty = {
+				((Integer) ordinalOf.invoke(null, "port")).intValue(), -1,
+				((Integer) ordinalOf.invoke(null, "host")).intValue() };
+
+		assertEquals(Integer.valueOf(-1), ordinalOf.invoke(null, "unknown"));
+
+		builderClass.getMethod("fromRow", Object[].class, int[].class).invoke(builder,
+				new Object[] { Integer.valueOf(80), "ignored", "web" }, columnToProperty);
+
+		assertEquals("web:80[primary]", build.invoke(builder).toString());
+
+		try {
+			builderClass.getMethod("set", String.class, Object.class).invoke(builder, "unknown", "value");
+			fail("unknown properties must be rejected");
+		}
+		catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+
+		try {
+			builderClass.getMethod("fromRow", Object[].class, int[].class).invoke(builder,
+					new Object[] { null, "ignored", "web" }, columnToProperty);
+			fail("null must be rejected for primitive properties");
+		}
+		catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+			assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("property port "));
+		}
+	}
+
+	@Test
+	public void mustAccessPropertiesByOrdinal() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Point.java", pointClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.PointBuilder");
+		Class<?> pointClass = loader.loadClass("de.apt.Point");
+		Class<?> tableClass = loader.loadClass("de.apt.PointBuilder$PointProperties");
+		Method set = tableClass.getMethod("set", builderClass, int.class, Object.class);
+		Method get = tableClass.getMethod("get", pointClass, int.class);
+
+		assertEquals(Integer.valueOf(2), tableClass.getField("COUNT").get(null));
+		assertEquals("x", tableClass.getMethod("getName", int.class).invoke(null, 0));
+		assertEquals(String.class, tableClass.getMethod("getType", int.class).invoke(null, 1));
+		assertEquals(int.class, tableClass.getMethod("getType", int.class).invoke(null, 0));
+
+		Object builder = builderClass.getMethod("newBuilder").invoke(null);
+		set.invoke(null, builder, 0, Integer.valueOf(3));
+		set.invoke(null, builder, 1, "origin");
+		Object point = builderClass.getMethod("build").invoke(builder);
+
+		assertEquals(Integer.valueOf(3), get.invoke(null, point, 0));
+		assertEquals("origin", get.invoke(null, point, 1));
+	}
+
+	@Test
+	public void mustCountBuildsInMBean() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Meter.java", meterClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.MeterBuilder");
+		Method newBuilder = builderClass.getMethod("newBuilder");
+		Method setName = builderClass.getMethod("setName", String.class);
+		Method build = builderClass.getMethod("build");
+
+		Object meter = build.invoke(setName.invoke(newBuilder.invoke(null), "cpu"));
+		build.invoke(builderClass.getMethod("buildUpon", loader.loadClass("de.apt.Meter")).invoke(null, meter));
+
+		try {
+			build.invoke(newBuilder.invoke(null));
+			fail("a missing mandatory property must fail the build");
+		}
+		catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("de.below.bgen:type=BuildStatistics,name=de.apt.MeterBuilder");
+
+		try {
+			assertEquals(Long.valueOf(2), server.getAttribute(name, "Builds"));
+			assertEquals(Long.valueOf(1), server.getAttribute(name, "BuildUponCopies"));
+			assertEquals(Long.valueOf(1), server.getAttribute(name, "ValidationFailures"));
+
+			long recorded = 0;
+			for (long count : (long[]) server.getAttribute(name, "BuildLatencyHistogram")) {
+				recorded += count;
+			}
+			assertEquals(2, recorded);
+		}
+		finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Test
+	public void mustStoreWrappersAsPrimitives() throws Exception {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Score.java", scoreClass);
+
+		assertTrue("diagnostics: " + diagnostics.getDiagnostics(), diagnostics.getDiagnostics().isEmpty());
+
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() });
+		Class<?> builderClass = loader.loadClass("de.apt.ScoreBuilder");
+		Method newBuilder = builderClass.getMethod("newBuilder");
+		Method setPoints = builderClass.getMethod("setPoints", int.class);
+		Method setWeight = builderClass.getMethod("setWeight", Double.class);
+		Method build = builderClass.getMethod("build");
+
+		assertEquals(int.class, builderClass.getDeclaredField("points").getType());
+		assertEquals("7/0.5", build.invoke(setWeight.invoke(setPoints.invoke(newBuilder.invoke(null), 7), 0.5)).toString());
+		assertEquals("null/null", build.invoke(newBuilder.invoke(null)).toString());
+	}
+
+	@Test
+	public void mustReportAbstractClass() throws IOException {
+
+		DiagnosticCollector<JavaFileObject> diagnostics = compile("Shape.java", abstractClass);
+
+		assertFalse(diagnostics.getDiagnostics().isEmpty());
+		assertFalse(new File(directory, "de/apt/ShapeBuilder.java").exists());
+	}
+
+	private DiagnosticCollector<JavaFileObject> compile(String fileName, String source) throws IOException {
+
+		File sourceFile = new File(directory, fileName);
+		Writer writer = new FileWriter(sourceFile);
+
+		try {
+			writer.write(source);
+		}
+		finally {
+			writer.close();
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+
+		try {
+			CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+					Arrays.asList("-d", directory.getPath(), "-s", directory.getPath(),
+							"-classpath", System.getProperty("java.class.path")),
+					null, fileManager.getJavaFileObjects(sourceFile));
+
+			task.setProcessors(Arrays.asList(new BuilderProcessor()));
+			task.call();
+		}
+		finally {
+			fileManager.close();
+		}
+
+		return diagnostics;
+	}
+
+	private static String read(File file) throws IOException {
+
+		StringBuilder result = new StringBuilder();
+		Reader reader = new FileReader(file);
+
+		try {
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				result.append(buffer, 0, read);
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return result.toString();
+	}
+
+	private static void delete(File file) {
+
+		File[] children = file.listFiles();
+
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+}
@@ -101,6 +101,35 @@ public class BeanGeneratorTest extends AbstractWorkspaceAwareTest {
 
 	}
 
+	@Test
+	public void createPropertyTable() throws CoreException {
+
+		ICompilationUnit personInterface = getCompilationUnitFor("com.foo.bar",
+				"Person.java", personInterfaceSource);
+
+		IType type = personInterface.getType("Person");
+
+		IPackageFragmentRoot sourceFolder = (IPackageFragmentRoot) personInterface
+				.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		TopLevelTargetTypeStrategy targetTypeGenerator = new TopLevelTargetTypeStrategy(
+				sourceFolder, "com.foo.bar");
+
+		BeanGenerator generator = new BeanGenerator(type, "PersonImpl",
+				PROGRESS_MONITOR, targetTypeGenerator, true, true);
+
+		IType implementation = generator.run();
+
+		dump(implementation.getCompilationUnit());
+
+		IType table = implementation.getType("PersonProperties");
+
+		assertTrue("did not create the property table", table.exists());
+		assertFieldExists(table, "COUNT");
+		assertMethodExists(table, "get", "Qcom.foo.bar.Person;", "I");
+		assertMethodExists(table, "set", "QPersonImpl;", "I", "QObject;");
+
+	}
+
 	private String[] args(String... args) {
 		return args;
 	}	
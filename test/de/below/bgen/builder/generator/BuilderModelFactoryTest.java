@@ -0,0 +1,106 @@
+package de.below.bgen.builder.generator;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BuilderModel.InstantiationKind;
+import de.below.bgen.builder.generator.descriptor.MethodDescriptor;
+import de.below.bgen.builder.generator.descriptor.TypeDescriptor;
+
+public class BuilderModelFactoryTest {
+
+	private static final String[] NONE = new String[0];
+
+	private final MethodDescriptor constructor = new MethodDescriptor("Person", "Person",
+			Modifier.PUBLIC, true, null, new String[] { "name" },
+			new String[] { "String" }, new String[] { "IOException" });
+
+	private final MethodDescriptor factoryMethod = new MethodDescriptor("create", "Persons",
+			Modifier.PUBLIC | Modifier.STATIC, false, "Person",
+			new String[] { "name" }, new String[] { "String" }, NONE);
+
+	private final MethodDescriptor setAge = new MethodDescriptor("setAge", "Person",
+			Modifier.PUBLIC, false, "void", new String[] { "age" },
+			new String[] { "int" }, new String[] { "ValidationException" });
+
+	private final MethodDescriptor getName = new MethodDescriptor("getName", "Person",
+			Modifier.PUBLIC, false, "String", NONE, NONE,
+			new String[] { "IllegalStateException" });
+
+	private final MethodDescriptor getAge = new MethodDescriptor("getAge", "Person",
+			0, false, "int", NONE, NONE, NONE);
+
+	private final TypeDescriptor person = new TypeDescriptor("Person", "de.foo",
+			TypeDescriptor.Kind.CLASS, Modifier.PUBLIC, Arrays.asList(
+					constructor, setAge, getName, getAge));
+
+	private final BuilderModelFactory factory = new BuilderModelFactory();
+
+	@Test
+	public void mustCollectConstructorArgumentsAndSetters() {
+
+		BuilderModel model = create(constructor);
+
+		assertEquals(InstantiationKind.CONSTRUCTOR, model.getInstantiationKind());
+		assertEquals("name", model.getProperties().getConstructorArgs().get(0).getName());
+		assertEquals("String", model.getProperties().getConstructorArgs().get(0).getType());
+		assertEquals("age", model.getProperties().getSetterProperties().get(0).getName());
+		assertEquals("int", model.getProperties().getSetterProperties().get(0).getType());
+	}
+
+	@Test
+	public void mustOnlyReadPropertiesWithPublicGetter() {
+
+		BuilderModel model = create(constructor);
+
+		assertEquals(1, model.getReadableProperties().size());
+		assertEquals("name", model.getReadableProperties().get(0).getName());
+		assertEquals(Collections.singleton("IllegalStateException"), model.getBuildUponExceptions());
+	}
+
+	@Test
+	public void mustCollectExceptionsOfConstructorAndSetters() {
+
+		BuilderModel model = create(constructor);
+
+		assertEquals(Arrays.asList("IOException", "ValidationException"),
+				Arrays.asList(model.getBuildExceptions().toArray()));
+	}
+
+	@Test
+	public void mustUseFactoryMethodOfDeclaringType() {
+
+		BuilderModel model = create(factoryMethod);
+
+		assertEquals(InstantiationKind.FACTORY_METHOD, model.getInstantiationKind());
+		assertEquals("Persons", model.getFactoryTypeName());
+		assertEquals("create", model.getFactoryMethodName());
+	}
+
+	@Test
+	public void mustUseDefaultConstructorWithoutInstantiationMethod() {
+
+		BuilderModel model = create(null);
+
+		assertEquals(InstantiationKind.DEFAULT_CONSTRUCTOR, model.getInstantiationKind());
+		assertEquals(0, model.getProperties().getConstructorArgs().size());
+	}
+
+	@Test
+	public void mustFindConstructorsAndSetters() {
+
+		assertEquals(Arrays.asList(constructor), SourceTypeAnalyzer.findConstructors(person));
+		assertEquals(Arrays.asList(setAge), SourceTypeAnalyzer.findSetters(person, constructor));
+	}
+
+	private BuilderModel create(MethodDescriptor instantiationMethod) {
+		return factory.create(person, instantiationMethod, Arrays.asList(setAge),
+				Collections.<String> emptyList(), "PersonBuilder", true);
+	}
+
+}
@@ -0,0 +1,504 @@
+package de.below.bgen.builder.generator;
+
+import static de.below.bgen.TestUtils.assertCodeEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BuilderModel.InstantiationKind;
+import de.below.bgen.builder.generator.components.SetterNamingStrategy;
+
+public class BuilderRendererTest {
+
+	@Test
+	public void renderBuildMethodWithConstructorAndSetter() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.NON_PREFIXED_SETTER_NAMING, true),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "public PersonBuilder name(String name) {");
+		assertContains(source, "public PersonBuilder age(int age) {");
+		assertContains(source, "Person result = new Person(name);");
+		assertContains(source, "result.setAge(age);");
+	}
+
+	@Test
+	public void renderDefaultConstructorCall() {
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, false),
+				model(new PropertyList(), InstantiationKind.DEFAULT_CONSTRUCTOR));
+
+		assertContains(source, "Person result = new Person();");
+	}
+
+	@Test
+	public void renderFactoryMethodCall() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+
+		BuilderModel model = new BuilderModel("Person", "PersonBuilder", true,
+				InstantiationKind.FACTORY_METHOD, "Persons", "create", properties,
+				Collections.<Property> emptyList(), Collections.<String> emptySet(),
+				Collections.<String> emptySet(), Collections.<String> emptyList());
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true), model);
+
+		assertContains(source, "Person result = Persons.create(name);");
+	}
+
+	@Test
+	public void renderBuildUponMethodForReadableProperties() {
+
+		PropertyList properties = new PropertyList();
+		Property name = new Property.ConstructorArgument("String", "name", null, 0);
+		properties.add(name);
+
+		BuilderModel model = new BuilderModel("Person", "PersonBuilder", true,
+				InstantiationKind.CONSTRUCTOR, null, null, properties,
+				Arrays.asList(name), Collections.<String> emptySet(),
+				Collections.<String> emptySet(), Collections.<String> emptyList());
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true), model);
+
+		assertCodeEquals("buildUpon",
+				"public static PersonBuilder buildUpon(Person original) { PersonBuilder builder = PersonBuilder.newBuilder(); builder.setName(original.getName()); return builder; }",
+				extractMethod(source, "buildUpon"));
+	}
+
+	@Test
+	public void renderFingerprintThatDependsOnProperties() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		BuilderRenderer renderer = new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FINGERPRINT));
+		BuilderModel model = model(properties, InstantiationKind.DEFAULT_CONSTRUCTOR);
+
+		String fingerprint = renderer.fingerprint(model);
+
+		assertContains(render(renderer, model),
+				"private final static String FINGERPRINT = \"" + fingerprint + "\";");
+
+		PropertyList extended = new PropertyList();
+		extended.add(new Property.SetterProperty("int", "age", null));
+		extended.add(new Property.SetterProperty("String", "name", null));
+
+		assertTrue(fingerprint.equals(renderer.fingerprint(model(properties, InstantiationKind.DEFAULT_CONSTRUCTOR))));
+		assertFalse(fingerprint.equals(renderer.fingerprint(model(extended, InstantiationKind.DEFAULT_CONSTRUCTOR))));
+		assertFalse(fingerprint.equals(new BuilderRenderer(SetterNamingStrategy.NON_PREFIXED_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FINGERPRINT)).fingerprint(model)));
+	}
+
+	@Test
+	public void renderMandatoryPropertiesWithIntMask() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+		properties.add(new Property.SetterProperty("String", "city", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true),
+				model(properties, InstantiationKind.CONSTRUCTOR, Arrays.asList("name", "city")));
+
+		assertContains(source, "private int assignedMask;");
+		assertContains(source, "private final static int MANDATORY_MASK = 0x5;");
+		assertCodeEquals("setter",
+				"public PersonBuilder setCity(String city) { this.city = city; assignedMask |= 0x4; return this; }",
+				extractMethod(source, "setCity"));
+		assertCodeEquals("build check",
+				"if ((assignedMask & MANDATORY_MASK) != MANDATORY_MASK) {",
+				extractLine(source, "MANDATORY_MASK) !="));
+		assertContains(source, "if ((assignedMask & 0x1) == 0) {");
+		assertContains(source, "missing.append(\", city\");");
+	}
+
+	@Test
+	public void renderMandatoryPropertiesWithArrayMask() {
+
+		PropertyList properties = new PropertyList();
+
+		for (int i = 0; i < 70; i++) {
+			properties.add(new Property.SetterProperty("int", "p" + i, null));
+		}
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true),
+				model(properties, InstantiationKind.DEFAULT_CONSTRUCTOR, Arrays.asList("p1", "p65")));
+
+		assertContains(source, "private final long[] assignedMask = new long[2];");
+		assertContains(source, "private final static long[] MANDATORY_MASK = { 0x2L, 0x2L };");
+		assertContains(source, "assignedMask[1] |= 0x2L;");
+		assertContains(source, "if ((assignedMask[0] & MANDATORY_MASK[0]) != MANDATORY_MASK[0]"
+				+ " || (assignedMask[1] & MANDATORY_MASK[1]) != MANDATORY_MASK[1]) {");
+	}
+
+	@Test
+	public void renderSetterCallsOfAssignedPropertiesOnly() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.ASSIGNED_SETTERS_ONLY)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "private int assignedMask;");
+		assertFalse(source, source.contains("MANDATORY_MASK"));
+		assertCodeEquals("build",
+				"public Person build() { Person result = new Person(name); if ((assignedMask & 0x2) != 0) { result.setAge(age); }",
+				extractMethod(source, "build"));
+	}
+
+	@Test
+	public void renderResetAndLocalBuilder() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+		properties.add(new Property.SetterProperty("boolean", "active", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.REUSABLE_BUILDERS)),
+				model(properties, InstantiationKind.CONSTRUCTOR, Arrays.asList("name")));
+
+		assertContains(source, "private static final ThreadLocal<PersonBuilder> LOCAL_INSTANCES = new ThreadLocal<PersonBuilder>() {");
+		assertCodeEquals("local",
+				"public static PersonBuilder local() { PersonBuilder builder = LOCAL_INSTANCES.get(); builder.reset(); return builder; }",
+				extractMethod(source, "local"));
+		assertCodeEquals("reset",
+				"public PersonBuilder reset() { this.name = null; this.age = 0; this.active = false; assignedMask = 0; return this; }",
+				extractMethod(source, "reset"));
+	}
+
+	@Test
+	public void renderBuildIntoForSetterProperties() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.BUILD_INTO, BuilderOption.ASSIGNED_SETTERS_ONLY)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertCodeEquals("buildInto",
+				"public Person buildInto(Person existing) { if ((assignedMask & 0x1) != 0) { existing.setAge(age); }",
+				extractMethod(source, "buildInto"));
+	}
+
+	@Test
+	public void skipBuildIntoForConstructorArguments() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.BUILD_INTO)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertFalse(source, source.contains("buildInto"));
+	}
+
+	@Test
+	public void renderJitFriendlyBuilder() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.JIT_FRIENDLY)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "public static final class PersonBuilder {");
+		assertContains(source, "public final PersonBuilder setAge(int age) {");
+		assertCodeEquals("build",
+				"public final Person build() { Person result = new Person(name); result.setAge(age); return result; }",
+				extractMethod(source, "build"));
+	}
+
+	@Test
+	public void splitSetterCallsOfJitFriendlyBuilder() {
+
+		PropertyList properties = new PropertyList();
+		for (int i = 0; i < 20; i++) {
+			properties.add(new Property.SetterProperty("int", "p" + i, null));
+		}
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.JIT_FRIENDLY)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertCodeEquals("build",
+				"public final Person build() { Person result = new Person(); applySetters0(result); applySetters1(result); return result; }",
+				extractMethod(source, "build"));
+		assertCodeEquals("applySetters1",
+				"private void applySetters1(Person result) { result.setP16(p16); result.setP17(p17); result.setP18(p18); result.setP19(p19); }",
+				extractMethod(source, "applySetters1"));
+	}
+
+	@Test
+	public void renderCopyOnWriteAdder() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.SetterProperty("List<String>", "tags", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.COPY_ON_WRITE_COLLECTIONS)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "private boolean tagsShared;");
+		assertCodeEquals("setTags",
+				"public PersonBuilder setTags(List<String> tags) { this.tags = tags; this.tagsShared = true; return this; }",
+				extractMethod(source, "setTags"));
+		assertContains(source, "public PersonBuilder addTag(String tag) {\n"
+				+ "\t\tif (this.tagsShared || this.tags == null) {\n"
+				+ "\t\t\tthis.tags = this.tags == null ? new java.util.ArrayList<String>() : new java.util.ArrayList<String>(this.tags);\n"
+				+ "\t\t\tthis.tagsShared = false;\n"
+				+ "\t\t}\n"
+				+ "\t\tthis.tags.add(tag);\n"
+				+ "\t\treturn this;\n");
+		assertContains(source, "result.setTags(tags);\n\t\tthis.tagsShared = true;\n\t\treturn result;");
+	}
+
+	@Test
+	public void renderCollectionSetters() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.SetterProperty("java.util.Set<String>", "tags", null));
+		properties.add(new Property.SetterProperty("int[]", "counts", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.COLLECTION_SETTERS,
+						BuilderOption.ADOPTING_SETTERS)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "private int tagsCapacity = 16;");
+		assertContains(source, "this.tags = this.tags == null ? new java.util.LinkedHashSet<String>(this.tagsCapacity)"
+				+ " : new java.util.LinkedHashSet<String>(this.tags);");
+		assertCodeEquals("tagsCapacity",
+				"public PersonBuilder tagsCapacity(int capacity) { this.tagsCapacity = (int) (capacity / 0.75f) + 1; return this; }",
+				extractMethod(source, "tagsCapacity"));
+		assertCodeEquals("adoptTags",
+				"public PersonBuilder adoptTags(java.util.Set<String> tags) { this.tags = tags; this.tagsShared = false; return this; }",
+				extractMethod(source, "adoptTags"));
+		assertCodeEquals("setCounts",
+				"public PersonBuilder setCounts(int[] counts) { this.counts = counts == null ? null : counts.clone();"
+				+ " this.countsCount = counts == null ? 0 : counts.length; this.countsShared = false; return this; }",
+				extractMethod(source, "setCounts"));
+		assertContains(source, "public PersonBuilder addCount(int count) {");
+		assertContains(source, "this.counts[this.countsCount++] = count;");
+		assertContains(source, "this.tags = java.util.Collections.unmodifiableSet(this.tags);");
+		assertContains(source, "this.counts = java.util.Arrays.copyOf(this.counts, this.countsCount);");
+		assertContains(source, "if (this.counts != null && (this.countsShared || this.countsCount != this.counts.length)) {");
+		assertContains(source, "if (this.countsShared || this.counts == null || this.countsCount == this.counts.length) {");
+	}
+
+	@Test
+	public void renderCanonicalInstances() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("long", "count", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.CANONICAL_INSTANCES)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "private static final class CanonicalEntry extends java.lang.ref.WeakReference<Person> {");
+		assertContains(source, "CANONICAL_INSTANCES[index] = new CanonicalEntry(result, keyHash, this);");
+		assertContains(source, "hash = 31 * hash + (this.name == null ? 0 : this.name.hashCode());\n"
+				+ "\t\thash = 31 * hash + (int) (this.count ^ (this.count >>> 32));\n");
+		assertContains(source, "return (this.name == null ? entry.name == null : this.name.equals(entry.name))"
+				+ " && this.count == entry.count;");
+	}
+
+	@Test
+	public void renderBindingMethods() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("String", "name", null, 0));
+		properties.add(new Property.SetterProperty("int", "age", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.BINDING_METHODS)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "switch (property.hashCode()) {\n"
+				+ "\t\tcase " + "name".hashCode() + ":\n"
+				+ "\t\t\tif (\"name\".equals(property)) {\n"
+				+ "\t\t\t\treturn 0;\n"
+				+ "\t\t\t}\n"
+				+ "\t\t\tbreak;\n"
+				+ "\t\tcase " + "age".hashCode() + ":\n");
+		assertContains(source, "public PersonBuilder set(String property, Object value) {");
+		assertContains(source, "\t\tcase 0:\n"
+				+ "\t\t\treturn setName((String) value);\n"
+				+ "\t\tcase 1:\n"
+				+ "\t\t\tif (value == null) {\n"
+				+ "\t\t\t\tthrow new IllegalArgumentException(\"property age of type int can not be null\");\n"
+				+ "\t\t\t}\n"
+				+ "\t\t\treturn setAge((Integer) value);\n"
+				+ "\t\tdefault:\n");
+		assertContains(source, "public PersonBuilder fromRow(Object[] row, int[] columnToProperty) {");
+		assertFalse(source.contains("@SuppressWarnings"));
+	}
+
+	@Test
+	public void renderPropertyTable() {
+
+		PropertyList properties = new PropertyList();
+		Property name = new Property.ConstructorArgument("String", "name", null, 0);
+		properties.add(name);
+		properties.add(new Property.SetterProperty("java.util.List<String>", "tags", null));
+
+		BuilderModel model = new BuilderModel("Person", "PersonBuilder", true,
+				InstantiationKind.CONSTRUCTOR, null, null, properties,
+				Arrays.asList(name), Collections.<String> emptySet(),
+				Collections.<String> emptySet(), Collections.<String> emptyList());
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.PROPERTY_TABLE)), model);
+
+		assertContains(source, "public static final class PersonProperties {\n"
+				+ "\t\tpublic static final int COUNT = 2;\n"
+				+ "\t\tprivate static final String[] NAMES = { \"name\", \"tags\" };\n"
+				+ "\t\tprivate static final Class<?>[] TYPES = { String.class, java.util.List.class };\n");
+		assertContains(source, "public static Object get(Person object, int ordinal) {\n"
+				+ "\t\t\tswitch (ordinal) {\n"
+				+ "\t\t\tcase 0:\n"
+				+ "\t\t\t\treturn object.getName();\n"
+				+ "\t\t\tdefault:\n");
+		assertContains(source, "@SuppressWarnings(\"unchecked\")\n"
+				+ "\t\tpublic static void set(PersonBuilder writer, int ordinal, Object value) {\n");
+		assertContains(source, "\t\t\tcase 1:\n"
+				+ "\t\t\t\twriter.setTags((java.util.List<String>) value);\n"
+				+ "\t\t\t\treturn;\n");
+	}
+
+	@Test
+	public void renderInstrumentedBuilder() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.SetterProperty("String", "name", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.INSTRUMENTATION,
+						BuilderOption.LATENCY_HISTOGRAM)),
+				model(properties, InstantiationKind.DEFAULT_CONSTRUCTOR, Arrays.asList("name")));
+
+		assertContains(source, "public Person build() {\n"
+				+ "\t\tlong buildStartNanos = System.nanoTime();\n"
+				+ "\t\tif ((assignedMask & MANDATORY_MASK) != MANDATORY_MASK) {\n"
+				+ "\t\t\tBuildStatistics.VALIDATION_FAILURES.incrementAndGet();\n");
+		assertContains(source, "BuildStatistics.recordBuildLatency(System.nanoTime() - buildStartNanos);\n"
+				+ "\t\tBuildStatistics.BUILDS.incrementAndGet();\n"
+				+ "\t\treturn result;\n");
+		assertContains(source, "BuildStatistics.BUILD_UPON_COPIES.incrementAndGet();\n"
+				+ "\t\treturn builder;\n");
+		assertContains(source, "public static final class BuildStatistics implements BuildStatisticsMBean {");
+		assertContains(source, "long[] getBuildLatencyHistogram();");
+
+		String plain = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true),
+				model(properties, InstantiationKind.DEFAULT_CONSTRUCTOR, Arrays.asList("name")));
+
+		assertFalse(plain.contains("BuildStatistics"));
+		assertFalse(plain.contains("nanoTime"));
+	}
+
+	@Test
+	public void renderPrimitiveStorage() {
+
+		PropertyList properties = new PropertyList();
+		properties.add(new Property.ConstructorArgument("Long", "id", null, 0));
+		properties.add(new Property.SetterProperty("Integer", "age", null));
+		properties.add(new Property.SetterProperty("String", "name", null));
+
+		String source = render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING,
+				EnumSet.of(BuilderOption.FLUENT_SETTERS, BuilderOption.PRIMITIVE_STORAGE)),
+				model(properties, InstantiationKind.CONSTRUCTOR));
+
+		assertContains(source, "private long id;\n"
+				+ "\tprivate int age;\n"
+				+ "\tprivate String name;\n"
+				+ "\tprivate boolean idPresent;\n"
+				+ "\tprivate boolean agePresent;\n");
+		assertContains(source, "public PersonBuilder setAge(Integer age) {\n"
+				+ "\t\tthis.age = age != null ? age.intValue() : 0;\n"
+				+ "\t\tthis.agePresent = age != null;\n");
+		assertContains(source, "public PersonBuilder setAge(int age) {\n"
+				+ "\t\tthis.age = age;\n"
+				+ "\t\tthis.agePresent = true;\n");
+		assertContains(source, "Person result = new Person(idPresent ? Long.valueOf(id) : null);\n"
+				+ "\t\tresult.setAge(agePresent ? Integer.valueOf(age) : null);\n"
+				+ "\t\tresult.setName(name);\n");
+		assertFalse(source.contains("setName(String name) {\n\t\tthis.name = name != null"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectUnknownMandatoryProperty() {
+		render(new BuilderRenderer(SetterNamingStrategy.JAVA_BEAN_SETTER_NAMING, true),
+				model(new PropertyList(), InstantiationKind.DEFAULT_CONSTRUCTOR, Arrays.asList("age")));
+	}
+
+	private static BuilderModel model(PropertyList properties, InstantiationKind kind) {
+		return model(properties, kind, Collections.<String> emptyList());
+	}
+
+	private static BuilderModel model(PropertyList properties, InstantiationKind kind,
+			List<String> mandatoryProperties) {
+		return new BuilderModel("Person", "PersonBuilder", true, kind, null,
+				null, properties, new ArrayList<Property>(),
+				Collections.<String> emptySet(), Collections.<String> emptySet(),
+				mandatoryProperties);
+	}
+
+	private static String extractLine(String source, String part) {
+		for (String line : source.split("\n")) {
+			if (line.contains(part)) {
+				return line.trim();
+			}
+		}
+		return null;
+	}
+
+	private static String render(BuilderRenderer renderer, BuilderModel model) {
+		return renderer.render(model);
+	}
+
+	private static String extractMethod(String source, String methodName) {
+		List<String> lines = Arrays.asList(source.split("\n"));
+		StringBuilder result = new StringBuilder();
+		boolean inMethod = false;
+		for (String line : lines) {
+			if (line.contains(" " + methodName + "(")) {
+				inMethod = true;
+			}
+			if (inMethod) {
+				result.append(line.trim()).append(' ');
+				if (line.trim().equals("}")) {
+					break;
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	private static void assertContains(String source, String expected) {
+		assertTrue("expected <" + expected + "> in:\n" + source, source.contains(expected));
+	}
+
+}
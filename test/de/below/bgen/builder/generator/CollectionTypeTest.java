@@ -0,0 +1,88 @@
+package de.below.bgen.builder.generator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import org.junit.Test;
+
+public class CollectionTypeTest {
+
+	@Test
+	public void parseElementType() {
+
+		CollectionType type = CollectionType.of("java.util.List<java.lang.String>");
+
+		assertEquals(CollectionType.Kind.LIST, type.getKind());
+		assertEquals("java.lang.String", type.getElementType());
+		assertEquals("new java.util.ArrayList<java.lang.String>(tags)", type.renderCopy("tags"));
+	}
+
+	@Test
+	public void parseNestedTypeArguments() {
+
+		CollectionType type = CollectionType.of("Map<String, List<Integer>>");
+
+		assertEquals(CollectionType.Kind.MAP, type.getKind());
+		assertEquals("String", type.getElementType());
+		assertEquals("List<Integer>", type.getValueType());
+		assertEquals("String key, List<Integer> value", type.renderAdderParameters("entry"));
+	}
+
+	@Test
+	public void useObjectForRawTypes() {
+		assertEquals("new java.util.LinkedHashSet<java.lang.Object>()", CollectionType.of("Set").renderNew());
+	}
+
+	@Test
+	public void ignoreWildcardsAndOtherTypes() {
+		assertNull(CollectionType.of("List<? extends Number>"));
+		assertNull(CollectionType.of("java.util.ArrayList<String>"));
+		assertNull(CollectionType.of("String"));
+	}
+
+	@Test
+	public void nameAdders() {
+		assertEquals("addTag", CollectionType.of("List<String>").renderAdderName("tags"));
+		assertEquals("addEntry", CollectionType.of("Set<String>").renderAdderName("entries"));
+		assertEquals("putAddress", CollectionType.of("Map<String, String>").renderAdderName("address"));
+		assertEquals("addData", CollectionType.of("List<String>").renderAdderName("data"));
+	}
+
+	@Test
+	public void singularOfSibilantPlurals() {
+		assertEquals("alias", CollectionType.singular("aliases"));
+		assertEquals("address", CollectionType.singular("addresses"));
+		assertEquals("box", CollectionType.singular("boxes"));
+		assertEquals("status", CollectionType.singular("statuses"));
+		assertEquals("class", CollectionType.singular("classes"));
+		assertEquals("match", CollectionType.singular("matches"));
+		assertEquals("wish", CollectionType.singular("wishes"));
+		assertEquals("buzz", CollectionType.singular("buzzes"));
+		assertEquals("emailAddress", CollectionType.singular("emailAddresses"));
+		assertEquals("emailAlias", CollectionType.singular("emailAliases"));
+		assertEquals("bus", CollectionType.singular("buses"));
+		assertEquals("branch", CollectionType.singular("branches"));
+	}
+
+	@Test
+	public void singularOfSilentEPlurals() {
+		assertEquals("case", CollectionType.singular("cases"));
+		assertEquals("testCase", CollectionType.singular("testCases"));
+		assertEquals("size", CollectionType.singular("sizes"));
+		assertEquals("cache", CollectionType.singular("caches"));
+		assertEquals("response", CollectionType.singular("responses"));
+		assertEquals("house", CollectionType.singular("houses"));
+		assertEquals("database", CollectionType.singular("databases"));
+		assertEquals("value", CollectionType.singular("values"));
+		assertEquals("phrase", CollectionType.singular("phrases"));
+		assertEquals("increase", CollectionType.singular("increases"));
+		assertEquals("disease", CollectionType.singular("diseases"));
+		assertEquals("excuse", CollectionType.singular("excuses"));
+		assertEquals("use", CollectionType.singular("uses"));
+		assertEquals("abuse", CollectionType.singular("abuses"));
+		assertEquals("maze", CollectionType.singular("mazes"));
+		assertEquals("analyse", CollectionType.singular("analyses"));
+		assertEquals("responseCache", CollectionType.singular("responseCaches"));
+	}
+
+}
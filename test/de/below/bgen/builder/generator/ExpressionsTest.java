@@ -2,6 +2,8 @@ package de.below.bgen.builder.generator;
 
 import static de.below.bgen.builder.generator.Expressions.*;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -46,6 +48,32 @@ public class ExpressionsTest {
 		assertEquals("code", "new Date(550)", render(expr));
 	}
 	
+	@Test
+	public void renderFieldAssignmentTwice() {
+		Expression expr = assignment(field(self(), "foo"), variable("foo"));
+		assertEquals("code", "this.foo = foo", render(expr));
+		assertEquals("code", "this.foo = foo", render(expr));
+	}
+
+	@Test
+	public void internEqualExpressions() {
+
+		Expression first = returnStatement(methodCall(type("Builder"), "newBuilder", variable("x")));
+		Expression second = returnStatement(methodCall(type("Builder"), "newBuilder", variable("x")));
+
+		assertEquals("equal", first, second);
+		assertEquals("hash", first.hashCode(), second.hashCode());
+		assertSame("interned", intern(first), intern(second));
+		assertEquals("code", "return Builder.newBuilder(x)", render(intern(second)));
+		assertSame("return this", RETURN_THIS, intern(returnStatement(object("this"))));
+	}
+
+	@Test
+	public void distinguishDifferentExpressions() {
+		assertFalse(instantiation(type("Date")).equals(methodCall(type("Date"), "Date")));
+		assertFalse(assignment(variable("a"), variable("b")).equals(assignment(variable("b"), variable("a"))));
+		assertFalse(numberLiteral(1).equals(stringLiteral("1")));
+	}
 
 	private String render(Expression call) {
 		JavaCodeWriter writer = JavaCodeWriter.create();
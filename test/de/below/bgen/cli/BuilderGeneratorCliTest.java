@@ -0,0 +1,128 @@
+package de.below.bgen.cli;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuilderGeneratorCliTest {
+
+	private final static String personClass =
+		"package de.cli;\n" +
+		"import java.util.List;\n" +
+		"public class Person {\n" +
+		"	public Person(String name) {}\n" +
+		"	public void setNicknames(List<String> nicknames) {}\n" +
+		"}\n";
+
+	private final static String shapeInterface =
+		"package de.cli.shapes;\n" +
+		"public interface Shape {\n" +
+		"}\n";
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("cli", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void mustGenerateBuildersForSourceTree() throws IOException {
+
+		write("src/de/cli/Person.java", personClass);
+		write("src/de/cli/shapes/Shape.java", shapeInterface);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		int exitCode = BuilderGeneratorCli.run(new String[] {
+				"-source", new File(directory, "src").getPath(),
+				"-output", new File(directory, "gen").getPath(),
+				"-batchSize", "1", "-threads", "2" },
+				new PrintStream(out), System.err);
+
+		assertEquals(out.toString(), 0, exitCode);
+
+		String builder = read(new File(directory, "gen/de/cli/PersonBuilder.java"));
+
+		assertTrue(builder, builder.startsWith("package de.cli;\n\nimport java.util.List;\n"));
+		assertTrue(builder, builder.contains("public PersonBuilder setNicknames(List<String> nicknames)"));
+		assertTrue(builder, builder.contains("Person result = new Person(name);"));
+		assertFalse(new File(directory, "gen/de/cli/shapes/ShapeBuilder.java").exists());
+	}
+
+	@Test
+	public void mustRejectMissingSourceDirectory() {
+
+		int exitCode = BuilderGeneratorCli.run(new String[] { "-output", directory.getPath() },
+				new PrintStream(new ByteArrayOutputStream()), new PrintStream(new ByteArrayOutputStream()));
+
+		assertEquals(2, exitCode);
+	}
+
+	private void write(String path, String content) throws IOException {
+
+		File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		Writer writer = new FileWriter(file);
+
+		try {
+			writer.write(content);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	private static String read(File file) throws IOException {
+
+		StringBuilder result = new StringBuilder();
+		Reader reader = new FileReader(file);
+
+		try {
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				result.append(buffer, 0, read);
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return result.toString();
+	}
+
+	private static void delete(File file) {
+
+		File[] children = file.listFiles();
+
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.below.bgen.generator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BatchBuilderGenerator;
+import de.below.bgen.builder.generator.BatchResult;
+import de.below.bgen.builder.generator.BuilderOption;
+
+public class BatchBuilderGeneratorTest extends AbstractWorkspaceAwareTest {
+
+	private final static String personClass =
+		"public class Person {\n" +
+		"		private final String name;\n" +
+		"		public Person(String name) {\n" +
+		"			this.name = name;\n" +
+		"		}\n" +
+		"		public String getName() {\n" +
+		"			return name;\n" +
+		"		}\n" +
+		"	}\n";
+
+	private final static String addressClass =
+		"public class Address {\n" +
+		"		private String street;\n" +
+		"		public void setStreet(String street) {}\n" +
+		"		public String getStreet() {\n" +
+		"			return street;\n" +
+		"		}\n" +
+		"	}\n";
+
+	private final static String shapeInterface =
+		"public interface Shape {\n" +
+		"	}\n";
+
+	@Test
+	public void mustGenerateNestedBuildersForAllClassesOfPackage() throws CoreException {
+
+		ICompilationUnit person = getCompilationUnitFor("de.batch", "Person.java", personClass);
+		ICompilationUnit address = getCompilationUnitFor("de.batch", "Address.java", addressClass);
+		ICompilationUnit shape = getCompilationUnitFor("de.batch", "Shape.java", shapeInterface);
+
+		BatchResult result = BatchBuilderGenerator.newInstance()
+			.generateForPackages(Arrays.asList((IPackageFragment) person.getParent()), PROGRESS_MONITOR);
+
+		assertEquals("generated builders: " + result, 2, result.getGeneratedTypes());
+		assertEquals("skipped types: " + result, 1, result.getSkippedTypes());
+		assertTrue("failures: " + result.getFailures(), result.getFailures().isEmpty());
+
+		assertTrue(person.getType("Person").getType("PersonBuilder").exists());
+		assertTrue(address.getType("Address").getType("AddressBuilder").exists());
+		assertFalse(shape.getType("Shape").getType("ShapeBuilder").exists());
+	}
+
+	@Test
+	public void mustSkipBuildersWithUnchangedFingerprint() throws CoreException {
+
+		ICompilationUnit person = getCompilationUnitFor("de.batch.fingerprint", "Person.java", personClass);
+
+		BatchBuilderGenerator generator = BatchBuilderGenerator.newInstance()
+			.withOption(BuilderOption.FINGERPRINT, true);
+
+		BatchResult first = generator.generateForTypes(Arrays.asList(person.getType("Person")), PROGRESS_MONITOR);
+		BatchResult second = generator.generateForTypes(Arrays.asList(person.getType("Person")), PROGRESS_MONITOR);
+
+		assertEquals("first run: " + first, 1, first.getGeneratedTypes());
+		assertEquals("second run: " + second, 0, second.getGeneratedTypes());
+		assertEquals("second run: " + second, 1, second.getUpToDateTypes());
+	}
+
+	@Test
+	public void mustApplyTypeFilter() throws CoreException {
+
+		ICompilationUnit person = getCompilationUnitFor("de.batch.filter", "Person.java", personClass);
+		ICompilationUnit address = getCompilationUnitFor("de.batch.filter", "Address.java", addressClass);
+
+		BatchResult result = BatchBuilderGenerator.newInstance()
+			.withTypeFilter(new BatchBuilderGenerator.TypeFilter() {
+
+				@Override
+				public boolean accept(IType type) {
+					return type.getElementName().startsWith("P");
+				}
+			})
+			.generateForProject(jProject, PROGRESS_MONITOR);
+
+		assertTrue("failures: " + result.getFailures(), result.getFailures().isEmpty());
+		assertTrue(person.getType("Person").getType("PersonBuilder").exists());
+		assertFalse(address.getType("Address").getType("AddressBuilder").exists());
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.below.bgen.generator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BatchBuilderGenerator;
+import de.below.bgen.builder.generator.BuilderOption;
+import de.below.bgen.builder.generator.BuilderSynchronizer;
+
+public class BuilderSynchronizerTest extends AbstractWorkspaceAwareTest {
+
+	/**
+	 * Longer than the delay of the synchronizer, so a regeneration that is
+	 * scheduled by a saved file has been scheduled when it elapsed.
+	 */
+	private static final long SETTLE_MILLIS = 500;
+
+	private final static String personClass =
+		"public class Person {\n" +
+		"		public void setName(String name) {}\n" +
+		"	}\n";
+
+	private final static String addressClass =
+		"public class Address {\n" +
+		"		public void setStreet(String street) {}\n" +
+		"	}\n";
+
+	private final static String changedAddressClass =
+		"public class Address {\n" +
+		"		public void setStreet(String street) {}\n" +
+		"		public void setZip(String zip) {}\n" +
+		"	}\n";
+
+	private BuilderSynchronizer synchronizer;
+
+	@After
+	public void uninstall() {
+		if (synchronizer != null) {
+			synchronizer.uninstall();
+		}
+	}
+
+	@Test
+	public void mustRegenerateOnlyTheBuilderOfTheSavedUnit() throws Exception {
+
+		ICompilationUnit person = getCompilationUnitFor("de.sync", "Person.java", personClass);
+		ICompilationUnit address = getCompilationUnitFor("de.sync", "Address.java", addressClass);
+
+		BatchBuilderGenerator generator = BatchBuilderGenerator.newInstance()
+			.withOption(BuilderOption.FINGERPRINT, true);
+
+		generator.generateForTypes(Arrays.asList(person.getType("Person"), address.getType("Address")), PROGRESS_MONITOR);
+
+		IType personBuilder = person.getType("Person").getType("PersonBuilder");
+		IType addressBuilder = address.getType("Address").getType("AddressBuilder");
+		String personBuilderSource = personBuilder.getSource();
+		long personStamp = person.getResource().getModificationStamp();
+
+		synchronizer = BuilderSynchronizer.install(generator);
+
+		save(address, changedAddressClass);
+		waitForSynchronizer();
+
+		assertTrue(addressBuilder.getMethod("setZip", new String[] { "QString;" }).exists());
+		assertEquals(personBuilderSource, personBuilder.getSource());
+		assertEquals(personStamp, person.getResource().getModificationStamp());
+
+		// the save of the regenerated builder is reported as a change of the
+		// unit as well, but its fingerprint is up to date
+		long addressStamp = address.getResource().getModificationStamp();
+		String addressBuilderSource = addressBuilder.getSource();
+
+		waitForSynchronizer();
+
+		assertEquals(addressStamp, address.getResource().getModificationStamp());
+		assertEquals(addressBuilderSource, addressBuilder.getSource());
+		assertFalse(Job.getJobManager().find(synchronizer).length > 0);
+	}
+
+	/**
+	 * Saves the unit like an editor does, through its primary working copy.
+	 */
+	private void save(ICompilationUnit unit, String source) throws CoreException {
+
+		unit.becomeWorkingCopy(PROGRESS_MONITOR);
+
+		try {
+			unit.getBuffer().setContents(source);
+			unit.commitWorkingCopy(true, PROGRESS_MONITOR);
+		}
+		finally {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	private void waitForSynchronizer() throws InterruptedException {
+		do {
+			Thread.sleep(SETTLE_MILLIS);
+			Job.getJobManager().join(synchronizer, null);
+		}
+		while (Job.getJobManager().find(synchronizer).length > 0);
+	}
+
+}
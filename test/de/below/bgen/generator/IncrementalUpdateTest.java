@@ -0,0 +1,64 @@
+package de.below.bgen.generator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BuilderGeneratorFacade;
+import de.below.bgen.builder.generator.SourceTypeAnalyzer;
+
+public class IncrementalUpdateTest extends AbstractWorkspaceAwareTest {
+
+	private final static String beanClass =
+		"public class Bean {\n" +
+		"		public void setFirstname(String firstname) {}\n" +
+		"	}\n";
+
+	@Test
+	public void mustOnlyRewriteChangedMembers() throws CoreException {
+
+		ICompilationUnit cu = getCompilationUnitFor("de.incremental", "Bean.java", beanClass);
+		generate(cu.getType("Bean"));
+
+		IType builder = cu.getType("Bean").getType("BeanBuilder");
+		String factoryMethod = builder.getMethod("newBuilder", new String[0]).getSource();
+		int factoryMethodOffset = builder.getMethod("newBuilder", new String[0]).getSourceRange().getOffset();
+
+		cu.getType("Bean").createMethod("public void setLastname(String lastname) {}", null, false, PROGRESS_MONITOR);
+
+		generate(cu.getType("Bean"));
+
+		IMethod unchanged = builder.getMethod("newBuilder", new String[0]);
+		assertEquals(factoryMethod, unchanged.getSource());
+		assertEquals(factoryMethodOffset, unchanged.getSourceRange().getOffset());
+
+		assertTrue(builder.getMethod("setLastname", new String[] { "QString;" }).exists());
+		assertEquals(1, cu.getType("Bean").getTypes().length);
+	}
+
+	@Test
+	public void mustCreateMissingBuilder() throws CoreException {
+
+		ICompilationUnit cu = getCompilationUnitFor("de.incremental.create", "Bean.java", beanClass);
+		generate(cu.getType("Bean"));
+
+		assertTrue(cu.getType("Bean").getType("BeanBuilder").exists());
+	}
+
+	private void generate(IType type) throws CoreException {
+
+		BuilderGeneratorFacade.newInstance()
+			.withType(type)
+			.withEnclosingType(type)
+			.withBuilderName("BeanBuilder")
+			.withSetterProperties(SourceTypeAnalyzer.findSetters(type, null))
+			.withIncrementalUpdate(true)
+			.generate();
+	}
+
+}
@@ -0,0 +1,59 @@
+package de.below.bgen.generator;
+
+import static junit.framework.Assert.assertEquals;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+import org.junit.Test;
+
+import de.below.bgen.builder.generator.BuilderGeneratorFacade;
+import de.below.bgen.builder.generator.SourceTypeAnalyzer;
+
+/**
+ * Checks that a builder that is formatted before it is inserted looks like
+ * one that is formatted afterwards. The time both take is measured by
+ * <code>FormattingBenchmark</code> in the <code>bench</code> folder.
+ *
+ * @author martin
+ */
+public class PreformattingTest extends AbstractWorkspaceAwareTest {
+
+	private final static String beanClass =
+		"public class Bean {\n" +
+		"	private String firstname;\n" +
+		"	private int age;\n" +
+		"	public void setFirstname(String firstname) {\n" +
+		"		this.firstname = firstname;\n" +
+		"	}\n" +
+		"	public void setAge(int age) {\n" +
+		"		this.age = age;\n" +
+		"	}\n" +
+		"}\n";
+
+	@Test
+	public void mustFormatLikeFormattingAfterInsert() throws CoreException {
+
+		ICompilationUnit cu = getCompilationUnitFor("de.preformat", "Bean.java", beanClass);
+		IType type = cu.getType("Bean");
+
+		String formattedAfterInsert = generate(type, false);
+		String preformatted = generate(type, true);
+
+		assertEquals(formattedAfterInsert, preformatted);
+	}
+
+	private String generate(IType type, boolean preformat) throws CoreException {
+
+		BuilderGeneratorFacade.newInstance()
+			.withType(type)
+			.withEnclosingType(type)
+			.withBuilderName("BeanBuilder")
+			.withSetterProperties(SourceTypeAnalyzer.findSetters(type, null))
+			.withPreformatting(preformat)
+			.generate();
+
+		return type.getType("BeanBuilder").getSource();
+	}
+
+}
@@ -0,0 +1,94 @@
+package de.below.codegen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import de.below.bgen.codegen.Visibility;
+
+public class ChunkedCodeBufferTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void appendAcrossChunkBoundaries() {
+
+		ChunkedCodeBuffer buffer = new ChunkedCodeBuffer(4);
+		buffer.append("abc").append('d').append("efghij").append(new StringBuilder("kl"));
+
+		assertEquals("abcdefghijkl", buffer.toString());
+		assertEquals(12, buffer.length());
+		assertEquals('e', buffer.charAt(4));
+		assertEquals("defg", buffer.subSequence(3, 7));
+	}
+
+	@Test
+	public void clearKeepsBufferUsable() {
+
+		ChunkedCodeBuffer buffer = new ChunkedCodeBuffer(4);
+		buffer.append("abcdefghij");
+		buffer.clear();
+		buffer.append("xyz12");
+
+		assertEquals("xyz12", buffer.toString());
+	}
+
+	@Test
+	public void writeToAppendable() throws IOException {
+
+		ChunkedCodeBuffer buffer = new ChunkedCodeBuffer(3);
+		buffer.append("public class Test {}");
+
+		StringWriter out = new StringWriter();
+		buffer.writeTo(out);
+
+		assertEquals("public class Test {}", out.toString());
+	}
+
+	@Test
+	public void writeToChannel() throws IOException {
+
+		String code = "String s = \"äöü€\";";
+
+		ChunkedCodeBuffer buffer = new ChunkedCodeBuffer(5);
+		buffer.append(code);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buffer.writeTo(Channels.newChannel(out), UTF8);
+
+		assertArrayEquals(code.getBytes("UTF-8"), out.toByteArray());
+	}
+
+	@Test
+	public void streamFieldIntoChannelWithSmallBuffer() throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ChannelSink sink = new ChannelSink(Channels.newChannel(out), UTF8, 3);
+
+		JavaCodeWriter writer = JavaCodeWriter.create(sink);
+
+		FieldBuilder.newField(writer, writer)
+			.type("String")
+			.name("hans")
+			.visibility(Visibility.PRIVATE)
+			.buildField();
+
+		writer.flush();
+		sink.close();
+
+		assertEquals("private String hans;", new String(out.toByteArray(), "UTF-8").trim());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void renderStreamedWriterFails() {
+		JavaCodeWriter.create(new StringWriter()).render();
+	}
+
+}
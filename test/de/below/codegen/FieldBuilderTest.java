@@ -4,6 +4,7 @@ import static de.below.bgen.TestUtils.assertCodeEquals;
 
 import org.junit.Test;
 
+import de.below.bgen.builder.generator.Expressions;
 import de.below.bgen.codegen.Visibility;
 
 
@@ -36,4 +37,17 @@ public class FieldBuilderTest {
 		
 	}
 	
+	@Test
+	public void createFieldWithValue() {
+		
+		JavaCodeWriter field = FieldBuilder.newField()
+			.type("String")
+			.name("hans")
+			.value(Expressions.stringLiteral("peter"))
+			.buildField();
+		
+		assertCodeEquals("field declaration", "String hans = \"peter\";", field.render());
+		
+	}
+	
 }
@@ -0,0 +1,82 @@
+package de.below.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import de.below.bgen.codegen.Visibility;
+
+public class JavaCodeWriterTest {
+
+	@Test
+	public void renderVisibilityKeywords() {
+
+		JavaCodeWriter writer = JavaCodeWriter.create();
+
+		for (Visibility visibility : Visibility.values()) {
+			writer.renderVisibility(visibility);
+		}
+
+		assertEquals("private protected public ", writer.render());
+	}
+
+	@Test
+	public void indentDeepBlocks() {
+
+		JavaCodeWriter writer = JavaCodeWriter.create();
+
+		for (int i = 0; i < 20; i++) {
+			writer.startBlock();
+		}
+
+		writer.writeLine("x");
+
+		StringBuilder expected = new StringBuilder();
+
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < i; j++) {
+				expected.append('\t');
+			}
+			expected.append("{\n");
+		}
+
+		for (int j = 0; j < 20; j++) {
+			expected.append('\t');
+		}
+
+		assertEquals(expected.append("x\n").toString(), writer.render());
+	}
+
+	@Test
+	public void writeCapitalized() {
+		assertEquals("Hans", JavaCodeWriter.create().writeCapitalized("hans").render());
+	}
+
+	@Test
+	public void resetDiscardsCodeAndIndention() {
+
+		JavaCodeWriter writer = JavaCodeWriter.create();
+		writer.startBlock().writeLine("a");
+
+		assertEquals("b\n", writer.reset().writeLine("b").render());
+	}
+
+	@Test
+	public void pooledWriterIsReusedPerThread() {
+
+		JavaCodeWriter writer = JavaCodeWriter.pooled();
+		writer.startBlock().writeLine("a");
+
+		assertSame(writer, JavaCodeWriter.pooled());
+		assertEquals("", writer.render());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void resetStreamedWriterFails() {
+		JavaCodeWriter.create(new StringWriter()).reset();
+	}
+
+}
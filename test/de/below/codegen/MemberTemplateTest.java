@@ -0,0 +1,77 @@
+package de.below.codegen;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.below.bgen.codegen.Visibility;
+
+public class MemberTemplateTest {
+
+	private static final MemberTemplate SETTER = MemberTemplate.compile(
+			"public void ${setter}(${type} ${name}) {\n"
+			+ "\tthis.${name} = ${name};\n"
+			+ "}\n", "setter", "type", "name");
+
+	@Test
+	public void renderTemplateInClass() {
+
+		String code = ClassBuilder.newClass()
+			.visibility(Visibility.PUBLIC)
+			.name("Test")
+			.addMember(SETTER, "setName", "String", "name")
+			.endClass()
+			.render();
+
+		assertEquals("public class Test {\n"
+				+ "\tpublic void setName(String name) {\n"
+				+ "\t\tthis.name = name;\n"
+				+ "\t}\n"
+				+ "}\n", code);
+	}
+
+	@Test
+	public void renderSameAsMethodBuilder() {
+
+		String template = SETTER.render(JavaCodeWriter.create(), "setAge", "int", "age").render();
+
+		String method = MethodBuilder.newMethod()
+			.visibility(Visibility.PUBLIC)
+			.voidMethod()
+			.argument("int", "age")
+			.name("setAge")
+			.addStatement(new Statement() {
+
+				@Override
+				public void render(JavaCodeWriter out) {
+					out.write("this.age = age");
+				}
+			})
+			.endMethod()
+			.render();
+
+		assertEquals(method, template);
+	}
+
+	@Test
+	public void renderTemplateWithoutSlots() {
+		assertEquals("return this;\n", MemberTemplate.compile("return this;\n")
+				.render(JavaCodeWriter.create()).render());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectUndeclaredSlot() {
+		MemberTemplate.compile("${type} ${name};", "type");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectUnterminatedSlot() {
+		MemberTemplate.compile("${type", "type");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectMissingValues() {
+		SETTER.render(JavaCodeWriter.create(), "setName");
+	}
+
+}